@@ -0,0 +1,60 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.entities.Post;
+import com.example.demo.entities.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Тестовые данные для бенчмарков.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static User author() {
+        User author = new User();
+        author.setId(1L);
+        author.setName("Benchmark Author");
+        author.setEmail("author@example.com");
+        author.setPassword("Secret#123");
+        author.setIsAdmin(false);
+        return author;
+    }
+
+    /**
+     * Заполняет пустую схему SQL-запросами H2, минуя JPA: быстрее в сотни раз, и посты не попадают в кэши.
+     * Каждый пользователь получает действующую подписку, посты распределены по первым {@code authors}
+     * пользователям поровну, created_at растёт вместе с ID.
+     */
+    static void fill(JdbcTemplate jdbc, int users, int authors, int posts) {
+        jdbc.update("INSERT INTO users (id, name, email, password, is_admin) "
+                + "SELECT X, 'User ' || X, 'user' || X || '@example.com', 'Secret#123', FALSE FROM SYSTEM_RANGE(1, ?)",
+                users);
+        jdbc.update("INSERT INTO subscriptions (id, user_id, expiry_date) "
+                + "SELECT X, X, TIMESTAMP '2099-01-01 00:00:00' FROM SYSTEM_RANGE(1, ?)", users);
+        jdbc.update("INSERT INTO posts (id, title, created_at, author_id, version) "
+                + "SELECT X, 'Post #' || X, TIMESTAMP '2024-01-01 00:00:00' + X * INTERVAL '1' SECOND, "
+                + "MOD(X, ?) + 1, 0 FROM SYSTEM_RANGE(1, ?)", authors, posts);
+        // Короткие тексты хранятся без сжатия, как их записал бы PostBodyStore
+        jdbc.update("INSERT INTO post_bodies (post_id, codec, original_length, data) "
+                + "SELECT X, 'NONE', OCTET_LENGTH(CAST(T AS VARBINARY)), CAST(T AS VARBINARY) "
+                + "FROM (SELECT X, 'Lorem ipsum dolor sit amet #' || X AS T FROM SYSTEM_RANGE(1, ?))", posts);
+        jdbc.execute("ALTER SEQUENCE users_seq RESTART WITH " + (users + 1));
+        jdbc.execute("ALTER SEQUENCE subscriptions_seq RESTART WITH " + (users + 1));
+        jdbc.execute("ALTER SEQUENCE posts_seq RESTART WITH " + (posts + 1));
+        jdbc.execute("ANALYZE");
+    }
+
+    static Post post(long id, User author) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle("Benchmark post #" + id);
+        post.setContent("Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor. ".repeat(5));
+        post.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(id));
+        post.setAuthor(author);
+        return post;
+    }
+}
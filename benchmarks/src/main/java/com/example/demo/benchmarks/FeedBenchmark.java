@@ -0,0 +1,148 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.dto.PostEvent;
+import com.example.demo.dto.PostPage;
+import com.example.demo.dto.PostView;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.services.HomeTimelines;
+import com.example.demo.utils.PostTimeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.ref.Reference;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Домашняя лента на 100 000 читателей: каждый следит за 10 из 1 000 авторов, у авторов 200 000 постов,
+ * у каждого автора 1 000 читателей. Все ленты (по 200 ID) перед замерами загружены в память. В setUp
+ * печатается, сколько кучи занимает одна полная лента: её меряют на отдельных лентах до старта приложения,
+ * потому что H2 освобождает свою память в фоне и искажает разницу по всей куче.
+ *
+ * feedWarm — первая страница (20 постов) из ленты в памяти и запрос постов по ID.
+ * feedCold — то же после сброса ленты: перестройка из базы при чтении.
+ * pullMerge — без лент: слияние постов авторов читателя запросом с JOIN по follows на каждое чтение.
+ * fanOut — раскладка нового поста по лентам 1 000 читателей автора.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class FeedBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int AUTHORS = 1_000;
+    private static final int POSTS = 200_000;
+    private static final int FOLLOWS_PER_USER = 10;
+    private static final int PAGE_SIZE = 20;
+
+    private ConfigurableApplicationContext context;
+    private HomeTimelines homeTimelines;
+    private PostRepository postRepository;
+    private JdbcTemplate jdbc;
+    private long nextPostId = POSTS + 1;
+
+    @Setup
+    public void setUp() {
+        long timelineBytes = timelineBytes();
+        context = SpringApplication.run(DemoApplication.class,
+                "--spring.main.web-application-type=none",
+                "--logging.threshold.console=OFF",
+                "--logging.file.path=target/benchmark-logs/feed",
+                "--spring.datasource.url=jdbc:h2:mem:feed",
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--app.search.in-memory=true",
+                "--app.timeline.max-users=" + USERS,
+                "--app.timeline.max-cached-followers=" + USERS * FOLLOWS_PER_USER);
+        jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkData.fill(jdbc, USERS, AUTHORS, POSTS);
+        // Читатель X / 10 + 1 следит за авторами с шагом 919 по модулю 1 000: десять разных авторов
+        jdbc.update("INSERT INTO follows (id, follower_id, author_id, created_at) "
+                + "SELECT X, (X - 1) / ? + 1, MOD(X * 7919, ?) + 1, TIMESTAMP '2024-01-01 00:00:00' "
+                + "FROM SYSTEM_RANGE(1, ?)", FOLLOWS_PER_USER, AUTHORS, USERS * FOLLOWS_PER_USER);
+        jdbc.execute("ANALYZE");
+        homeTimelines = context.getBean(HomeTimelines.class);
+        postRepository = context.getBean(PostRepository.class);
+
+        long started = System.nanoTime();
+        for (long userId = 1; userId <= USERS; userId++) {
+            homeTimelines.getFeed(userId, null, 1);
+        }
+        System.out.printf("%n%d timelines loaded in %d ms, %d bytes of heap per full timeline%n",
+                homeTimelines.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), timelineBytes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PostPage feedWarm() {
+        return homeTimelines.getFeed(randomUser(), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public PostPage feedCold() {
+        long userId = randomUser();
+        homeTimelines.followsChanged(userId, userId);
+        return homeTimelines.getFeed(userId, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<PostView> pullMerge() {
+        List<Long> ids = jdbc.queryForList("SELECT p.id FROM posts p JOIN follows f ON f.author_id = p.author_id "
+                + "WHERE f.follower_id = ? ORDER BY p.id DESC LIMIT ?", Long.class, randomUser(), PAGE_SIZE);
+        return postRepository.findViewsByIdIn(ids);
+    }
+
+    @Benchmark
+    public void fanOut() {
+        long authorId = ThreadLocalRandom.current().nextLong(AUTHORS) + 1;
+        PostView post = new PostView(nextPostId++, "Fan-out post", LocalDateTime.now(), authorId, "User " + authorId);
+        homeTimelines.onPostEvent(new PostEvent(PostEvent.POSTS_CREATED, List.of(post)));
+    }
+
+    private static long randomUser() {
+        return ThreadLocalRandom.current().nextLong(USERS) + 1;
+    }
+
+    private static long timelineBytes() {
+        List<Long> ids = LongStream.rangeClosed(1, 200).map(id -> 201 - id).boxed().toList();
+        PostTimeline[] timelines = new PostTimeline[10_000];
+        long before = usedHeap();
+        for (int i = 0; i < timelines.length; i++) {
+            timelines[i] = PostTimeline.of(ids.size(), ids);
+        }
+        long used = usedHeap() - before;
+        Reference.reachabilityFence(timelines);
+        return used / timelines.length;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
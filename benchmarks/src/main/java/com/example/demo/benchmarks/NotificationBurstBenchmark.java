@@ -0,0 +1,155 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dto.PostView;
+import com.example.demo.services.PostNotifications;
+import com.example.demo.services.WebSocketService;
+import com.example.demo.services.WebSocketService.SlowConsumerPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.web.socket.TextMessage;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Всплеск записи: 1 000 постов подряд по одному, как при импорте через POST /api/posts.
+ * 500 сессий подписаны на ленту всех постов, ещё 500 — на одного из 50 авторов.
+ * Окно 0 мс — прежнее поведение, событие на каждый пост; 50 мс — адаптивное окно с пачками до 100 постов.
+ *
+ * Время — от первого поста до получения последнего всеми подписчиками ленты. Кроме него JMH выводит
+ * кадры в секунду, кадры и процессорное время процесса на один всплеск.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationBurstBenchmark {
+
+    private static final int FEED_SESSIONS = 500;
+    private static final int AUTHOR_SESSIONS = 500;
+    private static final int AUTHORS = 50;
+    private static final int BURST = 1_000;
+    private static final String LAST_AUTHOR = "burst-end";
+
+    private static final LongAdder frames = new LongAdder();
+
+    @Param({"0", "50"})
+    public long windowMillis;
+
+    private WebSocketService webSocketService;
+    private PostNotifications postNotifications;
+    private volatile CountDownLatch delivered;
+    private long nextId;
+
+    @Setup
+    public void setUp() {
+        // Очереди вмещают весь всплеск и без окна, чтобы сравнивать полную доставку без потерь
+        webSocketService = new WebSocketService(Executors.newFixedThreadPool(8), BURST * 2, 64 * 1024 * 1024, 60_000,
+                SlowConsumerPolicy.DROP_OLDEST, 100);
+        Duration minWindow = Duration.ofMillis(Math.min(1, windowMillis));
+        postNotifications = new PostNotifications(webSocketService, new ObjectMapper().registerModule(new JavaTimeModule()),
+                minWindow, Duration.ofMillis(windowMillis), 100);
+        for (int i = 0; i < FEED_SESSIONS; i++) {
+            CountingWebSocketSession session = new CountingWebSocketSession("feed-" + i, message -> {
+                frames.increment();
+                if (((TextMessage) message).getPayload().endsWith("\"name\":\"" + LAST_AUTHOR + "\"}}]}")) {
+                    delivered.countDown();
+                }
+            });
+            webSocketService.addSession(session);
+            webSocketService.subscribe(session, PostNotifications.ALL_POSTS_TOPIC);
+        }
+        for (int i = 0; i < AUTHOR_SESSIONS; i++) {
+            CountingWebSocketSession session = new CountingWebSocketSession("author-" + i, message -> frames.increment());
+            webSocketService.addSession(session);
+            webSocketService.subscribe(session, PostNotifications.authorTopic((long) (i % AUTHORS + 1)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        postNotifications.destroy();
+        webSocketService.destroy();
+    }
+
+    @Benchmark
+    public void burst(Load load) throws InterruptedException {
+        delivered = new CountDownLatch(FEED_SESSIONS);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < BURST; i++) {
+            long id = ++nextId;
+            long authorId = id % AUTHORS + 1;
+            String authorName = i == BURST - 1 ? LAST_AUTHOR : "Author " + authorId;
+            postNotifications.postsCreated(List.of(new PostView(id, "Burst post " + id, now, authorId, authorName)));
+        }
+        delivered.await();
+        load.bursts++;
+    }
+
+    /**
+     * Кадры и процессорное время на всплеск, усреднённые по итерациям измерения.
+     * JMH складывает счётчики EVENTS всех итераций, поэтому значение итерации делится на их число.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Load {
+
+        private static final com.sun.management.OperatingSystemMXBean OS =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        public double framesPerSecond;
+        public double framesPerBurst;
+        public double cpuMillisPerBurst;
+
+        private int iterations;
+        private long bursts;
+        private long framesAtStart;
+        private long cpuAtStart;
+        private long startedAt;
+
+        @Setup(Level.Iteration)
+        public void start(BenchmarkParams params) {
+            iterations = params.getMeasurement().getCount();
+            bursts = 0;
+            framesPerSecond = 0;
+            framesPerBurst = 0;
+            cpuMillisPerBurst = 0;
+            framesAtStart = frames.sum();
+            cpuAtStart = OS.getProcessCpuTime();
+            startedAt = System.nanoTime();
+        }
+
+        @TearDown(Level.Iteration)
+        public void finish() {
+            if (bursts > 0) {
+                long sent = frames.sum() - framesAtStart;
+                framesPerSecond = sent * 1e9 / (System.nanoTime() - startedAt) / iterations;
+                framesPerBurst = (double) sent / bursts / iterations;
+                cpuMillisPerBurst = (OS.getProcessCpuTime() - cpuAtStart) / 1e6 / bursts / iterations;
+            }
+        }
+    }
+}
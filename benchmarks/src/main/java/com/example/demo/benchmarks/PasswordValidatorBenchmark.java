@@ -0,0 +1,35 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.utils.PasswordValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка пароля при регистрации: регулярное выражение с lookahead через String.matches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordValidatorBenchmark {
+
+    @Param({"Str0ng#Passw0rd", "weakpassword", "Sh0rt#"})
+    public String password;
+
+    @Benchmark
+    public boolean isValidPassword() {
+        return PasswordValidator.isValidPassword(password);
+    }
+}
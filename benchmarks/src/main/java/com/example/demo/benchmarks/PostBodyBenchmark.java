@@ -0,0 +1,179 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.dto.PostPage;
+import com.example.demo.dto.PostView;
+import com.example.demo.entities.Post;
+import com.example.demo.entities.User;
+import com.example.demo.services.PostBodyStore;
+import com.example.demo.services.PostService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Посты с большими текстами: 2 000 постов 20 авторов, у каждого текст около 16 КБ из случайных слов,
+ * то есть сжимается примерно как обычный текст, а не как повторённая строка. Посты создаются через
+ * PostService, поэтому тексты записаны так же, как в приложении.
+ *
+ * codec=LZ4 — тексты от 1 КБ сжимаются (настройка по умолчанию), NONE — порог сжатия выше любого текста.
+ * В setUp печатается объём текстов в post_bodies: исходный и хранимый.
+ *
+ * listPage — страница из 20 постов автора: только метаданные, тексты не читаются.
+ * listPageWithContent — та же страница и тексты её постов: столько стоил список, пока текст был колонкой posts.
+ * readContent — текст одного поста, как в GET /api/posts/{id}/content: чтение и распаковка.
+ * edit — правка заголовка и текста: пост читается без текста, новый текст сжимается и заменяется одним UPDATE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class PostBodyBenchmark {
+
+    private static final int AUTHORS = 20;
+    private static final int POSTS = 2_000;
+    private static final int CONTENT_LENGTH = 16 * 1024;
+    private static final int PAGE_SIZE = 20;
+    private static final int BATCH_SIZE = 500;
+
+    private static final String[] WORDS = ("lorem ipsum dolor sit amet consectetur adipiscing elit sed do eiusmod "
+            + "tempor incididunt ut labore et dolore magna aliqua enim ad minim veniam quis nostrud exercitation "
+            + "ullamco laboris nisi aliquip ex ea commodo consequat duis aute irure in reprehenderit voluptate velit "
+            + "esse cillum fugiat nulla pariatur excepteur sint occaecat cupidatat non proident sunt culpa qui officia "
+            + "deserunt mollit anim id est laborum кэш подписка лента автор пост запрос индекс сжатие").split(" ");
+
+    @Param({"LZ4", "NONE"})
+    public String codec;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private PostBodyStore postBodyStore;
+    private final List<Long> authorIds = new ArrayList<>();
+    private final List<Long> postIds = new ArrayList<>();
+    private final List<String> contents = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(DemoApplication.class,
+                "--spring.main.web-application-type=none",
+                "--logging.threshold.console=OFF",
+                "--logging.file.path=target/benchmark-logs/post-body",
+                "--spring.datasource.url=jdbc:h2:mem:post-body-" + codec,
+                "--app.search.in-memory=true",
+                "--app.posts.body.compression-threshold=" + ("LZ4".equals(codec) ? "1KB" : "1GB"));
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        postService = context.getBean(PostService.class);
+        postBodyStore = context.getBean(PostBodyStore.class);
+
+        jdbc.update("INSERT INTO users (id, name, email, password, is_admin) "
+                + "SELECT X, 'User ' || X, 'user' || X || '@example.com', 'Secret#123', FALSE FROM SYSTEM_RANGE(1, ?)",
+                AUTHORS);
+        jdbc.update("INSERT INTO subscriptions (id, user_id, expiry_date) "
+                + "SELECT X, X, TIMESTAMP '2099-01-01 00:00:00' FROM SYSTEM_RANGE(1, ?)", AUTHORS);
+        jdbc.execute("ALTER SEQUENCE users_seq RESTART WITH " + (AUTHORS + 51));
+        jdbc.execute("ALTER SEQUENCE subscriptions_seq RESTART WITH " + (AUTHORS + 51));
+        for (long authorId = 1; authorId <= AUTHORS; authorId++) {
+            authorIds.add(authorId);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 64; i++) {
+            contents.add(content(random));
+        }
+        List<Post> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < POSTS; i++) {
+            batch.add(post(i, authorIds.get(i % AUTHORS), contents.get(i % contents.size())));
+            if (batch.size() == BATCH_SIZE) {
+                postService.createPosts(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        postIds.addAll(jdbc.queryForList("SELECT id FROM posts ORDER BY id", Long.class));
+        jdbc.execute("ANALYZE");
+
+        Map<String, Object> size = jdbc.queryForMap("SELECT COUNT(*) AS bodies, SUM(original_length) AS original, "
+                + "SUM(OCTET_LENGTH(data)) AS stored FROM post_bodies");
+        long original = ((Number) size.get("original")).longValue();
+        long stored = ((Number) size.get("stored")).longValue();
+        System.out.printf("%n%s: %s bodies, %d bytes of text stored in %d bytes (%.2f of original)%n",
+                codec, size.get("bodies"), original, stored, (double) stored / original);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PostPage listPage() {
+        return postService.getUserPostsIfSubscribed(randomAuthor(), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Map<Long, String> listPageWithContent() {
+        PostPage page = postService.getUserPostsIfSubscribed(randomAuthor(), null, PAGE_SIZE);
+        return postBodyStore.findContents(page.getPosts().stream().map(PostView::getId).toList());
+    }
+
+    @Benchmark
+    public Optional<String> readContent() {
+        return postService.getPostContent(randomPost());
+    }
+
+    @Benchmark
+    public Post edit() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Post update = new Post();
+        update.setTitle("Edited post " + random.nextInt());
+        update.setContent(contents.get(random.nextInt(contents.size())));
+        return postService.editPost(randomPost(), update);
+    }
+
+    private long randomAuthor() {
+        return authorIds.get(ThreadLocalRandom.current().nextInt(authorIds.size()));
+    }
+
+    private long randomPost() {
+        return postIds.get(ThreadLocalRandom.current().nextInt(postIds.size()));
+    }
+
+    private static Post post(int i, long authorId, String content) {
+        User author = new User();
+        author.setId(authorId);
+        Post post = new Post();
+        post.setTitle("Large post #" + i);
+        post.setContent(content);
+        post.setAuthor(author);
+        return post;
+    }
+
+    private static String content(Random random) {
+        StringBuilder content = new StringBuilder(CONTENT_LENGTH + 16);
+        while (content.length() < CONTENT_LENGTH) {
+            content.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        return content.toString();
+    }
+}
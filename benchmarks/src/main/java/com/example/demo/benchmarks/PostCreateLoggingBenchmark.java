@@ -0,0 +1,90 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность POST /api/posts через HTTP с включённым логированием в файл.
+ *
+ * Сравнивает асинхронные логгеры (настройка по умолчанию) с синхронными: селектор контекста
+ * log4j2 выставляется до старта приложения, а JMH запускает каждое значение параметра в своём форке.
+ * Консольный вывод отключён, чтобы измерялась запись в файл, а не скорость терминала.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class PostCreateLoggingBenchmark {
+
+    @Param({"async", "sync"})
+    public String logging;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() {
+        System.setProperty("log4j2.contextSelector", "sync".equals(logging)
+                ? "org.apache.logging.log4j.core.selector.ClassLoaderContextSelector"
+                : "org.apache.logging.log4j.core.async.AsyncLoggerContextSelector");
+        context = SpringApplication.run(DemoApplication.class,
+                "--server.port=0",
+                "--logging.threshold.console=OFF",
+                "--logging.file.path=target/benchmark-logs/" + logging,
+                "--spring.h2.console.enabled=false");
+
+        User author = BenchmarkData.author();
+        author.setId(null);
+        Long authorId = context.getBean(UserRepository.class).save(author).getId();
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/posts"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"title\":\"Benchmark post\",\"content\":\"Lorem ipsum dolor sit amet\","
+                                + "\"author\":{\"id\":" + authorId + "}}"))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int createPost() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("POST /api/posts returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.dto.PostBatchResult;
+import com.example.demo.entities.Post;
+import com.example.demo.entities.User;
+import com.example.demo.services.PostService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка постов: по одному через createPost и пакетом через createPosts (POST /api/posts/batch).
+ * Каждый вызов создаёт 500 постов одного автора; результат пересчитан на один пост, то есть
+ * throughput — постов в секунду.
+ *
+ * perRow — отдельная транзакция и отдельный INSERT на каждый пост.
+ * batched — одна транзакция, вставки пачками по hibernate.jdbc.batch_size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class PostIngestBenchmark {
+
+    private static final int POSTS = 500;
+    private static final long AUTHOR_ID = 1;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private long counter;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(DemoApplication.class,
+                "--spring.main.web-application-type=none",
+                "--logging.threshold.console=OFF",
+                "--logging.file.path=target/benchmark-logs/post-ingest",
+                "--spring.datasource.url=jdbc:h2:mem:post-ingest",
+                "--app.search.in-memory=true");
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        postService = context.getBean(PostService.class);
+
+        jdbc.update("INSERT INTO users (id, name, email, password, is_admin) "
+                + "VALUES (?, 'Author', 'ingest-benchmark@example.com', 'Secret#123', FALSE)", AUTHOR_ID);
+        jdbc.execute("ALTER SEQUENCE users_seq RESTART WITH 51");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSTS)
+    public int perRow() {
+        int created = 0;
+        for (Post post : posts()) {
+            postService.createPost(post);
+            created++;
+        }
+        return created;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSTS)
+    public PostBatchResult batched() {
+        return postService.createPosts(posts());
+    }
+
+    private List<Post> posts() {
+        List<Post> posts = new ArrayList<>(POSTS);
+        for (int i = 0; i < POSTS; i++) {
+            User author = new User();
+            author.setId(AUTHOR_ID);
+            Post post = new Post();
+            post.setTitle("Ingested post #" + counter++);
+            post.setContent("Benchmark post body");
+            post.setAuthor(author);
+            posts.add(post);
+        }
+        return posts;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.dto.PostView;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.SubscriptionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запросы горячего пути на 1 000 000 постов (1 000 авторов по 1 000 постов) и 10 000 подписках:
+ * схема из миграций против схемы без индексов, только с первичными ключами и уникальным email,
+ * какую давал ddl-auto=update на СУБД, не индексирующей внешние ключи.
+ *
+ * Запросы идут через репозитории с выключенными кэшами второго уровня и запросов, чтобы каждый вызов
+ * доходил до базы. Автор и пользователь выбираются случайно.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class PostLookupIndexBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int AUTHORS = 1_000;
+    private static final int POSTS = 1_000_000;
+    private static final PageRequest PAGE = PageRequest.of(0, 20);
+
+    @Param({"true", "false"})
+    public boolean indexes;
+
+    private ConfigurableApplicationContext context;
+    private PostRepository postRepository;
+    private SubscriptionRepository subscriptionRepository;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(DemoApplication.class,
+                "--spring.main.web-application-type=none",
+                "--logging.threshold.console=OFF",
+                "--logging.file.path=target/benchmark-logs/lookup-index",
+                "--spring.datasource.url=jdbc:h2:mem:lookup-index",
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--app.search.in-memory=true");
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        if (!indexes) {
+            // Вместе с внешним ключом H2 удаляет и созданный для него индекс
+            jdbc.execute("ALTER TABLE posts DROP CONSTRAINT fk_posts_author");
+            jdbc.execute("ALTER TABLE subscriptions DROP CONSTRAINT fk_subscriptions_user");
+            jdbc.execute("DROP INDEX idx_posts_author_created_id");
+            jdbc.execute("DROP INDEX idx_subscriptions_user");
+            jdbc.execute("DROP INDEX idx_subscriptions_user_expiry");
+            jdbc.execute("DROP INDEX idx_outbox_events_created_at");
+        }
+        long started = System.nanoTime();
+        BenchmarkData.fill(jdbc, USERS, AUTHORS, POSTS);
+        System.out.printf("%n%d posts loaded in %d ms%n", POSTS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        postRepository = context.getBean(PostRepository.class);
+        subscriptionRepository = context.getBean(SubscriptionRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<PostView> authorFirstPage() {
+        return postRepository.findFirstPageByAuthorId(randomAuthor(), PAGE);
+    }
+
+    // Страница из середины ленты автора: курсор на его посте с ID около POSTS / 2
+    @Benchmark
+    public List<PostView> authorMiddlePage() {
+        long authorId = randomAuthor();
+        long id = POSTS / 2 + authorId - 1;
+        return postRepository.findPageByAuthorIdAfter(authorId, createdAt(id), id, PAGE);
+    }
+
+    @Benchmark
+    public Object authorListVersion() {
+        return postRepository.findListVersionByAuthorId(randomAuthor());
+    }
+
+    @Benchmark
+    public Object subscriptionByUser() {
+        return subscriptionRepository.findLatestExpiryDateByUserId((long) ThreadLocalRandom.current().nextInt(USERS) + 1);
+    }
+
+    private static long randomAuthor() {
+        return ThreadLocalRandom.current().nextInt(AUTHORS) + 1;
+    }
+
+    // Как в BenchmarkData.fill
+    private static LocalDateTime createdAt(long id) {
+        return LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(id);
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.entities.Post;
+import com.example.demo.entities.Subscription;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.SubscriptionRepository;
+import com.example.demo.repositories.UserRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Повторный опрос неизменившегося списка GET /api/posts/user/{id}?limit=100: полный ответ против
+ * условного запроса с If-None-Match (304), с gzip и без.
+ *
+ * Кроме времени запроса JMH выводит счётчики на один запрос: байты ответа (заголовки и тело, как
+ * пришли по сети) и процессорное время потоков Tomcat. Приложение работает в том же форке, поэтому
+ * время сервера считается по потокам http-nio-*, а не по всему процессу.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostRepollBenchmark {
+
+    @Param({"full", "conditional"})
+    public String request;
+
+    @Param({"identity", "gzip"})
+    public String encoding;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest poll;
+    private int expectedStatus;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        context = SpringApplication.run(DemoApplication.class,
+                "--server.port=0",
+                "--logging.threshold.console=OFF",
+                "--logging.file.path=target/benchmark-logs/repoll",
+                "--spring.h2.console.enabled=false");
+
+        User author = BenchmarkData.author();
+        author.setId(null);
+        author = context.getBean(UserRepository.class).save(author);
+        Subscription subscription = new Subscription();
+        subscription.setUser(author);
+        subscription.setExpiryDate(LocalDateTime.now().plusDays(1));
+        context.getBean(SubscriptionRepository.class).save(subscription);
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Post post = BenchmarkData.post(i, author);
+            post.setId(null);
+            posts.add(post);
+        }
+        context.getBean(PostRepository.class).saveAll(posts);
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        URI uri = URI.create("http://localhost:" + port + "/api/posts/user/" + author.getId() + "?limit=100");
+        client = HttpClient.newHttpClient();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).GET();
+        if ("gzip".equals(encoding)) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        if ("conditional".equals(request)) {
+            HttpResponse<Void> first = client.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+            builder.header("If-None-Match", first.headers().firstValue("ETag").orElseThrow());
+            expectedStatus = 304;
+        } else {
+            expectedStatus = 200;
+        }
+        poll = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int repoll(Traffic traffic) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(poll, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException("GET /api/posts/user returned " + response.statusCode());
+        }
+        traffic.record(response);
+        return response.statusCode();
+    }
+
+    /**
+     * Байты и процессорное время сервера на один запрос, усреднённые по итерациям измерения.
+     * JMH складывает счётчики EVENTS всех итераций, поэтому значение итерации делится на их число.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Traffic {
+
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        public double bytesPerRequest;
+        public double serverCpuMicrosPerRequest;
+
+        private int iterations;
+        private long requests;
+        private long bytes;
+        private long cpuAtStart;
+
+        @Setup(Level.Iteration)
+        public void start(BenchmarkParams params) {
+            iterations = params.getMeasurement().getCount();
+            requests = 0;
+            bytes = 0;
+            bytesPerRequest = 0;
+            serverCpuMicrosPerRequest = 0;
+            cpuAtStart = serverCpuNanos();
+        }
+
+        @TearDown(Level.Iteration)
+        public void finish() {
+            if (requests > 0) {
+                bytesPerRequest = (double) bytes / requests / iterations;
+                serverCpuMicrosPerRequest = (serverCpuNanos() - cpuAtStart) / 1_000.0 / requests / iterations;
+            }
+        }
+
+        void record(HttpResponse<byte[]> response) {
+            requests++;
+            // Строка статуса и заголовки в том виде, в каком они идут по HTTP/1.1
+            long size = "HTTP/1.1 200 OK\r\n".length() + 2 + response.body().length;
+            for (var header : response.headers().map().entrySet()) {
+                for (String value : header.getValue()) {
+                    size += header.getKey().length() + 2 + value.length() + 2;
+                }
+            }
+            bytes += size;
+        }
+
+        private static long serverCpuNanos() {
+            long total = 0;
+            for (ThreadInfo info : THREADS.dumpAllThreads(false, false)) {
+                if (info.getThreadName().startsWith("http-nio-")) {
+                    long cpu = THREADS.getThreadCpuTime(info.getThreadId());
+                    if (cpu > 0) {
+                        total += cpu;
+                    }
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dto.PostReportRow;
+import com.example.demo.entities.Post;
+import com.example.demo.services.PostsReportWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Генерация строк XLSX-отчёта по постам и запись готовой книги.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostsReportBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    private List<PostReportRow> posts;
+
+    @Setup
+    public void setUp() {
+        posts = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Post post = BenchmarkData.post(i, BenchmarkData.author());
+            posts.add(new PostReportRow(post.getId(), post.getTitle(), post.getContent(), post.getCreatedAt()));
+        }
+    }
+
+    @Benchmark
+    public int writeReport() throws IOException {
+        try (PostsReportWriter writer = new PostsReportWriter(100)) {
+            for (PostReportRow post : posts) {
+                writer.writeRow(post);
+            }
+            writer.writeTo(OutputStream.nullOutputStream());
+            return writer.getRowCount();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.services.RateLimits;
+import com.example.demo.services.RateLimits.Limit;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена проверки лимита на запрос при 16 конкурирующих потоках.
+ *
+ * keys — число разных клиентов: 1 — все потоки списывают токены из одного ведра (худший случай для CAS),
+ * 100000 — столько же ключей, сколько помещается в лимит по умолчанию (app.rate-limit.max-keys).
+ * Лимит взят заведомо большим, чтобы каждый вызов успешно списывал токен и менял состояние ведра;
+ * отказ дешевле — он только читает ведро. SampleTime даёт распределение задержек, Throughput — вызовы в мкс.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class RateLimitBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    public int keys;
+
+    private RateLimits rateLimits;
+    private String[] clients;
+
+    @Setup
+    public void setUp() {
+        rateLimits = new RateLimits(Map.of(RateLimits.POSTS_CREATE, new Limit(1_000_000_000, Duration.ofSeconds(1))),
+                true, 100_000, Ticker.systemTicker());
+        clients = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            clients[i] = "ip:10." + (i >> 16) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        String client = clients[ThreadLocalRandom.current().nextInt(keys)];
+        return rateLimits.tryAcquire(RateLimits.POSTS_CREATE, client);
+    }
+}
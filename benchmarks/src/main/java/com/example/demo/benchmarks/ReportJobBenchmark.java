@@ -0,0 +1,79 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.services.PostReportJobs;
+import com.example.demo.services.PostService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Восемь клиентов одновременно запрашивают отчёт по 20 000 постов, которые не меняются.
+ *
+ * rebuildPerRequest — как раньше GET /api/posts/report: каждый запрос строит книгу заново.
+ * sharedJob — через PostReportJobs: запрос получает задачу текущей версии данных и читает готовый файл,
+ * построение было одно на все запросы.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ReportJobBenchmark {
+
+    private static final int POSTS = 20_000;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private PostReportJobs postReportJobs;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(DemoApplication.class,
+                "--spring.main.web-application-type=none",
+                "--logging.threshold.console=OFF",
+                "--logging.file.path=target/benchmark-logs/report-job",
+                "--spring.datasource.url=jdbc:h2:mem:report-job",
+                "--app.search.in-memory=true",
+                "--app.report.dir=target/benchmark-reports");
+        BenchmarkData.fill(context.getBean(JdbcTemplate.class), 100, 100, POSTS);
+        postService = context.getBean(PostService.class);
+        postReportJobs = context.getBean(PostReportJobs.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void rebuildPerRequest() {
+        postService.generatePostsReport(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long sharedJob() throws Exception {
+        String jobId = postReportJobs.submit().getId();
+        Path artifact = postReportJobs.whenDone(jobId).orElseThrow().get();
+        return Files.copy(artifact, OutputStream.nullOutputStream());
+    }
+}
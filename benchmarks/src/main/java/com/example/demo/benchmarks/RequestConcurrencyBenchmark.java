@@ -0,0 +1,108 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.entities.Post;
+import com.example.demo.entities.Subscription;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.SubscriptionRepository;
+import com.example.demo.repositories.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочное сравнение режимов выполнения: GET /api/posts/user/{id} при 256 одновременных клиентах
+ * на пуле платформенных потоков Tomcat и на виртуальных потоках.
+ *
+ * Режим SampleTime даёт распределение задержек (p99 в отчёте JMH), Throughput — запросы в секунду.
+ * Виртуальные потоки требуют Java 21 в форке: {@code -Djmh.args="-jvm /path/to/jdk21/bin/java"}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(256)
+@State(Scope.Benchmark)
+public class RequestConcurrencyBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threading;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() {
+        boolean virtual = "virtual".equals(threading);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21, run the fork with -jvm <jdk21>/bin/java");
+        }
+        context = SpringApplication.run(DemoApplication.class,
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--logging.threshold.console=OFF",
+                "--logging.file.path=target/benchmark-logs/" + threading,
+                "--spring.h2.console.enabled=false");
+
+        User author = BenchmarkData.author();
+        author.setId(null);
+        author = context.getBean(UserRepository.class).save(author);
+        Subscription subscription = new Subscription();
+        subscription.setUser(author);
+        subscription.setExpiryDate(LocalDateTime.now().plusDays(1));
+        context.getBean(SubscriptionRepository.class).save(subscription);
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Post post = BenchmarkData.post(i, author);
+            post.setId(null);
+            posts.add(post);
+        }
+        context.getBean(PostRepository.class).saveAll(posts);
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/posts/user/" + author.getId() + "?limit=20"))
+                .GET()
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int userPosts() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/posts/user returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.DemoApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Старт приложения на базе с 1 000 000 постов: миграции Flyway и проверка схемы Hibernate (validate)
+ * против прежнего сравнения схемы с сущностями при каждом старте (ddl-auto=update).
+ *
+ * База создаётся и заполняется один раз, каждый замер — полный старт контекста до готовности без веб-сервера.
+ * Индекс поиска каждый раз перестраивается в фоне после старта и в замер не входит.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class SchemaStartupBenchmark {
+
+    private static final String DATABASE = "jdbc:h2:mem:schema-startup;DB_CLOSE_DELAY=-1";
+
+    @Param({"flyway-validate", "ddl-update"})
+    public String schema;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void createDatabase() {
+        try (ConfigurableApplicationContext migrated = start("--spring.flyway.enabled=true",
+                "--spring.jpa.hibernate.ddl-auto=validate")) {
+            BenchmarkData.fill(migrated.getBean(JdbcTemplate.class), 10_000, 1_000, 1_000_000);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext startup() {
+        context = "ddl-update".equals(schema)
+                ? start("--spring.flyway.enabled=false", "--spring.jpa.hibernate.ddl-auto=update")
+                : start("--spring.flyway.enabled=true", "--spring.jpa.hibernate.ddl-auto=validate");
+        return context;
+    }
+
+    private static ConfigurableApplicationContext start(String flyway, String ddlAuto) {
+        return SpringApplication.run(DemoApplication.class,
+                "--spring.main.web-application-type=none",
+                "--logging.threshold.console=OFF",
+                "--logging.file.path=target/benchmark-logs/schema-startup",
+                "--spring.datasource.url=" + DATABASE,
+                "--app.search.in-memory=true",
+                flyway,
+                ddlAuto);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.services.WebSocketService;
+import com.example.demo.services.WebSocketService.SlowConsumerPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полная рассылка через WebSocketService: от sendMessageToAll до получения сообщения всеми сессиями.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebSocketFanOutBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int sessions;
+
+    private WebSocketService webSocketService;
+    private volatile CountDownLatch delivered;
+
+    @Setup
+    public void setUp() {
+        webSocketService = new WebSocketService(Executors.newFixedThreadPool(8), 256, 512 * 1024, 5_000,
+                SlowConsumerPolicy.DROP_OLDEST, 100);
+        for (int i = 0; i < sessions; i++) {
+            webSocketService.addSession(new CountingWebSocketSession("session-" + i, message -> delivered.countDown()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        webSocketService.destroy();
+    }
+
+    @Benchmark
+    public void broadcast() throws InterruptedException {
+        delivered = new CountDownLatch(sessions);
+        webSocketService.sendMessageToAll("New post was created ");
+        delivered.await();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.services.WebSocketService;
+import com.example.demo.services.WebSocketService.SlowConsumerPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикация события о посте при 10 000 сессий, равномерно подписанных на 1 000 тем автора:
+ * адресная публикация в одну тему против прежней рассылки всем сессиям.
+ * Время — от вызова до получения сообщения всеми адресатами.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebSocketTopicPublishBenchmark {
+
+    private static final String EVENT = "{\"type\":\"posts.created\",\"authorId\":1,\"posts\":[]}";
+
+    @Param({"10000"})
+    public int sessions;
+
+    @Param({"1000"})
+    public int topics;
+
+    @Param({"topic", "broadcast"})
+    public String delivery;
+
+    private WebSocketService webSocketService;
+    private volatile CountDownLatch delivered;
+    private int[] subscribers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        webSocketService = new WebSocketService(Executors.newFixedThreadPool(8), 256, 512 * 1024, 5_000,
+                SlowConsumerPolicy.DROP_OLDEST, 100);
+        subscribers = new int[topics];
+        for (int i = 0; i < sessions; i++) {
+            CountingWebSocketSession session =
+                    new CountingWebSocketSession("session-" + i, message -> delivered.countDown());
+            webSocketService.addSession(session);
+            webSocketService.subscribe(session, "author:" + (i % topics + 1));
+            subscribers[i % topics]++;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        webSocketService.destroy();
+    }
+
+    @Benchmark
+    public void publish() throws InterruptedException {
+        if ("broadcast".equals(delivery)) {
+            delivered = new CountDownLatch(sessions);
+            webSocketService.sendMessageToAll(EVENT);
+        } else {
+            int topic = next++ % topics;
+            delivered = new CountDownLatch(subscribers[topic]);
+            webSocketService.publish(List.of("author:" + (topic + 1)), EVENT);
+        }
+        delivered.await();
+    }
+}
@@ -0,0 +1,121 @@
+#!/usr/bin/env bash
+# Холодный старт приложения в разных режимах запуска: время до первого ответа и RSS процесса.
+#
+# Перед запуском соберите приложение для быстрого старта (AOT, распакованный jar и архив AppCDS):
+#   mvn -B package -pl demo -Pfast-startup -DskipTests
+# Запуск:
+#   benchmarks/startup-benchmark.sh [запусков на режим, по умолчанию 5] [режимы, по умолчанию все]
+#
+# Режимы:
+#   jar      исполняемый jar как есть, с вложенными jar
+#   extracted распакованный jar
+#   aot      распакованный jar с определениями бинов, сгенерированными Spring AOT
+#   aot-cds  то же с архивом AppCDS
+#
+# Каждый запуск — новая JVM с профилем prod в пустом рабочем каталоге. Время до первого ответа считается
+# от запуска java до первого ответа 200 на GET /actuator/health (проверка идёт в базу), RSS читается
+# из /proc сразу после этого ответа. Первый запуск каждого режима прогревает дисковый кэш и не учитывается.
+# Результаты: benchmarks/target/startup-results.csv, медианы выводятся в конце.
+# Дополнительные опции JVM, одинаковые для всех режимов, задаются в JAVA_OPTS, порт — в PORT.
+
+set -euo pipefail
+
+runs=${1:-5}
+modes=${2:-"jar extracted aot aot-cds"}
+port=${PORT:-18080}
+
+root=$(cd "$(dirname "$0")/.." && pwd)
+target="$root/demo/target"
+jar="demo-0.0.1-SNAPSHOT-exec.jar"
+extracted="$target/fast-startup"
+results="$root/benchmarks/target/startup-results.csv"
+
+if [[ ! -f "$extracted/$jar" || ! -f "$extracted/application.jsa" ]]; then
+    echo "Not built for fast startup, run: mvn -B package -pl demo -Pfast-startup -DskipTests" >&2
+    exit 1
+fi
+
+mkdir -p "$(dirname "$results")"
+echo "mode,run,first_response_ms,rss_mb" > "$results"
+
+pid=""
+workdir=""
+cleanup() {
+    if [[ -n "$pid" ]] && kill -0 "$pid" 2>/dev/null; then
+        kill "$pid" 2>/dev/null || true
+        wait "$pid" 2>/dev/null || true
+    fi
+    if [[ -n "$workdir" ]]; then
+        rm -rf "$workdir"
+    fi
+}
+trap cleanup EXIT
+
+# Запускает приложение один раз и записывает время до первого ответа в millis (мс) и RSS в rss (МБ)
+start_once() {
+    local mode=$1
+    local jvm_args=(${JAVA_OPTS:-} -Dspring.profiles.active=prod -Dserver.port="$port")
+    local jar_path
+    workdir=$(mktemp -d)
+    case "$mode" in
+        jar)       jar_path="$target/$jar" ;;
+        extracted) jar_path="$jar" ;;
+        aot)       jar_path="$jar"; jvm_args+=(-Dspring.aot.enabled=true) ;;
+        aot-cds)   jar_path="$jar"; jvm_args+=(-Dspring.aot.enabled=true -XX:SharedArchiveFile=application.jsa) ;;
+        *)         echo "Unknown mode: $mode" >&2; exit 1 ;;
+    esac
+    # Архив CDS привязан к classpath, записанному при сборке, поэтому распакованный jar запускается
+    # из его каталога по тому же относительному пути; данные приложения пишутся во временный каталог
+    local started
+    started=$(date +%s%N)
+    if [[ "$mode" == "jar" ]]; then
+        (cd "$workdir" && exec java "${jvm_args[@]}" -jar "$jar_path") > "$workdir/out.log" 2>&1 &
+    else
+        (cd "$extracted" && exec java "${jvm_args[@]}" -Dapp.search.index-dir="$workdir/search-index" \
+            -jar "$jar_path") > "$workdir/out.log" 2>&1 &
+    fi
+    pid=$!
+
+    until curl -sf -o /dev/null "http://localhost:$port/actuator/health"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Application exited during startup in mode $mode, see the log:" >&2
+            tail -n 50 "$workdir/out.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    local responded
+    responded=$(date +%s%N)
+    local rss_kb
+    rss_kb=$(awk '/^VmRSS:/ { print $2 }' "/proc/$pid/status")
+
+    cleanup
+    pid=""
+    workdir=""
+    millis=$(( (responded - started) / 1000000 ))
+    rss=$(( rss_kb / 1024 ))
+}
+
+for mode in $modes; do
+    start_once "$mode"
+    for run in $(seq 1 "$runs"); do
+        start_once "$mode"
+        echo "$mode,$run,$millis,$rss" >> "$results"
+        echo "$mode run $run: first response in $millis ms, RSS $rss MB"
+    done
+done
+
+echo
+printf '%-10s %22s %12s\n' mode "first response, ms" "RSS, MB"
+for mode in $modes; do
+    awk -F, -v mode="$mode" '
+        $1 == mode { times[n] = $3; rss[n] = $4; n++ }
+        function median(values, count,    i, j, t) {
+            for (i = 0; i < count; i++)
+                for (j = i + 1; j < count; j++)
+                    if (values[j] < values[i]) { t = values[i]; values[i] = values[j]; values[j] = t }
+            return count % 2 ? values[int(count / 2)] : (values[count / 2 - 1] + values[count / 2]) / 2
+        }
+        END { if (n) printf "%-10s %22d %12d\n", mode, median(times, n), median(rss, n) }
+    ' "$results"
+done
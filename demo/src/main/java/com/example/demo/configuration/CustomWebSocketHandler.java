@@ -1,31 +1,100 @@
 package com.example.demo.configuration;
 
+import com.example.demo.services.PostNotifications;
+import com.example.demo.services.RateLimits;
 import com.example.demo.services.WebSocketService;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+/**
+ * Обработчик /ws. Клиент управляет подписками командами
+ * {@code {"action":"subscribe","topic":"author:42"}} и {@code {"action":"unsubscribe","topic":"posts"}};
+ * на каждую команду приходит ответ с типом subscribed, unsubscribed или error.
+ * Прочие сообщения клиентов больше никому не пересылаются.
+ * Сессию, присылающую сообщения чаще лимита {@link RateLimits#WEBSOCKET}, сервер закрывает
+ * с кодом 1008 (policy violation).
+ */
 public class CustomWebSocketHandler extends TextWebSocketHandler {
 
-    @Autowired
-    private WebSocketService webSocketService;
+    private static final Logger logger = LoggerFactory.getLogger(CustomWebSocketHandler.class);
+
+    private final WebSocketService webSocketService;
+    private final ObjectMapper objectMapper;
+    private final RateLimits rateLimits;
+
+    public CustomWebSocketHandler(WebSocketService webSocketService, ObjectMapper objectMapper,
+                                  RateLimits rateLimits) {
+        this.webSocketService = webSocketService;
+        this.objectMapper = objectMapper;
+        this.rateLimits = rateLimits;
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         webSocketService.addSession(session);
-        System.out.println("Session connected: " + session.getId());
+        logger.info("Session connected: {}", session.getId());
     }
 
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        webSocketService.sendMessageToAll(message.getPayload());
+        if (rateLimits.tryAcquire(RateLimits.WEBSOCKET, session.getId()) > 0) {
+            logger.warn("Closing session {}: inbound message rate limit exceeded", session.getId());
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Rate limit exceeded"));
+            return;
+        }
+        JsonNode command;
+        try {
+            command = objectMapper.readTree(message.getPayload());
+        } catch (JsonProcessingException e) {
+            reply(session, error("Command must be a JSON object"));
+            return;
+        }
+        String action = command.path("action").asText();
+        String topic = command.path("topic").asText(null);
+        if (!PostNotifications.isValidTopic(topic)) {
+            reply(session, error("Unknown topic: " + topic));
+            return;
+        }
+        switch (action) {
+            case "subscribe" -> {
+                if (webSocketService.subscribe(session, topic)) {
+                    reply(session, ack("subscribed", topic));
+                } else {
+                    reply(session, error("Too many subscriptions"));
+                }
+            }
+            case "unsubscribe" -> {
+                webSocketService.unsubscribe(session, topic);
+                reply(session, ack("unsubscribed", topic));
+            }
+            default -> reply(session, error("Unknown action: " + action));
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         webSocketService.removeSession(session);
-        System.out.println("Session closed: " + session.getId());
+        rateLimits.release(RateLimits.WEBSOCKET, session.getId());
+        logger.info("Session closed: {} ({})", session.getId(), status);
+    }
+
+    private ObjectNode ack(String type, String topic) {
+        return objectMapper.createObjectNode().put("type", type).put("topic", topic);
+    }
+
+    private ObjectNode error(String message) {
+        return objectMapper.createObjectNode().put("type", "error").put("message", message);
+    }
+
+    private void reply(WebSocketSession session, ObjectNode reply) throws JsonProcessingException {
+        webSocketService.sendTo(session, objectMapper.writeValueAsString(reply));
     }
 }
@@ -0,0 +1,57 @@
+package com.example.demo.configuration;
+
+import com.example.demo.services.RateLimits;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отвечает 429 с заголовком Retry-After на вызов метода с {@link RateLimited} сверх лимита.
+ * Ключ лимита — имя аутентифицированного пользователя, а без него IP-адрес клиента
+ * (за прокси адрес берётся из X-Forwarded-For при server.forward-headers-strategy).
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    private final RateLimits rateLimits;
+
+    public RateLimitInterceptor(RateLimits rateLimits) {
+        this.rateLimits = rateLimits;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        RateLimited rateLimited = method.getMethodAnnotation(RateLimited.class);
+        if (rateLimited == null) {
+            return true;
+        }
+        Principal principal = request.getUserPrincipal();
+        String key = principal != null ? "user:" + principal.getName() : "ip:" + request.getRemoteAddr();
+        long waitNanos = rateLimits.tryAcquire(rateLimited.value(), key);
+        if (waitNanos == 0) {
+            return true;
+        }
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+        logger.debug("Rate limit {} exceeded by {}, retry after {} s", rateLimited.value(), key, retryAfterSeconds);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many requests, retry after " + retryAfterSeconds + " s");
+        return false;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.configuration;
+
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.SubscriptionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import java.util.List;
+
+/**
+ * Метрики регионов кэша второго уровня: попадания, промахи, записи и вытеснения (cache.* с тегом cache=регион).
+ * Запросы и попадания по сущностям и запросам Hibernate публикует сам (hibernate.* из hibernate-micrometer),
+ * а вытеснения видит только Caffeine, поэтому регионы регистрируются ещё и как JCache-кэши.
+ * Регионы помечены тегом cache.manager=hibernate; собственные кэши приложения — cache.manager=app:
+ * Prometheus принимает метрики с одним именем только с одинаковым набором тегов.
+ */
+@Component
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    // Регионы кэша запросов Hibernate создаёт при первом запросе; создаём их заранее, чтобы метрики были сразу
+    private static final List<String> QUERY_REGIONS = List.of(
+            PostRepository.POSTS_BY_AUTHOR_REGION,
+            PostRepository.POST_LIST_VERSION_REGION,
+            SubscriptionRepository.SUBSCRIPTION_BY_USER_REGION);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CacheImplementor cache = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache();
+        if (!(cache.getRegionFactory() instanceof JCacheRegionFactory regionFactory)) {
+            return;
+        }
+        QUERY_REGIONS.forEach(cache::getQueryResultsCache);
+        CacheManager cacheManager = regionFactory.getCacheManager();
+        for (String name : cacheManager.getCacheNames()) {
+            JCacheMetrics.monitor(registry, cacheManager.getCache(name), Tags.of("cache.manager", "hibernate"));
+        }
+    }
+}
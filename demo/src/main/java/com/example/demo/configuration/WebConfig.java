@@ -1,17 +1,33 @@
 package com.example.demo.configuration;
 
+import com.example.demo.controllers.PostController;
+import com.example.demo.services.RateLimits;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final RateLimits rateLimits;
+
+    public WebConfig(RateLimits rateLimits) {
+        this.rateLimits = rateLimits;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOrigins("http://localhost:5173")
                 .allowedMethods("GET", "POST", "PUT", "DELETE")
-                .allowedHeaders("*");
+                .allowedHeaders("*")
+                .exposedHeaders(PostController.NEXT_CURSOR_HEADER, HttpHeaders.ETAG, HttpHeaders.RETRY_AFTER);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RateLimitInterceptor(rateLimits));
     }
 }
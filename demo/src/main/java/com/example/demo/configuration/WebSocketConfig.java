@@ -1,5 +1,8 @@
 package com.example.demo.configuration;
 
+import com.example.demo.services.RateLimits;
+import com.example.demo.services.WebSocketService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
@@ -10,9 +13,19 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    private final WebSocketService webSocketService;
+    private final ObjectMapper objectMapper;
+    private final RateLimits rateLimits;
+
+    public WebSocketConfig(WebSocketService webSocketService, ObjectMapper objectMapper, RateLimits rateLimits) {
+        this.webSocketService = webSocketService;
+        this.objectMapper = objectMapper;
+        this.rateLimits = rateLimits;
+    }
+
     @Bean
     public CustomWebSocketHandler customWebSocketHandler() {
-        return new CustomWebSocketHandler();
+        return new CustomWebSocketHandler(webSocketService, objectMapper, rateLimits);
     }
 
     @Override
@@ -1,14 +1,38 @@
 package com.example.demo.controllers;
 
+import com.example.demo.configuration.RateLimited;
+import com.example.demo.dto.PostBatchResult;
+import com.example.demo.dto.PostPage;
+import com.example.demo.dto.PostReportJob;
+import com.example.demo.dto.PostSearchResult;
+import com.example.demo.dto.PostView;
 import com.example.demo.entities.Post;
+import com.example.demo.services.HomeTimelines;
+import com.example.demo.services.PostReportJobs;
 import com.example.demo.services.PostService;
+import com.example.demo.services.RateLimits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -20,12 +44,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 public class PostController {
 
     private final PostService postService;
+    private final PostReportJobs postReportJobs;
+    private final HomeTimelines homeTimelines;
+    private final int maxBatchSize;
 
     private static final Logger logger = LoggerFactory.getLogger(PostController.class);
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String REPORT_FILE_NAME = "posts_report.xlsx";
+    private static final String REPORT_CONTENT_TYPE =
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
     @Autowired
-    public PostController(PostService postService) {
+    public PostController(PostService postService, PostReportJobs postReportJobs, HomeTimelines homeTimelines,
+                          @Value("${app.posts.batch.max-size:5000}") int maxBatchSize) {
         this.postService = postService;
+        this.postReportJobs = postReportJobs;
+        this.homeTimelines = homeTimelines;
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
@@ -37,23 +74,60 @@ public class PostController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Post created successfully", 
                             content = @Content(mediaType = "application/json", 
-                            schema = @Schema(implementation = Post.class))),
+                            schema = @Schema(implementation = PostView.class))),
+                    @ApiResponse(responseCode = "429", description = "Rate limit exceeded, see Retry-After"),
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
     @PostMapping
-    public ResponseEntity<Post> createPost(@RequestBody Post post) {
+    @RateLimited(RateLimits.POSTS_CREATE)
+    public ResponseEntity<PostView> createPost(@RequestBody Post post) {
         try {
             logger.info("Attempting to create a new post with title: {}", post.getTitle());
             Post createdPost = postService.createPost(post);
             logger.info("Post created successfully with ID: {}", createdPost.getId());
-            return ResponseEntity.ok(createdPost);
+            return ResponseEntity.ok(PostView.from(createdPost));
         } catch (Exception e) {
             logger.error("Error creating a post: ", e);
             return ResponseEntity.status(500).build();
         }
     }
 
+    /**
+     * Create many posts in one request.
+     */
+    @Operation(
+            summary = "Create posts in batch",
+            description = "Creates up to the configured maximum number of posts in one transaction using JDBC batching. "
+                    + "Invalid posts are rejected individually; the response has one result per submitted post.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed",
+                            content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PostBatchResult.class))),
+                    @ApiResponse(responseCode = "400", description = "Batch is empty or too large"),
+                    @ApiResponse(responseCode = "429", description = "Rate limit exceeded, see Retry-After"),
+                    @ApiResponse(responseCode = "500", description = "Internal Server Error")
+            }
+    )
+    @PostMapping("/batch")
+    @RateLimited(RateLimits.POSTS_BATCH)
+    public ResponseEntity<PostBatchResult> createPosts(@RequestBody List<Post> posts) {
+        if (posts.isEmpty() || posts.size() > maxBatchSize) {
+            logger.warn("Rejecting batch of {} posts, allowed size is 1..{}", posts.size(), maxBatchSize);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            logger.info("Attempting to create a batch of {} posts", posts.size());
+            PostBatchResult result = postService.createPosts(posts);
+            logger.info("Batch created: {} posts created, {} rejected",
+                    result.getCreatedCount(), result.getRejectedCount());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Error creating a batch of posts: ", e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
     /**
      * Edit an existing post.
      */
@@ -70,17 +144,21 @@ public class PostController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Post updated successfully",
                             content = @Content(mediaType = "application/json", 
-                            schema = @Schema(implementation = Post.class))),
+                            schema = @Schema(implementation = PostView.class))),
+                    @ApiResponse(responseCode = "409", description = "Post was changed concurrently"),
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
     @PutMapping("/{postId}")
-    public ResponseEntity<Post> editPost(@PathVariable Long postId, @RequestBody Post updatedPost) {
+    public ResponseEntity<PostView> editPost(@PathVariable Long postId, @RequestBody Post updatedPost) {
         try {
             logger.info("Attempting to edit post with ID: {}", postId);
             Post post = postService.editPost(postId, updatedPost);
             logger.info("Post edited successfully with ID: {}", post.getId());
-            return ResponseEntity.ok(post);
+            return ResponseEntity.ok(PostView.from(post));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Post with ID: {} was changed concurrently", postId);
+            return ResponseEntity.status(409).build();
         } catch (Exception e) {
             logger.error("Error editing the post with ID: {}", postId, e);
             return ResponseEntity.status(500).build();
@@ -118,68 +196,350 @@ public class PostController {
         }
     }
 
+    /**
+     * Fetch the content of a post. Post lists and events carry only post metadata;
+     * the content, which may be large, is fetched here. Responses carry an ETag of the post version,
+     * so re-fetches with If-None-Match get 304 without the content being read.
+     */
+    @Operation(
+            summary = "Fetch post content",
+            description = "Returns the content of the post as plain text. "
+                    + "Send the ETag of a previous response as If-None-Match to get 304 when the post has not changed.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "postId",
+                            description = "The unique ID of the post whose content is to be fetched",
+                            required = true
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Content fetched successfully",
+                            content = @Content(mediaType = "text/plain")),
+                    @ApiResponse(responseCode = "304", description = "Post has not changed since the given ETag"),
+                    @ApiResponse(responseCode = "404", description = "Post not found"),
+                    @ApiResponse(responseCode = "500", description = "Internal Server Error")
+            }
+    )
+    @GetMapping(value = "/{postId}/content", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getPostContent(@PathVariable Long postId, WebRequest webRequest) {
+        try {
+            String etag = postService.getPostContentETag(postId);
+            if (etag == null) {
+                logger.info("Post with ID: {} not found", postId);
+                return ResponseEntity.notFound().build();
+            }
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+            Optional<String> content = postService.getPostContent(postId);
+            if (content.isEmpty()) {
+                logger.info("Post with ID: {} has no content", postId);
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(content.get());
+        } catch (Exception e) {
+            logger.error("Error fetching content of the post with ID: {}", postId, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
     /**
      * Fetch posts of a specific user if the subscription is active.
+     * Results are paged by (createdAt, id), newest first; the cursor for the next page
+     * is returned in the X-Next-Cursor header. Responses carry an ETag of the author's posts,
+     * so re-polls with If-None-Match get 304 without the posts being read.
      */
     @Operation(
             summary = "Fetch user posts",
-            description = "Fetch posts of a user only if their subscription is active.",
+            description = "Fetch a page of posts of a user only if their subscription is active. "
+                    + "Pass the X-Next-Cursor value from the previous response as 'cursor' to get the next page. "
+                    + "Send the ETag of a previous response as If-None-Match to get 304 when nothing changed.",
             parameters = {
                     @io.swagger.v3.oas.annotations.Parameter(
                             name = "userId",
                             description = "The unique ID of the user whose posts are to be fetched",
                             required = true
+                    ),
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "cursor",
+                            description = "Opaque cursor from the X-Next-Cursor header of the previous page"
+                    ),
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "limit",
+                            description = "Page size; capped at the configured maximum"
                     )
             },
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully fetched posts",
                             content = @Content(mediaType = "application/json", 
                             schema = @Schema(implementation = List.class))),
+                    @ApiResponse(responseCode = "304", description = "Posts have not changed since the given ETag"),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor"),
                     @ApiResponse(responseCode = "403", description = "No active subscription found or no posts exist"),
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Post>> getUserPosts(@PathVariable Long userId) {
+    public ResponseEntity<List<PostView>> getUserPosts(@PathVariable Long userId,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer limit,
+                                                       WebRequest webRequest) {
         try {
             logger.info("Fetching posts for user with ID: {}", userId);
-            List<Post> posts = postService.getUserPostsIfSubscribed(userId);
+            // ETag считается до чтения постов: если он не изменился, посты не загружаются и не сериализуются
+            String etag = postService.getUserPostsETag(userId);
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                logger.info("Posts for user with ID: {} not modified", userId);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+            PostPage page = postService.getUserPostsIfSubscribed(userId, cursor, limit);
+            List<PostView> posts = page.getPosts();
 
-            if (posts.isEmpty()) {
+            if (posts.isEmpty() && cursor == null) {
                 logger.info("No active subscription or no posts found for user with ID: {}", userId);
                 return ResponseEntity.status(403).body(posts);
             }
 
             logger.info("Returning {} posts for user with active subscription", posts.size());
-            return ResponseEntity.ok(posts);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+            if (etag != null) {
+                response.eTag(etag);
+            }
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(posts);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Malformed cursor for user with ID: {}", userId);
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error fetching posts for user with ID: {}", userId, e);
             return ResponseEntity.status(500).build();
         }
     }
 
+    /**
+     * Home feed of a user: newest posts of the authors they follow and their own.
+     * Pages come from the in-memory timeline; the cursor for the next page is returned in the X-Next-Cursor header.
+     */
+    @Operation(
+            summary = "Fetch home feed",
+            description = "Fetch a page of the newest posts of the authors the user follows, and of the user themselves. "
+                    + "The feed holds the latest app.timeline.capacity posts. "
+                    + "Pass the X-Next-Cursor value from the previous response as 'cursor' to get the next page.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "userId",
+                            description = "The unique ID of the reader",
+                            required = true
+                    ),
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "cursor",
+                            description = "Opaque cursor from the X-Next-Cursor header of the previous page"
+                    ),
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "limit",
+                            description = "Page size; capped at the configured maximum"
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully fetched the feed",
+                            content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = List.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor"),
+                    @ApiResponse(responseCode = "500", description = "Internal Server Error")
+            }
+    )
+    @GetMapping("/feed/{userId}")
+    public ResponseEntity<List<PostView>> getFeed(@PathVariable Long userId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit) {
+        try {
+            PostPage page = homeTimelines.getFeed(userId, cursor, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getPosts());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Malformed feed cursor for user with ID: {}", userId);
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Error fetching feed for user with ID: {}", userId, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    /**
+     * Full-text search over post titles and contents.
+     */
+    @Operation(
+            summary = "Search posts",
+            description = "Ranked full-text search over post titles and contents. All words are required; "
+                    + "\"quoted phrases\", prefix* and -excluded terms are supported. Title matches rank higher.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "q",
+                            description = "Search query",
+                            required = true
+                    ),
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "page",
+                            description = "Zero-based page number"
+                    ),
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "size",
+                            description = "Page size; capped at the configured maximum"
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Search results",
+                            content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PostSearchResult.class))),
+                    @ApiResponse(responseCode = "400", description = "Empty query or page beyond the search window"),
+                    @ApiResponse(responseCode = "500", description = "Internal Server Error")
+            }
+    )
+    @GetMapping("/search")
+    public ResponseEntity<PostSearchResult> searchPosts(@RequestParam String q,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(required = false) Integer size) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(postService.searchPosts(q, page, size));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected search page {}: {}", page, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Error searching posts: ", e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    @Operation(
+            summary = "Rebuild search index",
+            description = "Rebuilds the full-text index from the database in the background; search keeps working meanwhile.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Rebuild started"),
+                    @ApiResponse(responseCode = "409", description = "Rebuild already in progress")
+            }
+    )
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex() {
+        if (!postService.rebuildSearchIndex()) {
+            return ResponseEntity.status(409).body("Search index rebuild already in progress.");
+        }
+        return ResponseEntity.accepted().build();
+    }
+
     /**
      * Generate a report of posts in XLS format.
      */
     @Operation(
             summary = "Generate posts report",
-            description = "Generates a report of all posts in XLS format.",
+            description = "Returns a report of all posts in XLSX format as a file download. The report is built by "
+                    + "the same shared job as POST /api/posts/report/jobs and is served from cache until posts change; "
+                    + "the request waits for the build without holding a server thread.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Report generated successfully"),
+                    @ApiResponse(responseCode = "200", description = "Report generated successfully",
+                            content = @Content(mediaType = REPORT_CONTENT_TYPE)),
+                    @ApiResponse(responseCode = "429", description = "Rate limit exceeded, see Retry-After"),
                     @ApiResponse(responseCode = "500", description = "Error generating report")
             }
     )
     @GetMapping("/report")
-    public ResponseEntity<?> generatePostsReport() {
-        try {
-            String filePath = "posts_report.xlsx";
-            logger.info("Generating report for posts at path: {}", filePath);
-            postService.generatePostsReport(filePath);
-            logger.info("Report generated successfully at path: {}", filePath);
-            return ResponseEntity.ok("Report generated successfully at: " + filePath);
-        } catch (Exception e) {
-            logger.error("Error generating posts report: ", e);
-            return ResponseEntity.status(500).body("Error generating posts report");
+    @RateLimited(RateLimits.REPORT)
+    public CompletableFuture<ResponseEntity<Resource>> generatePostsReport() {
+        PostReportJob job = postReportJobs.submit();
+        logger.info("Serving posts report from job {} ({})", job.getId(), job.getState());
+        return postReportJobs.whenDone(job.getId())
+                .orElseGet(() -> CompletableFuture.failedFuture(new IllegalStateException("Report job expired")))
+                .handle((artifact, error) -> {
+                    if (error != null) {
+                        logger.error("Error generating posts report: ", error);
+                        return ResponseEntity.<Resource>status(500).build();
+                    }
+                    return reportFile(job.getDataVersion(), artifact);
+                });
+    }
+
+    @Operation(
+            summary = "Submit posts report job",
+            description = "Starts building the XLSX report of all posts in the background and returns the job. "
+                    + "While posts do not change, every submission returns the same job: a running one is shared, "
+                    + "a finished one is returned with its report already available for download.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Job accepted, Location points to its status",
+                            content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PostReportJob.class))),
+                    @ApiResponse(responseCode = "429", description = "Rate limit exceeded, see Retry-After")
+            }
+    )
+    @PostMapping("/report/jobs")
+    @RateLimited(RateLimits.REPORT)
+    public ResponseEntity<PostReportJob> submitReportJob() {
+        PostReportJob job = postReportJobs.submit();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/posts/report/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @Operation(
+            summary = "Posts report job status",
+            description = "State of a report job and the number of rows written so far.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Job status",
+                            content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PostReportJob.class))),
+                    @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+            }
+    )
+    @GetMapping("/report/jobs/{jobId}")
+    public ResponseEntity<PostReportJob> getReportJob(@PathVariable String jobId) {
+        return ResponseEntity.of(postReportJobs.find(jobId));
+    }
+
+    @Operation(
+            summary = "Download posts report",
+            description = "Downloads the report built by a finished job. The ETag is the data version of the report.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Report file",
+                            content = @Content(mediaType = REPORT_CONTENT_TYPE)),
+                    @ApiResponse(responseCode = "404", description = "Unknown or expired job"),
+                    @ApiResponse(responseCode = "409", description = "Job is still running or has failed")
+            }
+    )
+    @GetMapping("/report/jobs/{jobId}/file")
+    public ResponseEntity<?> downloadReport(@PathVariable String jobId) {
+        Optional<PostReportJob> job = postReportJobs.find(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
+        Optional<Path> artifact = postReportJobs.artifact(jobId);
+        if (artifact.isEmpty()) {
+            return ResponseEntity.status(409).body("Report is not ready: " + job.get().getState());
+        }
+        return reportFile(job.get().getDataVersion(), artifact.get());
+    }
+
+    private static ResponseEntity<Resource> reportFile(String dataVersion, Path artifact) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(REPORT_CONTENT_TYPE))
+                .eTag(dataVersion)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(REPORT_FILE_NAME).build().toString())
+                .body(new FileSystemResource(artifact));
     }
 }
@@ -0,0 +1,180 @@
+package com.example.demo.controllers;
+
+import com.example.demo.dto.PostView;
+import com.example.demo.dto.SubscriptionStatus;
+import com.example.demo.services.ReactivePostReads;
+import com.example.demo.utils.PostCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Non-blocking reads of author posts and subscriptions, enabled by app.reactive.enabled.
+ * Posts are streamed as they are read from the database, one element per client demand;
+ * writes stay on the regular endpoints.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveReadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveReadController.class);
+
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final ReactivePostReads reactivePostReads;
+
+    @Autowired
+    public ReactiveReadController(ReactivePostReads reactivePostReads) {
+        this.reactivePostReads = reactivePostReads;
+    }
+
+    /**
+     * Stream posts of a user as newline-delimited JSON.
+     */
+    @Operation(
+            summary = "Stream posts by user",
+            description = "Streams posts of the user, newest first, as newline-delimited JSON, if the user has an "
+                    + "active subscription. For a resumable stream request text/event-stream instead.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "userId",
+                            description = "The unique ID of the user whose posts are to be streamed",
+                            required = true
+                    ),
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "cursor",
+                            description = "Opaque cursor of the last received post (an event ID of the event stream)"
+                    ),
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "limit",
+                            description = "Number of posts to stream; capped at app.reactive.max-stream-size"
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Posts are streamed",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = PostView.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor"),
+                    @ApiResponse(responseCode = "403", description = "No active subscription found"),
+                    @ApiResponse(responseCode = "500", description = "Internal Server Error")
+            }
+    )
+    @GetMapping(value = "/posts/user/{userId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<PostView>>> streamUserPosts(@PathVariable Long userId,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limit) {
+        Flux<PostView> posts;
+        try {
+            posts = reactivePostReads.getUserPosts(userId, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Malformed cursor for user with ID: {}", userId);
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return ifSubscribed(userId, posts);
+    }
+
+    /**
+     * Stream posts of a user as server-sent events; the ID of each event is the cursor of its post,
+     * so a reconnecting client resumes after the last received post.
+     */
+    @Operation(
+            summary = "Stream posts by user as server-sent events",
+            description = "Streams posts of the user, newest first, if the user has an active subscription. "
+                    + "Each event ID is the cursor of its post: pass it as 'cursor' or in the Last-Event-ID header "
+                    + "to continue after that post.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "userId",
+                            description = "The unique ID of the user whose posts are to be streamed",
+                            required = true
+                    ),
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "cursor",
+                            description = "Event ID of the last received post; takes precedence over Last-Event-ID"
+                    ),
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "limit",
+                            description = "Number of posts to stream; capped at app.reactive.max-stream-size"
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Posts are streamed",
+                            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = PostView.class))),
+                    @ApiResponse(responseCode = "400", description = "Malformed cursor"),
+                    @ApiResponse(responseCode = "403", description = "No active subscription found"),
+                    @ApiResponse(responseCode = "500", description = "Internal Server Error")
+            }
+    )
+    @GetMapping(value = "/posts/user/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<ResponseEntity<Flux<ServerSentEvent<PostView>>>> streamUserPostEvents(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        Flux<ServerSentEvent<PostView>> events;
+        try {
+            events = reactivePostReads.getUserPosts(userId, cursor != null ? cursor : lastEventId, limit)
+                    .map(post -> ServerSentEvent.builder(post)
+                            .id(new PostCursor(post.getCreatedAt(), post.getId()).encode())
+                            .build());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Malformed cursor for user with ID: {}", userId);
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return ifSubscribed(userId, events);
+    }
+
+    @Operation(
+            summary = "Retrieve user subscription without blocking",
+            description = "Expiry date of the user subscription and whether it is active now.",
+            parameters = {
+                    @io.swagger.v3.oas.annotations.Parameter(
+                            name = "userId",
+                            description = "The unique ID of the user whose subscription is to be retrieved",
+                            required = true
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Subscription retrieved successfully",
+                            content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SubscriptionStatus.class))),
+                    @ApiResponse(responseCode = "404", description = "No subscription found for the provided user ID"),
+                    @ApiResponse(responseCode = "500", description = "Internal Server Error")
+            }
+    )
+    @GetMapping("/subscriptions/{userId}")
+    public Mono<ResponseEntity<SubscriptionStatus>> getSubscription(@PathVariable Long userId) {
+        return reactivePostReads.getSubscription(userId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Статус ответа известен до первого элемента: потоку без подписки отвечают 403, не открывая его.
+     */
+    private <T> Mono<ResponseEntity<Flux<T>>> ifSubscribed(Long userId, Flux<T> body) {
+        return reactivePostReads.hasActiveSubscription(userId)
+                .map(active -> {
+                    if (!active) {
+                        logger.info("User with ID: {} does not have an active subscription", userId);
+                        return ResponseEntity.status(HttpStatus.FORBIDDEN).<Flux<T>>build();
+                    }
+                    return ResponseEntity.ok(body);
+                });
+    }
+}
@@ -8,6 +8,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -62,4 +67,26 @@ public class SubscriptionController {
         Subscription subscription = subscriptionService.getSubscription(userId);
         return ResponseEntity.ok(subscription);
     }
+
+    @Operation(
+            summary = "Subscription cache statistics",
+            description = "Hit rate, load count and average load time of the in-process subscription status cache.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
+            }
+    )
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        CacheStats stats = subscriptionService.getCacheStats();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", subscriptionService.getCacheSize());
+        body.put("hitCount", stats.hitCount());
+        body.put("missCount", stats.missCount());
+        body.put("hitRate", stats.hitRate());
+        body.put("loadCount", stats.loadCount());
+        body.put("loadFailureCount", stats.loadFailureCount());
+        body.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0);
+        body.put("evictionCount", stats.evictionCount());
+        return ResponseEntity.ok(body);
+    }
 }
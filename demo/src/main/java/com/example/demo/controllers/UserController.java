@@ -2,14 +2,21 @@ package com.example.demo.controllers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.example.demo.configuration.RateLimited;
 import com.example.demo.entities.User;
+import com.example.demo.services.EmailAvailabilityFilter;
+import com.example.demo.services.FollowService;
+import com.example.demo.services.RateLimits;
 import com.example.demo.services.UserService;
+import com.example.demo.utils.EmailValidator;
 import com.example.demo.utils.PasswordValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -21,15 +28,16 @@ import io.swagger.v3.oas.annotations.media.Schema;
 public class UserController {
 
     private final UserService userService;
+    private final EmailAvailabilityFilter emailFilter;
+    private final FollowService followService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, EmailAvailabilityFilter emailFilter, FollowService followService) {
         this.userService = userService;
+        this.emailFilter = emailFilter;
+        this.followService = followService;
     }
 
-    private static final String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@(.+)$";
-    private static final Pattern emailPattern = Pattern.compile(EMAIL_REGEX);
-
     @Operation(
             summary = "Create a new user",
             description = "Creates a new user after validating email format and password security. Ensures no existing user has the provided email.",
@@ -43,7 +51,7 @@ public class UserController {
     )
     @PostMapping
     public ResponseEntity<?> createUser(@RequestBody User user) {
-        if (!isValidEmail(user.getEmail())) {
+        if (!EmailValidator.isValidEmail(user.getEmail())) {
             return ResponseEntity.badRequest().body("Invalid email format.");
         }
 
@@ -55,8 +63,13 @@ public class UserController {
             return ResponseEntity.badRequest().body("Email is already taken.");
         }
 
-        User createdUser = userService.createUser(user);
-        return ResponseEntity.ok(createdUser);
+        try {
+            User createdUser = userService.createUser(user);
+            return ResponseEntity.ok(createdUser);
+        } catch (DataIntegrityViolationException e) {
+            // Уникальный индекс по email — окончательная проверка, если регистрации пересеклись
+            return ResponseEntity.badRequest().body("Email is already taken.");
+        }
     }
 
     @Operation(
@@ -66,10 +79,12 @@ public class UserController {
                     @ApiResponse(responseCode = "200", description = "Login successful",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
                     @ApiResponse(responseCode = "401", description = "Invalid email or password"),
+                    @ApiResponse(responseCode = "429", description = "Rate limit exceeded, see Retry-After"),
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
     @PostMapping("/login")
+    @RateLimited(RateLimits.LOGIN)
     public ResponseEntity<?> login(@RequestBody User loginRequest) {
         User loggedInUser = userService.authenticateByEmail(loginRequest.getEmail(), loginRequest.getPassword());
 
@@ -80,7 +95,72 @@ public class UserController {
         return ResponseEntity.ok(loggedInUser);
     }
 
-    private boolean isValidEmail(String email) {
-        return email != null && emailPattern.matcher(email).matches();
+    @Operation(
+            summary = "Email filter statistics",
+            description = "Size, memory footprint and expected/observed false-positive rate of the email Bloom filter "
+                    + "used to skip existence queries on signup.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
+            }
+    )
+    @GetMapping("/email-filter/stats")
+    public ResponseEntity<Map<String, Object>> getEmailFilterStats() {
+        return ResponseEntity.ok(emailFilter.stats());
+    }
+
+    @Operation(
+            summary = "Rebuild email filter",
+            description = "Rebuilds the email Bloom filter from the database in the background while signups continue.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Rebuild started"),
+                    @ApiResponse(responseCode = "409", description = "Rebuild already in progress")
+            }
+    )
+    @PostMapping("/email-filter/rebuild")
+    public ResponseEntity<?> rebuildEmailFilter() {
+        if (!emailFilter.rebuildAsync()) {
+            return ResponseEntity.status(409).body("Email filter rebuild already in progress.");
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    @Operation(
+            summary = "Follow an author",
+            description = "Adds the author's posts to the user's home feed (GET /api/posts/feed/{userId}). "
+                    + "Following an author again changes nothing.",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "User follows the author"),
+                    @ApiResponse(responseCode = "400", description = "User tried to follow themselves"),
+                    @ApiResponse(responseCode = "404", description = "User or author not found")
+            }
+    )
+    @PutMapping("/{userId}/following/{authorId}")
+    public ResponseEntity<?> follow(@PathVariable Long userId, @PathVariable Long authorId) {
+        try {
+            followService.follow(userId, authorId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (DataIntegrityViolationException e) {
+            // Та же подписка создана параллельным запросом
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(
+            summary = "Unfollow an author",
+            description = "Removes the author's posts from the user's home feed.",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "User no longer follows the author"),
+                    @ApiResponse(responseCode = "404", description = "User did not follow the author")
+            }
+    )
+    @DeleteMapping("/{userId}/following/{authorId}")
+    public ResponseEntity<?> unfollow(@PathVariable Long userId, @PathVariable Long authorId) {
+        if (!followService.unfollow(userId, authorId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+/**
+ * Проекция подписки: только ID автора и читателя, для раскладки постов по лентам.
+ */
+public interface FollowPair {
+
+    Long getAuthorId();
+
+    Long getFollowerId();
+}
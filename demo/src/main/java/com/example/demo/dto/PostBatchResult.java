@@ -0,0 +1,75 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Результат пакетной загрузки постов: по одной записи на каждый пост из запроса, в том же порядке.
+ */
+public class PostBatchResult {
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+
+    private final List<Item> items;
+    private final int createdCount;
+    private final int rejectedCount;
+
+    public PostBatchResult(List<Item> items) {
+        this.items = items;
+        this.createdCount = (int) items.stream().filter(item -> item.getStatus() == Status.CREATED).count();
+        this.rejectedCount = items.size() - createdCount;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public int getCreatedCount() {
+        return createdCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public static class Item {
+
+        private final int index;
+        private final Status status;
+        private final Long id;
+        private final String error;
+
+        private Item(int index, Status status, Long id, String error) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.error = error;
+        }
+
+        public static Item created(int index, Long id) {
+            return new Item(index, Status.CREATED, id, null);
+        }
+
+        public static Item rejected(int index, String error) {
+            return new Item(index, Status.REJECTED, null, error);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
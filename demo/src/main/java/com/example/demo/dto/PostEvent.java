@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Событие о постах для подписчиков WebSocket: тип и сами посты; автор указан в каждом посте.
+ * В событии об удалении у постов заполнены только ID поста и автора.
+ */
+public class PostEvent {
+
+    public static final String POSTS_CREATED = "posts.created";
+    public static final String POSTS_UPDATED = "posts.updated";
+    public static final String POSTS_DELETED = "posts.deleted";
+
+    private final String type;
+    private final List<PostView> posts;
+
+    @JsonCreator
+    public PostEvent(@JsonProperty("type") String type, @JsonProperty("posts") List<PostView> posts) {
+        this.type = type;
+        this.posts = posts;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public List<PostView> getPosts() {
+        return posts;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.dto;
+
+/**
+ * Сводная версия всех постов автора: число постов, максимальный ID и сумма версий.
+ * Любое создание, правка или удаление поста меняет хотя бы одно из значений, поэтому по ней
+ * строится ETag списка без чтения самих постов.
+ */
+public class PostListVersion {
+
+    private final long count;
+    private final long maxId;
+    private final long versionSum;
+
+    public PostListVersion(Long count, Long maxId, Long versionSum) {
+        this.count = count == null ? 0 : count;
+        this.maxId = maxId == null ? 0 : maxId;
+        this.versionSum = versionSum == null ? 0 : versionSum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    public long getVersionSum() {
+        return versionSum;
+    }
+
+    /**
+     * ETag для этой версии. Слабый: Tomcat не сжимает ответы с сильным ETag, ведь байты gzip
+     * отличаются от исходных, а If-None-Match для GET всё равно сравнивается по слабому правилу.
+     */
+    public String toETag() {
+        return "W/\"" + Long.toHexString(count) + "-" + Long.toHexString(maxId) + "-" + Long.toHexString(versionSum) + "\"";
+    }
+}
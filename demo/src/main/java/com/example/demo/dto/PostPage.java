@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Одна страница постов (автора или домашней ленты) и курсор следующей страницы (null, если страница последняя).
+ */
+public class PostPage {
+
+    private final List<PostView> posts;
+    private final String nextCursor;
+
+    public PostPage(List<PostView> posts, String nextCursor) {
+        this.posts = posts;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<PostView> getPosts() {
+        return posts;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+
+/**
+ * Состояние задачи построения отчёта по постам. Задача привязана к версии данных:
+ * все запросы отчёта при одной и той же версии получают одну задачу и один файл.
+ */
+public class PostReportJob {
+
+    public enum State {
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final String id;
+    private final String dataVersion;
+    private final State state;
+    private final long rowsWritten;
+    private final long totalRows;
+    private final Instant submittedAt;
+    private final Instant finishedAt;
+    private final String error;
+
+    public PostReportJob(String id, String dataVersion, State state, long rowsWritten, long totalRows,
+                         Instant submittedAt, Instant finishedAt, String error) {
+        this.id = id;
+        this.dataVersion = dataVersion;
+        this.state = state;
+        this.rowsWritten = rowsWritten;
+        this.totalRows = totalRows;
+        this.submittedAt = submittedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDataVersion() {
+        return dataVersion;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
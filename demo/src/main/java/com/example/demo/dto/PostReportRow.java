@@ -0,0 +1,47 @@
+package com.example.demo.dto;
+
+import com.example.demo.entities.PostBody;
+import com.example.demo.utils.PostBodyCodec;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка отчёта по постам: только выводимые в отчёт колонки, без автора и без загрузки сущности.
+ */
+public class PostReportRow {
+
+    private final Long id;
+    private final String title;
+    private final String content;
+    private final LocalDateTime createdAt;
+
+    public PostReportRow(Long id, String title, String content, LocalDateTime createdAt) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.createdAt = createdAt;
+    }
+
+    // Для запроса строк: текст читается тем же запросом из post_bodies и распаковывается здесь
+    public PostReportRow(Long id, String title, LocalDateTime createdAt, PostBody.Codec codec, Integer originalLength,
+                         byte[] data) {
+        this(id, title, codec == null ? null : PostBodyCodec.decode(new PostBody(codec, originalLength, data)),
+                createdAt);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
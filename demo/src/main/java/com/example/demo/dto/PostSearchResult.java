@@ -0,0 +1,56 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Страница результатов полнотекстового поиска: посты в порядке релевантности и общее число совпадений.
+ */
+public class PostSearchResult {
+
+    private final List<Hit> hits;
+    private final long totalHits;
+    private final int page;
+    private final int size;
+
+    public PostSearchResult(List<Hit> hits, long totalHits, int page, int size) {
+        this.hits = hits;
+        this.totalHits = totalHits;
+        this.page = page;
+        this.size = size;
+    }
+
+    public List<Hit> getHits() {
+        return hits;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public static class Hit {
+
+        private final PostView post;
+        private final float score;
+
+        public Hit(PostView post, float score) {
+            this.post = post;
+            this.score = score;
+        }
+
+        public PostView getPost() {
+            return post;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+}
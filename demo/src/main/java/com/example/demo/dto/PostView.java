@@ -0,0 +1,94 @@
+package com.example.demo.dto;
+
+import com.example.demo.entities.Post;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+/**
+ * Пост в ответах API: поля поста и только ID и имя автора, без пароля и флага администратора.
+ * Списки заполняются конструктором прямо в запросе, поэтому сущности не загружаются и не попадают в контекст.
+ * Текста поста здесь нет: он может быть большим и отдаётся отдельно, по GET /api/posts/{id}/content.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PostView {
+
+    private final Long id;
+    private final String title;
+    private final LocalDateTime createdAt;
+    private final Author author;
+
+    public PostView(Long id, String title, LocalDateTime createdAt, Long authorId, String authorName) {
+        this.id = id;
+        this.title = title;
+        this.createdAt = createdAt;
+        this.author = new Author(authorId, authorName);
+    }
+
+    // Для чтения событий из outbox; текст из событий, записанных до выноса текстов в post_bodies, пропускается
+    @JsonCreator
+    private PostView(@JsonProperty("id") Long id, @JsonProperty("title") String title,
+                     @JsonProperty("createdAt") LocalDateTime createdAt, @JsonProperty("author") Author author) {
+        this.id = id;
+        this.title = title;
+        this.createdAt = createdAt;
+        this.author = author;
+    }
+
+    /**
+     * Представление уже загруженного поста. Автор должен быть загружен, иначе вне транзакции
+     * обращение к его имени бросит LazyInitializationException.
+     */
+    public static PostView from(Post post) {
+        return new PostView(post.getId(), post.getTitle(), post.getCreatedAt(), post.getAuthor().getId(),
+                post.getAuthor().getName());
+    }
+
+    /**
+     * Только ID поста и автора, например для события об удалении.
+     */
+    public static PostView reference(Long id, Long authorId) {
+        return new PostView(id, null, null, authorId, null);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Author getAuthor() {
+        return author;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Author {
+
+        private final Long id;
+        private final String name;
+
+        @JsonCreator
+        public Author(@JsonProperty("id") Long id, @JsonProperty("name") String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
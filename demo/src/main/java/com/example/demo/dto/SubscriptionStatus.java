@@ -0,0 +1,31 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Подписка пользователя в ответе реактивного чтения: только дата окончания и действует ли она сейчас.
+ */
+public class SubscriptionStatus {
+
+    private final Long userId;
+    private final LocalDateTime expiryDate;
+    private final boolean active;
+
+    public SubscriptionStatus(Long userId, LocalDateTime expiryDate, boolean active) {
+        this.userId = userId;
+        this.expiryDate = expiryDate;
+        this.active = active;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getExpiryDate() {
+        return expiryDate;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
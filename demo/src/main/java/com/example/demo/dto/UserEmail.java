@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+/**
+ * Проекция пользователя: только ID и email, без загрузки всей сущности.
+ */
+public interface UserEmail {
+
+    Long getId();
+
+    String getEmail();
+}
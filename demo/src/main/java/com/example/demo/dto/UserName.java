@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+/**
+ * Проекция пользователя: только ID и имя, для подписи постов без загрузки всей сущности.
+ */
+public interface UserName {
+
+    Long getId();
+
+    String getName();
+}
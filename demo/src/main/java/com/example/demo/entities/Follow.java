@@ -0,0 +1,53 @@
+package com.example.demo.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Читатель следит за автором: новые посты автора попадают в домашнюю ленту читателя.
+ */
+@Entity
+@Table(name = "follows")
+public class Follow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "follows_seq")
+    @SequenceGenerator(name = "follows_seq", sequenceName = "follows_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "follower_id", nullable = false)
+    private User follower;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "author_id", nullable = false)
+    private User author;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Follow() {
+    }
+
+    public Follow(User follower, User author, LocalDateTime createdAt) {
+        this.follower = follower;
+        this.author = author;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public User getFollower() {
+        return follower;
+    }
+
+    public User getAuthor() {
+        return author;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
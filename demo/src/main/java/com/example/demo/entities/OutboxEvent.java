@@ -0,0 +1,54 @@
+package com.example.demo.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Событие о постах, записанное в той же транзакции, что и само изменение.
+ * Каждый узел читает таблицу по возрастанию ID и рассылает события своим WebSocket-клиентам.
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    // IDENTITY, а не последовательность с пулом: ID идут подряд в порядке вставки на всех узлах,
+    // и пропуск в них означает ещё не закоммиченную (или откатившуюся) транзакцию
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "type", nullable = false, length = 32)
+    private String type;
+
+    // Событие в JSON в том виде, в каком оно уходит клиентам
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String type, String payload, LocalDateTime createdAt) {
+        this.type = type;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
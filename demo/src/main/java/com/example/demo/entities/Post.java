@@ -2,29 +2,50 @@ package com.example.demo.entities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import com.example.demo.utils.PostBodyCodec;
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+// Кэш второго уровня: повторные чтения по ID не ходят в базу, регион настроен в application.conf
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "posts")
+// Схема и индексы таблицы задаются миграциями в db/migration
 @Table(name = "posts")
 public class Post {
 
+    // Последовательность с пулом значений вместо IDENTITY: Hibernate может группировать вставки в JDBC-батчи
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+    @SequenceGenerator(name = "posts_seq", sequenceName = "posts_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "title", nullable = false)
     private String title;
 
-    @Column(name = "content", nullable = false, columnDefinition = "TEXT")
+    // Текст хранится отдельно (PostBody) и загружается только по запросу, поэтому ни списки, ни правка
+    // и удаление поста его не читают. Здесь — только текст, полученный в запросе на создание или правку
+    @Transient
     private String content;
 
+    // Меняется вместе с текстом: правка одного текста делает пост изменённым, и версия растёт
+    @Column(name = "content_hash")
+    private Long contentHash;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
-    @ManyToOne
+    // Автор загружается только там, где он нужен (entity graph в PostRepository), а не с каждым постом
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id", nullable = false)
     private User author;
 
+    // Растёт при каждом изменении поста: защищает от потерянных обновлений и входит в ETag списка постов автора
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -48,6 +69,11 @@ public class Post {
 
     public void setContent(String content) {
         this.content = content;
+        this.contentHash = content == null ? null : PostBodyCodec.hash(content);
+    }
+
+    public Long getContentHash() {
+        return contentHash;
     }
 
     public LocalDateTime getCreatedAt() {
@@ -65,4 +91,12 @@ public class Post {
     public void setAuthor(User author) {
         this.author = author;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,81 @@
+package com.example.demo.entities;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Текст поста, хранимый отдельно от самого поста: запросы списков и метаданных его не читают.
+ * Большие тексты сжаты (см. {@link com.example.demo.utils.PostBodyCodec}); в кэш второго уровня
+ * тексты не кладутся, чтобы не вытеснять из него посты и пользователей.
+ */
+@Entity
+@Table(name = "post_bodies")
+public class PostBody {
+
+    /**
+     * Формат {@link #getData()}.
+     */
+    public enum Codec {
+        /** Байты UTF-8 без сжатия. */
+        NONE,
+        /** Блок LZ4 из {@link #getOriginalLength()} байт UTF-8. */
+        LZ4
+    }
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    // ID берётся у поста при вставке; сам пост не загружается
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "post_id")
+    private Post post;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "codec", nullable = false, length = 8)
+    private Codec codec;
+
+    // Длина текста в байтах UTF-8 до сжатия
+    @Column(name = "original_length", nullable = false)
+    private int originalLength;
+
+    @Lob
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+
+    public PostBody() {
+    }
+
+    public PostBody(Codec codec, int originalLength, byte[] data) {
+        this.codec = codec;
+        this.originalLength = originalLength;
+        this.data = data;
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public Post getPost() {
+        return post;
+    }
+
+    public void setPost(Post post) {
+        this.post = post;
+    }
+
+    public Codec getCodec() {
+        return codec;
+    }
+
+    public int getOriginalLength() {
+        return originalLength;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.FollowPair;
+import com.example.demo.entities.Follow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FollowRepository extends JpaRepository<Follow, Long> {
+
+    /**
+     * ID авторов, за которыми следит читатель.
+     */
+    @Query("SELECT f.author.id FROM Follow f WHERE f.follower.id = :followerId")
+    List<Long> findAuthorIdsByFollowerId(@Param("followerId") Long followerId);
+
+    /**
+     * ID читателей автора.
+     */
+    @Query("SELECT f.follower.id FROM Follow f WHERE f.author.id = :authorId")
+    List<Long> findFollowerIdsByAuthorId(@Param("authorId") Long authorId);
+
+    /**
+     * Читатели сразу нескольких авторов одним запросом.
+     */
+    @Query("SELECT f.author.id AS authorId, f.follower.id AS followerId FROM Follow f WHERE f.author.id IN :authorIds")
+    List<FollowPair> findByAuthorIdIn(@Param("authorIds") Collection<Long> authorIds);
+
+    boolean existsByFollower_IdAndAuthor_Id(Long followerId, Long authorId);
+
+    /**
+     * @return 1, если подписка была и удалена, иначе 0
+     */
+    @Modifying
+    @Query("DELETE FROM Follow f WHERE f.follower.id = :followerId AND f.author.id = :authorId")
+    int deleteByFollowerIdAndAuthorId(@Param("followerId") Long followerId, @Param("authorId") Long authorId);
+}
@@ -0,0 +1,34 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entities.PostBody;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий текстов постов. Тексты читаются только здесь: запросы {@link PostRepository} их не касаются.
+ */
+public interface PostBodyRepository extends JpaRepository<PostBody, Long> {
+
+    /**
+     * Тексты постов с указанными ID одним запросом. Порядок не гарантируется.
+     * @param postIds ID постов
+     * @return Найденные тексты; посты без текста пропускаются
+     */
+    @Query("SELECT b FROM PostBody b WHERE b.postId IN :postIds")
+    List<PostBody> findByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    /**
+     * Заменяет текст поста одним запросом, не загружая старый.
+     * @return 1, если текст заменён, 0 — если у поста ещё нет текста
+     */
+    @Modifying
+    @Query("UPDATE PostBody b SET b.codec = :codec, b.originalLength = :originalLength, b.data = :data "
+            + "WHERE b.postId = :postId")
+    int replace(@Param("postId") Long postId, @Param("codec") PostBody.Codec codec,
+                @Param("originalLength") int originalLength, @Param("data") byte[] data);
+}
@@ -1,18 +1,175 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dto.PostListVersion;
+import com.example.demo.dto.PostReportRow;
+import com.example.demo.dto.PostView;
 import com.example.demo.entities.Post;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Репозиторий для управления сущностью Post.
  */
 public interface PostRepository extends JpaRepository<Post, Long> {
-    
+
+    /** Регион кэша запросов для {@link #findAllByAuthorId}. */
+    String POSTS_BY_AUTHOR_REGION = "posts-by-author";
+
+    /** Регион кэша запросов для {@link #findListVersionByAuthorId}. */
+    String POST_LIST_VERSION_REGION = "post-list-versions";
+
+    /** Регион кэша запросов для {@link #findReportVersion}. */
+    String POST_REPORT_VERSION_REGION = "post-report-version";
+
+    /** Выражение SELECT для {@link PostView}; ожидает псевдонимы p (пост) и a (автор). */
+    String POST_VIEW = "new com.example.demo.dto.PostView(p.id, p.title, p.createdAt, a.id, a.name)";
+
+    /**
+     * Выражение SELECT для {@link PostView} в постах одного автора :authorId; ожидает псевдоним p (пост).
+     * Имя автора читается подзапросом по первичному ключу, а не соединением: в FROM остаются только посты,
+     * и H2 берёт страницу прямо из индекса idx_posts_author_created_id, не сортируя все посты автора.
+     */
+    String AUTHOR_POST_VIEW = "new com.example.demo.dto.PostView(p.id, p.title, p.createdAt, p.author.id, "
+            + "(SELECT a.name FROM User a WHERE a.id = :authorId))";
+
+    /**
+     * Порядок страниц постов автора: от новых к старым, как в индексе idx_posts_author_created_id.
+     * Автор в запросе один, но без него в ORDER BY H2 не видит совпадения с индексом.
+     */
+    String AUTHOR_PAGE_ORDER = " ORDER BY p.author.id DESC, p.createdAt DESC, p.id DESC";
+
     /**
      * Метод для поиска всех постов пользователя по его ID.
+     * Результат (список ID) хранится в кэше запросов, сами посты — в кэше второго уровня.
+     * Автор загружается вместе с постами, а не отдельным запросом на каждый пост.
      * @param authorId ID автора
      * @return Список постов
      */
+    @EntityGraph(attributePaths = "author")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = POSTS_BY_AUTHOR_REGION)
+    })
     List<Post> findAllByAuthorId(Long authorId);
+
+    /**
+     * Пост вместе с автором одним запросом, для ответа с {@link PostView}.
+     * @param id ID поста
+     * @return Пост с загруженным автором
+     */
+    @EntityGraph(attributePaths = "author")
+    Optional<Post> findWithAuthorById(Long id);
+
+    /**
+     * Следующая страница постов после указанного ID (keyset-пагинация по первичному ключу).
+     * Используется для полного обхода при перестройке индекса, поэтому прочитанные посты
+     * не кладутся в кэш второго уровня и не вытесняют из него часто читаемые.
+     * @param id ID последнего прочитанного поста
+     * @param pageable размер страницы
+     * @return Посты, упорядоченные по ID
+     */
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_CACHE_STORE_MODE, value = "BYPASS"))
+    List<Post> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Первая страница постов автора, от новых к старым.
+     * Порядок совпадает с индексом idx_posts_author_created_id, страница читается из него без сортировки.
+     * Выбираются только поля {@link PostView}, имя автора — в том же запросе.
+     * @param authorId ID автора
+     * @param pageable размер страницы
+     * @return Посты, упорядоченные по (created_at, id) по убыванию
+     */
+    @Query("SELECT " + AUTHOR_POST_VIEW + " FROM Post p WHERE p.author.id = :authorId" + AUTHOR_PAGE_ORDER)
+    List<PostView> findFirstPageByAuthorId(@Param("authorId") Long authorId, Pageable pageable);
+
+    /**
+     * Страница постов автора строго после курсора (createdAt, id).
+     * Условие по ключу вместо OFFSET: глубокие страницы стоят столько же, сколько первая.
+     * @param authorId ID автора
+     * @param createdAt created_at последнего поста предыдущей страницы
+     * @param id ID последнего поста предыдущей страницы
+     * @param pageable размер страницы
+     * @return Посты, упорядоченные по (created_at, id) по убыванию
+     */
+    @Query("SELECT " + AUTHOR_POST_VIEW + " FROM Post p WHERE p.author.id = :authorId "
+            + "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id))"
+            + AUTHOR_PAGE_ORDER)
+    List<PostView> findPageByAuthorIdAfter(@Param("authorId") Long authorId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+
+    /**
+     * Максимальный ID поста.
+     * @return ID последнего созданного поста или null, если постов нет
+     */
+    @Query("SELECT MAX(p.id) FROM Post p")
+    Long findMaxId();
+
+    /**
+     * Посты с указанными ID в виде {@link PostView}, одним запросом вместе с авторами.
+     * Порядок не гарантируется.
+     * @param ids ID постов
+     * @return Найденные посты; отсутствующие ID пропускаются
+     */
+    @Query("SELECT " + POST_VIEW + " FROM Post p JOIN p.author a WHERE p.id IN :ids")
+    List<PostView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * ID последних постов указанных авторов, от новых к старым; из них перестраивается домашняя лента.
+     * @param authorIds ID авторов
+     * @param pageable сколько ID вернуть
+     */
+    @Query("SELECT p.id FROM Post p WHERE p.author.id IN :authorIds ORDER BY p.id DESC")
+    List<Long> findIdsByAuthorIdIn(@Param("authorIds") Collection<Long> authorIds, Pageable pageable);
+
+    /**
+     * Следующая страница строк отчёта после указанного ID: только колонки отчёта, без автора и без сущностей.
+     * Текст поста присоединяется из post_bodies в том же запросе.
+     * @param id ID последней прочитанной строки
+     * @param pageable размер страницы
+     * @return Строки, упорядоченные по ID
+     */
+    @Query("SELECT new com.example.demo.dto.PostReportRow(p.id, p.title, p.createdAt, b.codec, b.originalLength, "
+            + "b.data) FROM Post p LEFT JOIN PostBody b ON b.post = p WHERE p.id > :id ORDER BY p.id")
+    List<PostReportRow> findReportRowsAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Сводная версия постов автора для ETag списка.
+     * Результат хранится в кэше запросов и сбрасывается при любом изменении таблицы posts,
+     * поэтому повторный опрос без изменений не обращается к базе.
+     * @param authorId ID автора
+     * @return Число постов, максимальный ID и сумма версий
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = POST_LIST_VERSION_REGION)
+    })
+    @Query("SELECT new com.example.demo.dto.PostListVersion(COUNT(p.id), MAX(p.id), SUM(p.version)) "
+            + "FROM Post p WHERE p.author.id = :authorId")
+    PostListVersion findListVersionByAuthorId(@Param("authorId") Long authorId);
+
+    /**
+     * Сводная версия всех постов — версия данных отчёта. Результат в кэше запросов до первой записи
+     * в таблицу постов, поэтому повторная проверка без изменений не обращается к базе.
+     * @return Число постов, максимальный ID и сумма версий
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = POST_REPORT_VERSION_REGION)
+    })
+    @Query("SELECT new com.example.demo.dto.PostListVersion(COUNT(p.id), MAX(p.id), SUM(p.version)) FROM Post p")
+    PostListVersion findReportVersion();
 }
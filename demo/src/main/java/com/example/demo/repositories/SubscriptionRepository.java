@@ -1,14 +1,40 @@
 package com.example.demo.repositories;
 
 import com.example.demo.entities.Subscription;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface SubscriptionRepository extends JpaRepository<Subscription, Long> {
 
+    /** Регион кэша запросов для поиска подписок по пользователю. */
+    String SUBSCRIPTION_BY_USER_REGION = "subscription-by-user";
+
+    /**
+     * Последняя по сроку подписка пользователя. Продление добавляет новую строку,
+     * поэтому подписок у пользователя может быть несколько.
+     * Результат хранится в кэше запросов.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SUBSCRIPTION_BY_USER_REGION)
+    })
+    Optional<Subscription> findFirstByUser_IdOrderByExpiryDateDesc(Long userId);
+
     /**
-     * Поиск подписки по ID пользователя через связь user
+     * Самая поздняя дата окончания среди подписок пользователя.
+     * @return пусто, если подписок нет
      */
-    Optional<Subscription> findByUser_Id(Long userId);
+    @Query("SELECT MAX(s.expiryDate) FROM Subscription s WHERE s.user.id = :userId")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SUBSCRIPTION_BY_USER_REGION)
+    })
+    Optional<LocalDateTime> findLatestExpiryDateByUserId(@Param("userId") Long userId);
 }
@@ -1,11 +1,17 @@
 package com.example.demo.repositories;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.example.demo.dto.UserEmail;
+import com.example.demo.dto.UserName;
 import com.example.demo.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface UserRepository extends JpaRepository<User, Long> {
 
     // Method to check if a user with the given email exists using native query
@@ -15,4 +21,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Method to find a user by email and password using native query
     @Query(value = "SELECT * FROM users WHERE email = :email AND password = :password", nativeQuery = true)
     User authenticateByEmailNative(@Param("email") String email, @Param("password") String password);
+
+    // Which of the given user IDs exist, with their names, without loading the users themselves
+    @Query("SELECT u.id AS id, u.name AS name FROM User u WHERE u.id IN :ids")
+    List<UserName> findNamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Next page of (id, email) pairs after the given ID, used to rebuild the email filter
+    @Query("SELECT u.id AS id, u.email AS email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserEmail> findEmailsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,209 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.UserEmail;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.utils.BloomFilter;
+import com.example.demo.utils.ThreadPools;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фильтр Блума по email зарегистрированных пользователей.
+ *
+ * Ответ «точно нет» позволяет пропустить запрос к базе при регистрации, ответ «возможно есть»
+ * проверяется запросом, а уникальный индекс users.email остаётся окончательной проверкой.
+ * Пока фильтр не построен, все email считаются возможно занятыми.
+ *
+ * Перестройка идёт в фоне по новому фильтру; регистрации во время перестройки пишутся
+ * в оба фильтра, затем новый фильтр атомарно подменяет старый.
+ */
+@Service
+public class EmailAvailabilityFilter implements DisposableBean, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailAvailabilityFilter.class);
+
+    private final UserRepository userRepository;
+    private final long minExpectedInsertions;
+    private final double falsePositiveRate;
+    private final int pageSize;
+
+    private final ExecutorService rebuilder;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+
+    private final AtomicLong definitelyAbsent = new AtomicLong();
+    private final AtomicLong maybePresent = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    @Autowired
+    public EmailAvailabilityFilter(UserRepository userRepository,
+                                   @Value("${app.email-filter.expected-insertions:100000}") long minExpectedInsertions,
+                                   @Value("${app.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                   @Value("${app.email-filter.rebuild-page-size:1000}") int pageSize,
+                                   @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.userRepository = userRepository;
+        // Одновременно идёт не больше одной перестройки, это гарантирует флаг rebuilding
+        this.rebuilder = ThreadPools.newPool("email-filter-rebuild-", 1, virtualThreads);
+        this.minExpectedInsertions = minExpectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.pageSize = pageSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildAsync();
+    }
+
+    /**
+     * @return false, если email точно не зарегистрирован; true, если нужна проверка по базе
+     */
+    public boolean mightBeRegistered(String email) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(email)) {
+            definitelyAbsent.incrementAndGet();
+            return false;
+        }
+        maybePresent.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Учитывает результат проверки по базе после ответа «возможно есть».
+     */
+    public void recordLookup(boolean registered) {
+        if (!registered && filter != null) {
+            falsePositives.incrementAndGet();
+        }
+    }
+
+    /**
+     * Добавляет email после успешной регистрации. Вызывать после коммита записи пользователя.
+     */
+    public void recordRegistered(String email) {
+        // Порядок важен: перестройка сначала подменяет filter и только потом обнуляет building.
+        // Если building уже пуст, filter к этому моменту — новый фильтр; если перестройка ещё не началась,
+        // её обход таблицы увидит закоммиченного пользователя. Обратный порядок терял email,
+        // записанный в старый фильтр между подменой и обнулением
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(email);
+        }
+        BloomFilter current = filter;
+        if (current != null && current != next) {
+            current.put(email);
+            if (current.getInsertions() > current.getExpectedInsertions()) {
+                rebuildAsync();
+            }
+        }
+    }
+
+    /**
+     * Запускает перестройку в фоне, если она ещё не идёт.
+     * @return false, если перестройка уже выполняется
+     */
+    public boolean rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuilder.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                logger.error("Email filter rebuild failed", e);
+            } finally {
+                building = null;
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        long userCount = userRepository.count();
+        BloomFilter next = BloomFilter.create(Math.max(minExpectedInsertions, userCount * 2), falsePositiveRate);
+        building = next;
+
+        PageRequest page = PageRequest.of(0, pageSize);
+        long lastId = 0;
+        List<UserEmail> emails;
+        do {
+            emails = userRepository.findEmailsAfter(lastId, page);
+            for (UserEmail email : emails) {
+                next.put(email.getEmail());
+            }
+            if (!emails.isEmpty()) {
+                lastId = emails.get(emails.size() - 1).getId();
+            }
+        } while (emails.size() == pageSize);
+
+        filter = next;
+        logger.info("Email filter rebuilt with {} emails in {} ms, {} KB", next.getInsertions(),
+                (System.nanoTime() - started) / 1_000_000, next.getMemoryBytes() / 1024);
+    }
+
+    public Map<String, Object> stats() {
+        BloomFilter current = filter;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", current != null);
+        stats.put("rebuilding", rebuilding.get());
+        if (current != null) {
+            stats.put("insertions", current.getInsertions());
+            stats.put("expectedInsertions", current.getExpectedInsertions());
+            stats.put("bitSize", current.getBitSize());
+            stats.put("hashFunctions", current.getHashFunctions());
+            stats.put("memoryBytes", current.getMemoryBytes());
+            stats.put("expectedFalsePositiveRate", current.expectedFalsePositiveRate());
+        }
+        long absent = definitelyAbsent.get();
+        long falsePositive = falsePositives.get();
+        stats.put("definitelyAbsent", absent);
+        stats.put("maybePresent", maybePresent.get());
+        stats.put("falsePositives", falsePositive);
+        stats.put("observedFalsePositiveRate",
+                absent + falsePositive == 0 ? 0.0 : (double) falsePositive / (absent + falsePositive));
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("email.filter.lookups", definitelyAbsent, AtomicLong::get)
+                .tag("result", "definitely-absent")
+                .register(registry);
+        FunctionCounter.builder("email.filter.lookups", maybePresent, AtomicLong::get)
+                .tag("result", "maybe-present")
+                .register(registry);
+        FunctionCounter.builder("email.filter.false-positives", falsePositives, AtomicLong::get)
+                .register(registry);
+        Gauge.builder("email.filter.memory", this, f -> f.filter == null ? 0 : f.filter.getMemoryBytes())
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("email.filter.expected-false-positive-rate", this,
+                        f -> f.filter == null ? Double.NaN : f.filter.expectedFalsePositiveRate())
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        rebuilder.shutdownNow();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.Follow;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.FollowRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.utils.Transactions;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+
+/**
+ * Подписки читателей на авторов для домашней ленты.
+ * После коммита сбрасывает ленту читателя в {@link HomeTimelines}, чтобы она перестроилась с новым набором авторов.
+ */
+@Service
+@Timed("service.method")
+public class FollowService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowService.class);
+
+    private final FollowRepository followRepository;
+    private final UserRepository userRepository;
+    private final HomeTimelines homeTimelines;
+
+    @Autowired
+    public FollowService(FollowRepository followRepository, UserRepository userRepository,
+                         HomeTimelines homeTimelines) {
+        this.followRepository = followRepository;
+        this.userRepository = userRepository;
+        this.homeTimelines = homeTimelines;
+        logger.info("FollowService initialized");
+    }
+
+    /**
+     * Подписывает читателя на автора; повторная подписка ничего не меняет.
+     * @return true, если подписка создана
+     * @throws IllegalArgumentException при подписке на самого себя
+     * @throws NoSuchElementException если читателя или автора нет
+     */
+    @Transactional
+    public boolean follow(Long followerId, Long authorId) {
+        if (followerId.equals(authorId)) {
+            throw new IllegalArgumentException("Users cannot follow themselves");
+        }
+        if (followRepository.existsByFollower_IdAndAuthor_Id(followerId, authorId)) {
+            logger.info("User {} already follows {}", followerId, authorId);
+            return false;
+        }
+        User follower = userRepository.findById(followerId)
+                .orElseThrow(() -> new NoSuchElementException("User not found: " + followerId));
+        User author = userRepository.findById(authorId)
+                .orElseThrow(() -> new NoSuchElementException("User not found: " + authorId));
+        // Уникальный индекс (follower_id, author_id) — окончательная проверка, если подписки пересеклись
+        followRepository.saveAndFlush(new Follow(follower, author, LocalDateTime.now()));
+        Transactions.afterCommit(() -> homeTimelines.followsChanged(followerId, authorId));
+        logger.info("User {} now follows {}", followerId, authorId);
+        return true;
+    }
+
+    /**
+     * @return true, если подписка была и удалена
+     */
+    @Transactional
+    public boolean unfollow(Long followerId, Long authorId) {
+        boolean removed = followRepository.deleteByFollowerIdAndAuthorId(followerId, authorId) > 0;
+        if (removed) {
+            Transactions.afterCommit(() -> homeTimelines.followsChanged(followerId, authorId));
+            logger.info("User {} unfollowed {}", followerId, authorId);
+        }
+        return removed;
+    }
+}
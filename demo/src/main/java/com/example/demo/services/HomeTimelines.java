@@ -0,0 +1,226 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.FollowPair;
+import com.example.demo.dto.PostEvent;
+import com.example.demo.dto.PostPage;
+import com.example.demo.dto.PostView;
+import com.example.demo.repositories.FollowRepository;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.utils.PostTimeline;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Домашние ленты читателей: посты авторов, за которыми читатель следит, и его собственные.
+ *
+ * Лента — до {@code app.timeline.capacity} последних ID постов в памяти ({@link PostTimeline}).
+ * Новый пост раскладывается по лентам читателей автора при доставке события из outbox, поэтому
+ * так обновляются ленты на каждом узле. Раскладывается только по лентам, которые уже в памяти:
+ * ленты остальных читателей перестраиваются из базы при первом чтении. Чтение ленты — страница ID
+ * из памяти и один запрос постов по этим ID.
+ *
+ * В памяти не больше {@code app.timeline.max-users} лент. Подписка и отписка сбрасывают ленту читателя
+ * на этом узле; другие узлы увидят изменение, когда лента устареет ({@code app.timeline.ttl}).
+ */
+@Service
+public class HomeTimelines implements PostEventListener, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(HomeTimelines.class);
+
+    private final PostRepository postRepository;
+    private final FollowRepository followRepository;
+    private final int capacity;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final LoadingCache<Long, PostTimeline> timelines;
+    // Читатели автора для раскладки его постов; вес записи — число читателей.
+    // Читатели всех авторов события, которых нет в кэше, загружаются одним запросом
+    private final LoadingCache<Long, long[]> followers;
+
+    @Autowired
+    public HomeTimelines(PostRepository postRepository,
+                         FollowRepository followRepository,
+                         @Value("${app.timeline.capacity:200}") int capacity,
+                         @Value("${app.timeline.max-users:50000}") long maxUsers,
+                         @Value("${app.timeline.max-cached-followers:1000000}") long maxCachedFollowers,
+                         @Value("${app.timeline.ttl:10m}") Duration ttl,
+                         @Value("${app.posts.page.default-size:20}") int defaultPageSize,
+                         @Value("${app.posts.page.max-size:100}") int maxPageSize) {
+        this.postRepository = postRepository;
+        this.followRepository = followRepository;
+        this.capacity = capacity;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(this::rebuild);
+        this.followers = Caffeine.newBuilder()
+                .maximumWeight(maxCachedFollowers)
+                .<Long, long[]>weigher((authorId, ids) -> Math.max(1, ids.length))
+                .expireAfterWrite(ttl)
+                .build(new CacheLoader<>() {
+                    @Override
+                    public long[] load(Long authorId) {
+                        return followRepository.findFollowerIdsByAuthorId(authorId).stream()
+                                .mapToLong(Long::longValue).toArray();
+                    }
+
+                    @Override
+                    public Map<Long, long[]> loadAll(Set<? extends Long> authorIds) {
+                        return loadFollowers(authorIds);
+                    }
+                });
+        logger.info("HomeTimelines initialized with capacity {} posts for up to {} users", capacity, maxUsers);
+    }
+
+    /**
+     * Страница домашней ленты читателя, от новых постов к старым.
+     * Глубина ленты ограничена ёмкостью: более старые посты в ленту не попадают.
+     * @param cursor курсор из предыдущей страницы (ID её последнего поста) или null для первой страницы
+     * @param limit размер страницы; null означает размер по умолчанию, значения больше максимума обрезаются
+     * @throws IllegalArgumentException если курсор повреждён
+     */
+    public PostPage getFeed(Long userId, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        long beforeId = cursor == null || cursor.isBlank() ? Long.MAX_VALUE : parseCursor(cursor);
+        // На один ID больше, чтобы узнать, есть ли следующая страница
+        long[] ids = timelines.get(userId).before(beforeId, pageSize + 1);
+        if (ids.length == 0) {
+            return new PostPage(List.of(), null);
+        }
+
+        List<Long> pageIds = new ArrayList<>(Math.min(ids.length, pageSize));
+        for (int i = 0; i < ids.length && i < pageSize; i++) {
+            pageIds.add(ids[i]);
+        }
+        Map<Long, PostView> found = postRepository.findViewsByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(PostView::getId, Function.identity()));
+        // Порядок ленты; посты, удалённые после попадания в ленту, пропускаются
+        List<PostView> posts = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            PostView post = found.get(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+
+        String nextCursor = ids.length > pageSize ? Long.toString(pageIds.get(pageIds.size() - 1)) : null;
+        return new PostPage(posts, nextCursor);
+    }
+
+    @Override
+    public void onPostEvent(PostEvent event) {
+        boolean created = PostEvent.POSTS_CREATED.equals(event.getType());
+        if (!created && !PostEvent.POSTS_DELETED.equals(event.getType())) {
+            return;
+        }
+        Map<Long, List<Long>> postIdsByAuthor = new LinkedHashMap<>();
+        for (PostView post : event.getPosts()) {
+            postIdsByAuthor.computeIfAbsent(post.getAuthor().getId(), author -> new ArrayList<>()).add(post.getId());
+        }
+        Map<Long, long[]> followersByAuthor = followers.getAll(postIdsByAuthor.keySet());
+        postIdsByAuthor.forEach((authorId, postIds) -> {
+            fanOut(authorId, postIds, created);
+            for (long followerId : followersByAuthor.get(authorId)) {
+                fanOut(followerId, postIds, created);
+            }
+        });
+    }
+
+    /**
+     * Сбрасывает ленту читателя и список читателей автора после подписки или отписки.
+     */
+    public void followsChanged(Long followerId, Long authorId) {
+        timelines.invalidate(followerId);
+        followers.invalidate(authorId);
+    }
+
+    public long size() {
+        return timelines.estimatedSize();
+    }
+
+    private void fanOut(long readerId, List<Long> postIds, boolean created) {
+        PostTimeline loaded = timelines.asMap().get(readerId);
+        if (loaded != null) {
+            apply(loaded, postIds, created);
+            return;
+        }
+        // Ленты нет в памяти, но она может как раз перестраиваться: compute дождётся перестройки,
+        // и пост, закоммиченный после её запроса к базе, не потеряется. Отсутствующая лента не создаётся
+        timelines.asMap().compute(readerId, (id, timeline) -> {
+            if (timeline != null) {
+                apply(timeline, postIds, created);
+            }
+            return timeline;
+        });
+    }
+
+    private static void apply(PostTimeline timeline, List<Long> postIds, boolean created) {
+        for (Long postId : postIds) {
+            if (created) {
+                timeline.add(postId);
+            } else {
+                timeline.remove(postId);
+            }
+        }
+    }
+
+    private static long parseCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    private Map<Long, long[]> loadFollowers(Set<? extends Long> authorIds) {
+        Map<Long, List<Long>> followerIds = new HashMap<>();
+        for (FollowPair follow : followRepository.findByAuthorIdIn(List.copyOf(authorIds))) {
+            followerIds.computeIfAbsent(follow.getAuthorId(), author -> new ArrayList<>()).add(follow.getFollowerId());
+        }
+        Map<Long, long[]> loaded = new HashMap<>(authorIds.size() * 2);
+        for (Long authorId : authorIds) {
+            loaded.put(authorId, followerIds.getOrDefault(authorId, List.of()).stream()
+                    .mapToLong(Long::longValue).toArray());
+        }
+        return loaded;
+    }
+
+    private PostTimeline rebuild(Long userId) {
+        List<Long> authorIds = new ArrayList<>(followRepository.findAuthorIdsByFollowerId(userId));
+        authorIds.add(userId);
+        List<Long> postIds = postRepository.findIdsByAuthorIdIn(authorIds, PageRequest.of(0, capacity));
+        logger.debug("Rebuilt home timeline of user {} from {} authors: {} posts", userId, authorIds.size(),
+                postIds.size());
+        return PostTimeline.of(capacity, postIds);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Теги как у остальных кэшей (см. SecondLevelCacheMetrics), иначе Prometheus отбросит метрики
+        CaffeineCacheMetrics.monitor(registry, timelines, "home-timelines", Tags.of("cache.manager", "app"));
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostEvent;
+import com.example.demo.entities.OutboxEvent;
+import com.example.demo.repositories.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Доставка событий из outbox получателям {@link PostEventListener} этого узла.
+ *
+ * Каждый узел доставляет события со своим курсором: с момента старта, по возрастанию ID.
+ * Чужие события узел читает из общей таблицы пачками по {@code app.outbox.batch-size}
+ * раз в {@code app.outbox.poll-interval}. Свои события он получает из памяти сразу после коммита
+ * и в таблицу за ними не ходит, если перед ними нет недоставленных ID. Пропуск в ID означает транзакцию,
+ * которая ещё не закоммичена, поэтому курсор перед пропуском ждёт до {@code app.outbox.gap-timeout},
+ * а потом идёт дальше. Пропущенные ID не теряются: до конца {@code app.outbox.retention} они перечитываются
+ * на каждом опросе, и событие, закоммиченное позже (долгая транзакция, пауза GC), доставляется вне очереди;
+ * ID, так и не появившийся за это время, считается откатом. Если получатель упал, событие повторяется
+ * на следующем опросе, не больше {@code app.outbox.max-attempts} раз. События старше {@code app.outbox.retention} удаляются.
+ * События, прочитанные из таблицы, а не из памяти, доставляются как чужие
+ * ({@link PostEventListener#onRemotePostEvent}).
+ */
+@Service
+public class OutboxRelay implements DisposableBean, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<PostEventListener> listeners;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final long gapTimeoutNanos;
+    private final int maxAttempts;
+    private final Duration retention;
+    private final Duration cleanupInterval;
+    private final long minPollGapNanos;
+
+    // Один поток: события доставляются по порядку, а курсор меняется только в нём
+    private final ScheduledExecutorService relay =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("outbox-relay-"));
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final ConcurrentNavigableMap<Long, PostEvent> committedHere = new ConcurrentSkipListMap<>();
+    // ID, через которые курсор прошёл по таймауту пропуска, и время пропуска (System.nanoTime).
+    // Меняется только в потоке доставки; конкурентная карта — ради метрики
+    private final ConcurrentNavigableMap<Long, Long> skipped = new ConcurrentSkipListMap<>();
+
+    private volatile long cursor = -1;
+    private volatile long lastPollNanos;
+    private long gapSince;
+    private long lastSkippedPollNanos;
+    private int attempts;
+    private volatile Counter delivered;
+    private volatile Counter dropped;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       List<PostEventListener> listeners,
+                       ObjectMapper objectMapper,
+                       @Value("${app.outbox.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.poll-interval:100ms}") Duration pollInterval,
+                       @Value("${app.outbox.min-poll-gap:10ms}") Duration minPollGap,
+                       @Value("${app.outbox.gap-timeout:1s}") Duration gapTimeout,
+                       @Value("${app.outbox.max-attempts:5}") int maxAttempts,
+                       @Value("${app.outbox.retention:1h}") Duration retention,
+                       @Value("${app.outbox.cleanup-interval:1m}") Duration cleanupInterval) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.listeners = listeners;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.maxAttempts = maxAttempts;
+        this.retention = retention;
+        this.cleanupInterval = cleanupInterval;
+        this.minPollGapNanos = minPollGap.toNanos();
+        this.lastPollNanos = System.nanoTime() - minPollGapNanos;
+        this.lastSkippedPollNanos = System.nanoTime() - pollInterval.toNanos();
+        logger.info("OutboxRelay initialized with {} listeners, poll interval {}", listeners.size(), pollInterval);
+    }
+
+    /**
+     * Начинает опрос с текущего конца таблицы: события до старта узла его клиентам не нужны.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        relay.execute(() -> {
+            cursor = outboxEventRepository.findMaxId();
+            logger.info("Outbox relay started after event ID {}", cursor);
+        });
+        long pollMs = pollInterval.toMillis();
+        relay.scheduleWithFixedDelay(this::pollQuietly, pollMs, pollMs, TimeUnit.MILLISECONDS);
+        long cleanupMs = cleanupInterval.toMillis();
+        relay.scheduleWithFixedDelay(this::cleanUpQuietly, cleanupMs, cleanupMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Передаёт события, только что закоммиченные на этом узле, вместе с их ID в outbox.
+     * Они доставляются из памяти, без чтения таблицы, как только доставлены все события перед ними.
+     */
+    public void committed(Map<Long, PostEvent> events) {
+        committedHere.putAll(events);
+        wakeUp();
+    }
+
+    /**
+     * ID последнего доставленного события или -1 до старта.
+     */
+    public long getCursor() {
+        return cursor;
+    }
+
+    // Повторные вызовы до начала разбора объединяются в один
+    private void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            try {
+                relay.execute(this::drainQuietly);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Outbox relay is stopped, wake-up ignored");
+            }
+        }
+    }
+
+    private void drainQuietly() {
+        wakeUpPending.set(false);
+        try {
+            deliverCommittedHere();
+            if (committedHere.isEmpty()) {
+                return;
+            }
+            // Перед своими событиями есть чужие или ещё не закоммиченные: их читаем из таблицы,
+            // но не чаще раза в app.outbox.min-poll-gap
+            long delay = lastPollNanos + minPollGapNanos - System.nanoTime();
+            if (delay <= 0) {
+                poll();
+            }
+            if (!committedHere.isEmpty() && wakeUpPending.compareAndSet(false, true)) {
+                relay.schedule(this::drainQuietly, minPollGapNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Outbox delivery failed", e);
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            logger.error("Outbox poll failed", e);
+        }
+    }
+
+    private void poll() {
+        if (cursor < 0) {
+            return;
+        }
+        lastPollNanos = System.nanoTime();
+        if (!pollSkipped()) {
+            return;
+        }
+        List<OutboxEvent> events;
+        do {
+            events = outboxEventRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, batchSize));
+            for (OutboxEvent event : events) {
+                if (event.getId() != cursor + 1 && !gapExpired(event.getId())) {
+                    return;
+                }
+                PostEvent postEvent = committedHere.get(event.getId());
+                boolean local = postEvent != null;
+                if (!local) {
+                    postEvent = read(event);
+                }
+                if (postEvent != null && !deliver(event.getId(), postEvent, local)) {
+                    return;
+                }
+                advance(event.getId());
+            }
+        } while (events.size() == batchSize);
+        deliverCommittedHere();
+    }
+
+    private void deliverCommittedHere() {
+        if (cursor < 0) {
+            return;
+        }
+        Map.Entry<Long, PostEvent> next;
+        while ((next = committedHere.firstEntry()) != null && next.getKey() <= cursor + 1) {
+            if (next.getKey() == cursor + 1) {
+                if (!deliver(next.getKey(), next.getValue(), true)) {
+                    return;
+                }
+                advance(next.getKey());
+            } else if (skipped.containsKey(next.getKey())) {
+                // Своя транзакция закоммитилась после таймаута пропуска
+                if (!deliver(next.getKey(), next.getValue(), true)) {
+                    return;
+                }
+                skipped.remove(next.getKey());
+                committedHere.remove(next.getKey());
+            } else {
+                // Уже доставлено опросом или записано до старта
+                committedHere.remove(next.getKey());
+            }
+        }
+    }
+
+    /**
+     * Перечитывает пропущенные ID и доставляет события, которые закоммитились с опозданием.
+     * @return false, если доставка упала и её нужно повторить на следующем опросе
+     */
+    private boolean pollSkipped() {
+        // Пропуски от откатов живут до конца retention; перечитываем их не чаще раза в poll-interval
+        long now = System.nanoTime();
+        if (skipped.isEmpty() || now - lastSkippedPollNanos < pollInterval.toNanos()) {
+            return true;
+        }
+        lastSkippedPollNanos = now;
+        long expiredBefore = now - retention.toNanos();
+        skipped.entrySet().removeIf(skip -> {
+            if (skip.getValue() - expiredBefore < 0) {
+                logger.info("Outbox event ID {} never committed within the retention, treating it as rolled back",
+                        skip.getKey());
+                return true;
+            }
+            return false;
+        });
+        List<Long> ids = new ArrayList<>(skipped.keySet());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            for (OutboxEvent event : outboxEventRepository.findByIdInOrderByIdAsc(chunk)) {
+                PostEvent postEvent = committedHere.get(event.getId());
+                boolean local = postEvent != null;
+                if (!local) {
+                    postEvent = read(event);
+                }
+                if (postEvent != null && !deliver(event.getId(), postEvent, local)) {
+                    return false;
+                }
+                logger.info("Delivered outbox event ID {} committed after the gap timeout", event.getId());
+                skipped.remove(event.getId());
+                committedHere.remove(event.getId());
+            }
+        }
+        return true;
+    }
+
+    private void advance(long id) {
+        cursor = id;
+        gapSince = 0;
+        committedHere.remove(id);
+    }
+
+    private boolean gapExpired(long nextId) {
+        long now = System.nanoTime();
+        if (gapSince == 0) {
+            gapSince = now;
+            return false;
+        }
+        if (now - gapSince < gapTimeoutNanos) {
+            return false;
+        }
+        logger.warn("Skipping outbox event IDs {}..{}: not committed within the gap timeout, "
+                + "will deliver them if they commit later", cursor + 1, nextId - 1);
+        for (long id = cursor + 1; id < nextId; id++) {
+            skipped.put(id, now);
+        }
+        return true;
+    }
+
+    private PostEvent read(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), PostEvent.class);
+        } catch (JsonProcessingException e) {
+            logger.error("Dropping unreadable outbox event ID: {}", event.getId(), e);
+            increment(dropped);
+            return null;
+        }
+    }
+
+    // false — событие нужно повторить на следующем опросе
+    private boolean deliver(long id, PostEvent event, boolean local) {
+        try {
+            for (PostEventListener listener : listeners) {
+                if (local) {
+                    listener.onPostEvent(event);
+                } else {
+                    listener.onRemotePostEvent(event);
+                }
+            }
+            attempts = 0;
+            increment(delivered);
+            return true;
+        } catch (RuntimeException e) {
+            if (++attempts < maxAttempts) {
+                logger.warn("Delivery of outbox event ID {} failed, attempt {} of {}", id, attempts, maxAttempts, e);
+                return false;
+            }
+            logger.error("Dropping outbox event ID {} after {} attempts", id, attempts, e);
+            attempts = 0;
+            increment(dropped);
+            return true;
+        }
+    }
+
+    private void cleanUpQuietly() {
+        try {
+            int deleted = outboxEventRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+            if (deleted > 0) {
+                logger.info("Deleted {} outbox events older than {}", deleted, retention);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Outbox cleanup failed", e);
+        }
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        delivered = Counter.builder("outbox.events.delivered")
+                .description("Outbox events delivered to the listeners of this node")
+                .register(registry);
+        dropped = Counter.builder("outbox.events.dropped")
+                .description("Outbox events dropped as unreadable or after the last retry")
+                .register(registry);
+        Gauge.builder("outbox.events.skipped", skipped, Map::size)
+                .description("Outbox IDs passed by the gap timeout and still re-read in case they commit late")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        relay.shutdown();
+        relay.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.Post;
+import com.example.demo.entities.PostBody;
+import com.example.demo.repositories.PostBodyRepository;
+import com.example.demo.utils.PostBodyCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Тексты постов в таблице post_bodies, отдельно от постов. Тексты от app.posts.body.compression-threshold
+ * сжимаются LZ4 при записи и распаковываются при чтении. Запись идёт в транзакции вызывающего,
+ * вместе с самим постом.
+ */
+@Service
+public class PostBodyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostBodyStore.class);
+
+    private final PostBodyRepository postBodyRepository;
+    private final PostBodyCodec codec;
+
+    @Autowired
+    public PostBodyStore(PostBodyRepository postBodyRepository,
+                         @Value("${app.posts.body.compression-threshold:1KB}") DataSize compressionThreshold) {
+        this.postBodyRepository = postBodyRepository;
+        this.codec = new PostBodyCodec((int) Math.min(compressionThreshold.toBytes(), Integer.MAX_VALUE));
+        logger.info("PostBodyStore initialized, compressing bodies from {} bytes", compressionThreshold.toBytes());
+    }
+
+    /**
+     * Сохраняет текст нового поста из {@link Post#getContent()}. Пост должен быть уже сохранён в этой транзакции.
+     */
+    public void create(Post post) {
+        PostBody body = codec.encode(post.getContent());
+        body.setPost(post);
+        postBodyRepository.save(body);
+    }
+
+    /**
+     * Заменяет текст поста на {@link Post#getContent()}, не читая прежний.
+     */
+    public void replace(Post post) {
+        PostBody body = codec.encode(post.getContent());
+        int replaced = postBodyRepository.replace(post.getId(), body.getCodec(), body.getOriginalLength(),
+                body.getData());
+        if (replaced == 0) {
+            body.setPost(post);
+            postBodyRepository.save(body);
+        }
+    }
+
+    /**
+     * Текст поста.
+     * @return пусто, если поста нет
+     */
+    public Optional<String> findContent(Long postId) {
+        return postBodyRepository.findById(postId).map(PostBodyCodec::decode);
+    }
+
+    /**
+     * Тексты постов одним запросом.
+     * @return текст по ID поста; посты без текста в результат не попадают
+     */
+    public Map<Long, String> findContents(Collection<Long> postIds) {
+        Map<Long, String> contents = new HashMap<>();
+        if (postIds.isEmpty()) {
+            return contents;
+        }
+        for (PostBody body : postBodyRepository.findByPostIdIn(postIds)) {
+            contents.put(body.getPostId(), PostBodyCodec.decode(body));
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostEvent;
+
+/**
+ * Получатель событий о постах из outbox. Бины с этим интерфейсом вызываются на каждом узле
+ * в порядке записи событий, уже после коммита, в потоке {@link OutboxRelay}.
+ * Если получатель бросил исключение, событие повторяется для всех получателей, поэтому
+ * обработка должна переносить повторную доставку.
+ */
+public interface PostEventListener {
+
+    void onPostEvent(PostEvent event);
+
+    /**
+     * Событие, которое записал другой узел. По умолчанию обрабатывается как любое другое;
+     * переопределяется получателями, которым важно, что запись прошла мимо этого узла.
+     * Своё событие, прочитанное из таблицы раньше, чем узел узнал о коммите, тоже может прийти сюда.
+     */
+    default void onRemotePostEvent(PostEvent event) {
+        onPostEvent(event);
+    }
+}
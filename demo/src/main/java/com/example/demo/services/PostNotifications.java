@@ -0,0 +1,137 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostEvent;
+import com.example.demo.dto.PostView;
+import com.example.demo.utils.AdaptiveBatcher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Уведомления о постах через WebSocket-темы. События приходят из outbox через {@link OutboxRelay}.
+ *
+ * Темы: {@value #ALL_POSTS_TOPIC} — все посты, {@code author:<id>} — посты одного автора.
+ * Новые посты копятся в окне {@code app.notifications.min-window}..{@code max-window}
+ * (см. {@link AdaptiveBatcher}) и уходят одним событием на сессию: подписчик ленты получает всю пачку,
+ * подписчик авторов — посты своих авторов. После паузы первый пост отправляется без задержки.
+ * Изменения и удаления отправляются сразу, но после накопленных новых постов, чтобы не обогнать их.
+ */
+@Service
+public class PostNotifications implements PostEventListener, DisposableBean, MeterBinder {
+
+    public static final String ALL_POSTS_TOPIC = "posts";
+
+    private static final String AUTHOR_TOPIC_PREFIX = "author:";
+    private static final Pattern AUTHOR_TOPIC = Pattern.compile("author:[1-9][0-9]{0,18}");
+
+    private static final Logger logger = LoggerFactory.getLogger(PostNotifications.class);
+
+    private final WebSocketService webSocketService;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("post-notifications-"));
+    private final AdaptiveBatcher<PostView> batcher;
+    private volatile DistributionSummary batchSizes;
+
+    @Autowired
+    public PostNotifications(WebSocketService webSocketService, ObjectMapper objectMapper,
+                             @Value("${app.notifications.min-window:1ms}") Duration minWindow,
+                             @Value("${app.notifications.max-window:50ms}") Duration maxWindow,
+                             @Value("${app.notifications.max-batch:100}") int maxBatch) {
+        this.webSocketService = webSocketService;
+        this.objectMapper = objectMapper;
+        // Пачка ограничена, чтобы событие помещалось в буфер сессии
+        this.batcher = new AdaptiveBatcher<>(posts -> publish(PostEvent.POSTS_CREATED, posts), scheduler,
+                minWindow.toNanos(), maxWindow.toNanos(), TimeUnit.NANOSECONDS, maxBatch);
+        logger.info("PostNotifications initialized with window {}..{} and max batch {}",
+                minWindow, maxWindow, maxBatch);
+    }
+
+    public static String authorTopic(Long authorId) {
+        return AUTHOR_TOPIC_PREFIX + authorId;
+    }
+
+    /**
+     * Можно ли подписаться на тему с таким именем.
+     */
+    public static boolean isValidTopic(String topic) {
+        return ALL_POSTS_TOPIC.equals(topic) || topic != null && AUTHOR_TOPIC.matcher(topic).matches();
+    }
+
+    @Override
+    public void onPostEvent(PostEvent event) {
+        if (PostEvent.POSTS_CREATED.equals(event.getType())) {
+            postsCreated(event.getPosts());
+        } else {
+            batcher.flush();
+            publish(event.getType(), event.getPosts());
+        }
+    }
+
+    /**
+     * Сообщает подписчикам авторов и всех постов о новых постах.
+     */
+    public void postsCreated(List<PostView> posts) {
+        batcher.addAll(posts);
+    }
+
+    private void publish(String type, List<PostView> posts) {
+        Map<String, List<PostView>> byTopic = new LinkedHashMap<>();
+        byTopic.put(ALL_POSTS_TOPIC, posts);
+        for (PostView post : posts) {
+            byTopic.computeIfAbsent(authorTopic(post.getAuthor().getId()), topic -> new ArrayList<>()).add(post);
+        }
+        webSocketService.publish(byTopic, items -> serialize(type, items));
+        DistributionSummary summary = batchSizes;
+        if (summary != null && PostEvent.POSTS_CREATED.equals(type)) {
+            summary.record(posts.size());
+        }
+    }
+
+    private String serialize(String type, List<PostView> posts) {
+        try {
+            return objectMapper.writeValueAsString(new PostEvent(type, posts));
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize {} event for {} posts", type, posts.size(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        batchSizes = DistributionSummary.builder("posts.notifications.batch.size")
+                .description("Posts per coalesced notification")
+                .register(registry);
+        Gauge.builder("posts.notifications.window", batcher, b -> b.getWindow(TimeUnit.MICROSECONDS) / 1_000.0)
+                .description("Current coalescing window")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        batcher.flush();
+    }
+}
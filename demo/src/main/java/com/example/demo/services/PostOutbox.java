@@ -0,0 +1,85 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostEvent;
+import com.example.demo.dto.PostView;
+import com.example.demo.entities.OutboxEvent;
+import com.example.demo.repositories.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запись событий о постах в outbox в транзакции изменения.
+ *
+ * При откате транзакции события откатываются вместе с постами и никуда не уходят.
+ * После коммита события передаются {@link OutboxRelay} этого узла и доставляются в фоне, не задерживая запрос;
+ * остальные узлы увидят их при своём опросе таблицы.
+ */
+@Service
+public class PostOutbox {
+
+    // Большие пакеты делятся на несколько событий, чтобы строка outbox и кадр клиента оставались небольшими
+    private static final int MAX_POSTS_PER_EVENT = 100;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public PostOutbox(OutboxEventRepository outboxEventRepository, OutboxRelay outboxRelay, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxRelay = outboxRelay;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void postsCreated(List<PostView> posts) {
+        record(PostEvent.POSTS_CREATED, posts);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void postUpdated(PostView post) {
+        record(PostEvent.POSTS_UPDATED, List.of(post));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void postDeleted(Long postId, Long authorId) {
+        record(PostEvent.POSTS_DELETED, List.of(PostView.reference(postId, authorId)));
+    }
+
+    private void record(String type, List<PostView> posts) {
+        if (posts.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, PostEvent> committed = new LinkedHashMap<>();
+        for (int from = 0; from < posts.size(); from += MAX_POSTS_PER_EVENT) {
+            PostEvent event = new PostEvent(type,
+                    posts.subList(from, Math.min(posts.size(), from + MAX_POSTS_PER_EVENT)));
+            OutboxEvent row;
+            try {
+                row = new OutboxEvent(type, objectMapper.writeValueAsString(event), now);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize " + type + " event", e);
+            }
+            // ID (IDENTITY) известен сразу после вставки
+            committed.put(outboxEventRepository.save(row).getId(), event);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.committed(committed);
+            }
+        });
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostListVersion;
+import com.example.demo.dto.PostReportJob;
+import com.example.demo.dto.PostReportJob.State;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.utils.ThreadPools;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Отчёт по постам как фоновая задача.
+ *
+ * Задача привязана к версии данных — числу постов, максимальному ID и сумме версий
+ * ({@link PostRepository#findReportVersion}). Пока версия не изменилась, все запросы получают одну
+ * и ту же задачу: идущую — без второго запуска, завершённую — сразу с готовым файлом. Файлы отчётов
+ * лежат в {@code app.report.dir}, хранятся {@code app.report.cached-artifacts} последних. Файл пишется
+ * во временный и переименовывается по готовности, так что скачивание никогда не видит недописанный отчёт.
+ * При старте каталог очищается: версия уникальна только в пределах одной базы, а база в памяти
+ * после перезапуска другая.
+ *
+ * Посты, добавленные во время построения, могут попасть в отчёт, помеченный предыдущей версией:
+ * отчёт бывает новее своей версии, но не старее, а следующий запрос уже увидит новую версию.
+ */
+@Service
+public class PostReportJobs implements DisposableBean, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostReportJobs.class);
+
+    private static final String FILE_PREFIX = "posts-report-";
+    private static final String FILE_SUFFIX = ".xlsx";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final PostService postService;
+    private final PostRepository postRepository;
+    private final Path directory;
+    private final int cachedArtifacts;
+    private final ExecutorService generator;
+    // Задачи по ID для статуса и скачивания; забываются через job-retention без обращений
+    private final Cache<String, Job> jobs;
+    // Идущая или завершённая задача каждой версии данных; неудачные отсюда убираются
+    private final ConcurrentHashMap<String, Job> jobsByVersion = new ConcurrentHashMap<>();
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder cached = new LongAdder();
+
+    @Autowired
+    public PostReportJobs(PostService postService,
+                          PostRepository postRepository,
+                          @Value("${app.report.dir:data/reports}") Path directory,
+                          @Value("${app.report.cached-artifacts:2}") int cachedArtifacts,
+                          @Value("${app.report.job-retention:1h}") Duration jobRetention,
+                          @Value("${app.report.threads:1}") int threads,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.postService = postService;
+        this.postRepository = postRepository;
+        this.directory = directory;
+        this.cachedArtifacts = Math.max(1, cachedArtifacts);
+        this.generator = ThreadPools.newPool("report-", threads, virtualThreads);
+        this.jobs = Caffeine.newBuilder().expireAfterAccess(jobRetention).build();
+        deleteReportFiles();
+        logger.info("PostReportJobs initialized with directory {}", directory.toAbsolutePath());
+    }
+
+    /**
+     * Возвращает задачу отчёта для текущей версии данных, запуская построение, только если
+     * для этой версии нет ни идущей задачи, ни готового файла.
+     */
+    public PostReportJob submit() {
+        PostListVersion version = postRepository.findReportVersion();
+        String dataVersion = Long.toHexString(version.getCount()) + "-" + Long.toHexString(version.getMaxId())
+                + "-" + Long.toHexString(version.getVersionSum());
+        Job job = jobsByVersion.compute(dataVersion, (key, existing) ->
+                existing != null && existing.isReusable() ? existing : new Job(key, version.getCount()));
+        jobs.put(job.id, job);
+
+        if (job.started.compareAndSet(false, true)) {
+            logger.info("Starting report job {} for data version {}", job.id, dataVersion);
+            started.increment();
+            generator.execute(() -> run(job, artifactPath(dataVersion)));
+        } else {
+            (job.result.isDone() ? cached : joined).increment();
+        }
+        return job.toView();
+    }
+
+    public Optional<PostReportJob> find(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(Job::toView);
+    }
+
+    /**
+     * Файл готового отчёта задачи; пусто, если задача неизвестна, не завершена или её файл уже вытеснен.
+     */
+    public Optional<Path> artifact(String jobId) {
+        Job job = jobs.getIfPresent(jobId);
+        if (job == null || job.state() != State.DONE) {
+            return Optional.empty();
+        }
+        Path artifact = job.result.join();
+        return Files.exists(artifact) ? Optional.of(artifact) : Optional.empty();
+    }
+
+    /**
+     * Завершается файлом отчёта, когда задача будет готова, или ошибкой построения.
+     */
+    public Optional<CompletableFuture<Path>> whenDone(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(job -> job.result.copy());
+    }
+
+    private void run(Job job, Path artifact) {
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, FILE_PREFIX, TEMP_SUFFIX);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                postService.generatePostsReport(out, rows -> job.rowsWritten = rows);
+            }
+            Files.move(temp, artifact, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            job.done(artifact, job.rowsWritten);
+            logger.info("Report job {} finished: {} rows in {}", job.id, job.rowsWritten, artifact);
+        } catch (Exception e) {
+            logger.error("Report job {} failed", job.id, e);
+            deleteQuietly(temp);
+            jobsByVersion.remove(job.dataVersion, job);
+            job.failed(e);
+            return;
+        }
+        try {
+            evictOldArtifacts();
+        } catch (IOException e) {
+            logger.warn("Could not evict old reports in {}", directory, e);
+        }
+    }
+
+    /**
+     * Оставляет только cachedArtifacts самых новых файлов отчётов.
+     */
+    private void evictOldArtifacts() throws IOException {
+        List<Path> artifacts = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            files.forEach(artifacts::add);
+        }
+        if (artifacts.size() <= cachedArtifacts) {
+            return;
+        }
+        artifacts.sort(Comparator.comparing(PostReportJobs::lastModified).reversed());
+        for (Path stale : artifacts.subList(cachedArtifacts, artifacts.size())) {
+            String fileName = stale.getFileName().toString();
+            jobsByVersion.remove(fileName.substring(FILE_PREFIX.length(), fileName.length() - FILE_SUFFIX.length()));
+            // Уже начатые скачивания дочитают файл: открытый дескриптор переживает удаление
+            deleteQuietly(stale);
+            logger.info("Evicted old report {}", stale);
+        }
+    }
+
+    private void deleteReportFiles() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            files.forEach(PostReportJobs::deleteQuietly);
+        } catch (IOException e) {
+            logger.warn("Could not clean up reports in {}", directory, e);
+        }
+    }
+
+    private Path artifactPath(String dataVersion) {
+        return directory.resolve(FILE_PREFIX + dataVersion + FILE_SUFFIX);
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}", path, e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("posts.report.jobs", started, LongAdder::sum)
+                .description("Report requests by outcome: started a new build, joined a running one "
+                        + "or were served an already built report")
+                .tag("outcome", "started")
+                .register(registry);
+        FunctionCounter.builder("posts.report.jobs", joined, LongAdder::sum)
+                .tag("outcome", "joined")
+                .register(registry);
+        FunctionCounter.builder("posts.report.jobs", cached, LongAdder::sum)
+                .tag("outcome", "cached")
+                .register(registry);
+        Gauge.builder("posts.report.jobs.running", jobsByVersion,
+                        byVersion -> byVersion.values().stream().filter(job -> !job.result.isDone()).count())
+                .description("Report builds in progress")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        generator.shutdownNow();
+    }
+
+    private static final class Job {
+
+        final String id = UUID.randomUUID().toString();
+        final String dataVersion;
+        final long totalRows;
+        final Instant submittedAt = Instant.now();
+        final AtomicBoolean started = new AtomicBoolean();
+        final CompletableFuture<Path> result = new CompletableFuture<>();
+        volatile long rowsWritten;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Job(String dataVersion, long totalRows) {
+            this.dataVersion = dataVersion;
+            this.totalRows = totalRows;
+        }
+
+        void done(Path artifact, long rows) {
+            rowsWritten = rows;
+            finishedAt = Instant.now();
+            result.complete(artifact);
+        }
+
+        void failed(Exception e) {
+            error = e.getMessage();
+            finishedAt = Instant.now();
+            result.completeExceptionally(e);
+        }
+
+        State state() {
+            if (!result.isDone()) {
+                return State.RUNNING;
+            }
+            return result.isCompletedExceptionally() ? State.FAILED : State.DONE;
+        }
+
+        /** Идущую задачу можно разделить, завершённую — пока её файл на месте. */
+        boolean isReusable() {
+            State state = state();
+            return state == State.RUNNING || state == State.DONE && Files.exists(result.join());
+        }
+
+        PostReportJob toView() {
+            return new PostReportJob(id, dataVersion, state(), rowsWritten, totalRows, submittedAt, finishedAt,
+                    error);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.Post;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.utils.ThreadPools;
+import com.example.demo.utils.Transactions;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Полнотекстовый индекс постов (Lucene) по заголовку и тексту.
+ *
+ * Изменения постов попадают в индекс сразу после коммита транзакции и становятся видны поиску
+ * не позже чем через секунду (near-real-time). Индекс хранится на диске и коммитится
+ * периодически; при старте он сверяется с базой и при расхождении перестраивается в фоне.
+ * Поиск во время перестройки продолжает работать по старым документам.
+ */
+@Service
+public class PostSearchIndex implements DisposableBean, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String CONTENT = "content";
+    private static final String GENERATION = "generation";
+
+    private final PostRepository postRepository;
+    private final PostBodyStore postBodyStore;
+    private final int maxWindow;
+    private final int rebuildPageSize;
+
+    private final Directory directory;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ControlledRealTimeReopenThread<IndexSearcher> reopener;
+    private final ScheduledExecutorService committer =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("search-commit-"));
+    private final ExecutorService rebuilder;
+
+    // Документы помечаются поколением: перестройка пишет новое, а по окончании удаляет все старые
+    private volatile long generation;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public PostSearchIndex(PostRepository postRepository,
+                           PostBodyStore postBodyStore,
+                           @Value("${app.search.index-dir:data/search-index}") Path indexDir,
+                           @Value("${app.search.in-memory:false}") boolean inMemory,
+                           @Value("${app.search.commit-interval:30s}") Duration commitInterval,
+                           @Value("${app.search.max-window:10000}") int maxWindow,
+                           @Value("${app.search.rebuild-page-size:1000}") int rebuildPageSize,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) throws IOException {
+        this.postRepository = postRepository;
+        this.postBodyStore = postBodyStore;
+        this.maxWindow = maxWindow;
+        this.rebuildPageSize = rebuildPageSize;
+        this.rebuilder = ThreadPools.newPool("search-rebuild-", 1, virtualThreads);
+
+        this.directory = inMemory ? new ByteBuffersDirectory() : FSDirectory.open(indexDir);
+        if (DirectoryReader.indexExists(directory)) {
+            String stored = SegmentInfos.readLatestCommit(directory).getUserData().get(GENERATION);
+            this.generation = stored == null ? 0 : Long.parseLong(stored);
+        }
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, new SearcherFactory());
+        // Новые документы видны поиску не позже чем через секунду, а при ожидании — через 25 мс
+        this.reopener = new ControlledRealTimeReopenThread<>(writer, searcherManager, 1.0, 0.025);
+        this.reopener.setName("search-reopen");
+        this.reopener.setDaemon(true);
+        this.reopener.start();
+
+        long intervalMs = commitInterval.toMillis();
+        committer.scheduleWithFixedDelay(this::commitQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("PostSearchIndex opened {} with {} documents",
+                inMemory ? "in memory" : indexDir.toAbsolutePath(), writer.getDocStats().numDocs);
+    }
+
+    /**
+     * При старте сверяет индекс с базой: число документов и наличие последнего поста.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        long posts = postRepository.count();
+        Long maxId = postRepository.findMaxId();
+        if (documentCount() != posts || (maxId != null && !contains(maxId))) {
+            logger.info("Search index is out of date ({} documents, {} posts), rebuilding", documentCount(), posts);
+            rebuildAsync();
+        }
+    }
+
+    /**
+     * Индексирует посты после коммита текущей транзакции, а вне транзакции — сразу.
+     * Текст берётся из {@link Post#getContent()}, то есть из только что записанных постов, а не из базы.
+     */
+    public void index(Collection<Post> posts) {
+        List<Post> snapshot = List.copyOf(posts);
+        Transactions.afterCommit(() -> {
+            for (Post post : snapshot) {
+                update(post, post.getContent());
+                markChanged(post.getId());
+            }
+        });
+    }
+
+    public void index(Post post) {
+        index(List.of(post));
+    }
+
+    public void remove(Long postId) {
+        Transactions.afterCommit(() -> {
+            try {
+                writer.deleteDocuments(new Term(ID, postId.toString()));
+            } catch (IOException e) {
+                logger.error("Failed to remove post {} from search index", postId, e);
+            }
+            markChanged(postId);
+        });
+    }
+
+    /**
+     * Ранжированный поиск. Синтаксис запроса: слова (все обязательны), "фразы", префиксы*, -исключения.
+     * @param offset сколько лучших результатов пропустить
+     * @throws IllegalArgumentException если offset + limit больше app.search.max-window
+     */
+    public Hits search(String queryText, int offset, int limit) {
+        if (offset < 0 || limit < 1 || offset + limit > maxWindow) {
+            throw new IllegalArgumentException("Search window must be within " + maxWindow + " results");
+        }
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, Map.of(TITLE, 2.0f, CONTENT, 1.0f));
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query query = parser.parse(queryText);
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query, offset + limit);
+                long total = top.totalHits.relation == TotalHits.Relation.EQUAL_TO
+                        ? top.totalHits.value
+                        : searcher.count(query);
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>(limit);
+                List<Float> scores = new ArrayList<>(limit);
+                for (int i = offset; i < top.scoreDocs.length; i++) {
+                    ScoreDoc hit = top.scoreDocs[i];
+                    ids.add(Long.valueOf(storedFields.document(hit.doc, Set.of(ID)).get(ID)));
+                    scores.add(hit.score);
+                }
+                return new Hits(ids, scores, total);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Search failed", e);
+        }
+    }
+
+    /**
+     * Запускает перестройку индекса из базы в фоне, если она ещё не идёт.
+     * @return false, если перестройка уже выполняется
+     */
+    public boolean rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuilder.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                logger.error("Search index rebuild failed", e);
+            } finally {
+                changedDuringRebuild.clear();
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    /**
+     * Делает все записанные изменения видимыми поиску, не дожидаясь фонового обновления.
+     */
+    void refresh() throws IOException {
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    public long documentCount() {
+        return writer.getDocStats().numDocs;
+    }
+
+    private void rebuild() throws IOException {
+        long started = System.nanoTime();
+        long current = ++generation;
+
+        PageRequest page = PageRequest.of(0, rebuildPageSize);
+        long lastId = 0;
+        long indexed = 0;
+        List<Post> posts;
+        do {
+            posts = postRepository.findByIdGreaterThanOrderByIdAsc(lastId, page);
+            Map<Long, String> contents = postBodyStore.findContents(posts.stream().map(Post::getId).toList());
+            for (Post post : posts) {
+                // Посты, изменённые во время перестройки, уже проиндексированы в актуальном виде
+                if (!changedDuringRebuild.contains(post.getId())) {
+                    update(post, contents.get(post.getId()));
+                    indexed++;
+                }
+            }
+            if (!posts.isEmpty()) {
+                lastId = posts.get(posts.size() - 1).getId();
+            }
+        } while (posts.size() == rebuildPageSize);
+
+        writer.deleteDocuments(LongPoint.newRangeQuery(GENERATION, Long.MIN_VALUE, current - 1));
+        reconcileChanged();
+        commit();
+        logger.info("Search index rebuilt with {} posts in {} ms", indexed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Повторно сверяет с базой посты, изменённые во время перестройки: страница могла прочитать их до изменения
+    private void reconcileChanged() throws IOException {
+        for (Long id : List.copyOf(changedDuringRebuild)) {
+            Post post = postRepository.findById(id).orElse(null);
+            if (post == null) {
+                writer.deleteDocuments(new Term(ID, id.toString()));
+            } else {
+                update(post, postBodyStore.findContent(id).orElse(null));
+            }
+        }
+    }
+
+    private void update(Post post, String content) {
+        Document document = new Document();
+        document.add(new StringField(ID, post.getId().toString(), Field.Store.YES));
+        document.add(new LongPoint(GENERATION, generation));
+        document.add(new TextField(TITLE, nullToEmpty(post.getTitle()), Field.Store.NO));
+        document.add(new TextField(CONTENT, nullToEmpty(content), Field.Store.NO));
+        try {
+            writer.updateDocument(new Term(ID, post.getId().toString()), document);
+        } catch (IOException e) {
+            logger.error("Failed to index post {}", post.getId(), e);
+        }
+    }
+
+    private boolean contains(Long id) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return searcher.count(new TermQuery(new Term(ID, id.toString()))) > 0;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Вызывается после записи: если перестройка уже шла, запись могла получить старое поколение
+    // и будет удалена вместе с ним, поэтому пост сверяется заново в конце перестройки
+    private void markChanged(Long id) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(id);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.setLiveCommitData(Map.of(GENERATION, Long.toString(generation)).entrySet());
+            writer.commit();
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (Exception e) {
+            logger.error("Failed to commit search index", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("search.index.documents", this, PostSearchIndex::documentCount)
+                .description("Posts in the full-text search index")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        rebuilder.shutdownNow();
+        committer.shutdown();
+        reopener.close();
+        commitQuietly();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Одна страница результатов поиска: ID постов в порядке релевантности, их оценки и общее число совпадений.
+     */
+    public static final class Hits {
+
+        private final List<Long> ids;
+        private final List<Float> scores;
+        private final long totalHits;
+
+        Hits(List<Long> ids, List<Float> scores, long totalHits) {
+            this.ids = ids;
+            this.scores = scores;
+            this.totalHits = totalHits;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public List<Float> getScores() {
+            return scores;
+        }
+
+        public long getTotalHits() {
+            return totalHits;
+        }
+    }
+}
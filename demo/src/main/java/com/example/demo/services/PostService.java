@@ -1,54 +1,236 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.PostBatchResult;
+import com.example.demo.dto.PostPage;
+import com.example.demo.dto.PostReportRow;
+import com.example.demo.dto.PostSearchResult;
+import com.example.demo.dto.PostView;
+import com.example.demo.dto.UserName;
 import com.example.demo.entities.Post;
+import com.example.demo.entities.User;
 import com.example.demo.repositories.PostRepository;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.utils.PostCursor;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongConsumer;
 
 @Service
+@Timed("service.method")
 public class PostService {
 
     private static final Logger logger = LoggerFactory.getLogger(PostService.class);
 
     private final PostRepository postRepository;
-    private final WebSocketService webSocketService;
+    private final UserRepository userRepository;
+    private final PostOutbox postOutbox;
+    private final SubscriptionCache subscriptionCache;
+    private final PostSearchIndex postSearchIndex;
+    private final PostBodyStore postBodyStore;
+    private final EntityManager entityManager;
+    private final int reportPageSize;
+    private final int reportRowWindow;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int batchSize;
 
     @Autowired
-    public PostService(PostRepository postRepository, WebSocketService webSocketService) {
+    public PostService(PostRepository postRepository,
+                       UserRepository userRepository,
+                       PostOutbox postOutbox,
+                       SubscriptionCache subscriptionCache,
+                       PostSearchIndex postSearchIndex,
+                       PostBodyStore postBodyStore,
+                       EntityManager entityManager,
+                       @Value("${app.report.page-size:500}") int reportPageSize,
+                       @Value("${app.report.row-window:100}") int reportRowWindow,
+                       @Value("${app.posts.page.default-size:20}") int defaultPageSize,
+                       @Value("${app.posts.page.max-size:100}") int maxPageSize,
+                       @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
         this.postRepository = postRepository;
-        this.webSocketService = webSocketService;
+        this.userRepository = userRepository;
+        this.postOutbox = postOutbox;
+        this.subscriptionCache = subscriptionCache;
+        this.postSearchIndex = postSearchIndex;
+        this.postBodyStore = postBodyStore;
+        this.entityManager = entityManager;
+        this.reportPageSize = reportPageSize;
+        this.reportRowWindow = reportRowWindow;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.batchSize = batchSize;
         logger.info("PostService initialized");
     }
 
+    /**
+     * Создаёт пост; событие о нём пишется в outbox в той же транзакции и уходит подписчикам после коммита.
+     * Текст сохраняется отдельно от поста (см. {@link PostBodyStore}), а в событие не попадает.
+     */
+    @Transactional
     public Post createPost(Post post) {
         logger.info("Attempting to create new post with title: {}", post.getTitle());
+        if (post.getAuthor() == null || post.getAuthor().getId() == null) {
+            throw new RuntimeException("Author ID is required");
+        }
+        if (post.getContent() == null) {
+            throw new RuntimeException("Content is required");
+        }
+        // Автор берётся из базы (обычно из кэша второго уровня), а не из тела запроса
+        Long authorId = post.getAuthor().getId();
+        post.setAuthor(userRepository.findById(authorId)
+            .orElseThrow(() -> {
+                logger.error("Author not found for ID: {}", authorId);
+                return new RuntimeException("Author not found");
+            }));
         post.setCreatedAt(LocalDateTime.now());
+        post.setVersion(null);
 
         Post savedPost = postRepository.save(post);
+        postBodyStore.create(savedPost);
         logger.info("Post created successfully with ID: {}", savedPost.getId());
+        postSearchIndex.index(savedPost);
 
-        // Отправка уведомления через WebSocket
-        webSocketService.sendMessageToAll("New post was created ");
-        logger.info("Notification sent for new post ID: {}", savedPost.getId());
+        postOutbox.postsCreated(List.of(PostView.from(savedPost)));
+        logger.info("Created event recorded for new post ID: {}", savedPost.getId());
 
         return savedPost;
     }
 
+    /**
+     * Пакетное создание постов в одной транзакции.
+     * Невалидные посты отклоняются по отдельности, остальные вставляются JDBC-батчами
+     * (по {@code hibernate.jdbc.batch_size} строк), а события о новых постах пишутся в outbox
+     * и уходят подписчикам после коммита.
+     * @return результат по каждому посту в порядке запроса
+     */
+    @Transactional
+    public PostBatchResult createPosts(List<Post> posts) {
+        logger.info("Attempting to create {} posts in batch", posts.size());
+
+        Set<Long> authorIds = new HashSet<>();
+        for (Post post : posts) {
+            if (post != null && post.getAuthor() != null && post.getAuthor().getId() != null) {
+                authorIds.add(post.getAuthor().getId());
+            }
+        }
+        Map<Long, String> authorNames = new HashMap<>();
+        if (!authorIds.isEmpty()) {
+            for (UserName author : userRepository.findNamesByIdIn(authorIds)) {
+                authorNames.put(author.getId(), author.getName());
+            }
+        }
+        Set<Long> existingAuthorIds = authorNames.keySet();
+
+        List<PostBatchResult.Item> items = new ArrayList<>(posts.size());
+        List<Post> created = new ArrayList<>(posts.size());
+        List<Post> pending = new ArrayList<>(batchSize);
+        List<Integer> pendingIndexes = new ArrayList<>(batchSize);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+            String error = validate(post, existingAuthorIds);
+            if (error != null) {
+                items.add(PostBatchResult.Item.rejected(i, error));
+                continue;
+            }
+            post.setId(null);
+            post.setVersion(null);
+            post.setCreatedAt(now);
+            post.setAuthor(entityManager.getReference(User.class, post.getAuthor().getId()));
+            entityManager.persist(post);
+            // Вставки текстов идут отдельным батчем после вставок постов (hibernate.order_inserts)
+            postBodyStore.create(post);
+            created.add(post);
+            pending.add(post);
+            pendingIndexes.add(i);
+            items.add(null);
+            if (pending.size() == batchSize) {
+                flushBatch(pending, pendingIndexes, items);
+            }
+        }
+        flushBatch(pending, pendingIndexes, items);
+
+        // Индекс обновится после коммита; при откате транзакции посты в него не попадут
+        postSearchIndex.index(created);
+
+        PostBatchResult result = new PostBatchResult(items);
+        logger.info("Batch finished: {} posts created, {} rejected", result.getCreatedCount(), result.getRejectedCount());
+
+        // Сущности уже отсоединены, поэтому представления собираются из полей и имён авторов из проверки выше
+        List<PostView> views = new ArrayList<>(created.size());
+        for (Post post : created) {
+            Long authorId = post.getAuthor().getId();
+            views.add(new PostView(post.getId(), post.getTitle(), post.getCreatedAt(), authorId,
+                    authorNames.get(authorId)));
+        }
+        postOutbox.postsCreated(views);
+        return result;
+    }
+
+    private static String validate(Post post, Set<Long> existingAuthorIds) {
+        if (post == null) {
+            return "Post is empty";
+        }
+        if (post.getTitle() == null || post.getTitle().isBlank()) {
+            return "Title is required";
+        }
+        if (post.getContent() == null) {
+            return "Content is required";
+        }
+        if (post.getAuthor() == null || post.getAuthor().getId() == null) {
+            return "Author ID is required";
+        }
+        if (!existingAuthorIds.contains(post.getAuthor().getId())) {
+            return "Author not found";
+        }
+        return null;
+    }
+
+    // Отправляет накопленные вставки одним батчем и отпускает сущности из контекста персистентности
+    private void flushBatch(List<Post> pending, List<Integer> pendingIndexes, List<PostBatchResult.Item> items) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        for (int i = 0; i < pending.size(); i++) {
+            int index = pendingIndexes.get(i);
+            items.set(index, PostBatchResult.Item.created(index, pending.get(i).getId()));
+        }
+        entityManager.clear();
+        pending.clear();
+        pendingIndexes.clear();
+    }
+
+    /**
+     * Правит заголовок и текст поста. Прежний текст не читается: пост загружается без него,
+     * а текст заменяется одним UPDATE.
+     */
+    @Transactional
     public Post editPost(Long postId, Post updatedPost) {
         logger.info("Attempting to edit post with ID: {}", postId);
+        if (updatedPost.getContent() == null) {
+            throw new RuntimeException("Content is required");
+        }
 
-        Post existingPost = postRepository.findById(postId)
+        Post existingPost = postRepository.findWithAuthorById(postId)
             .orElseThrow(() -> {
                 logger.error("Post not found for ID: {}", postId);
                 return new RuntimeException("Post not found");
@@ -57,12 +239,20 @@ public class PostService {
         existingPost.setTitle(updatedPost.getTitle());
         existingPost.setContent(updatedPost.getContent());
 
-        Post savedPost = postRepository.save(existingPost);
+        // Конфликт версий проявляется здесь, до записи текста и события, а не при коммите
+        Post savedPost = postRepository.saveAndFlush(existingPost);
+        postBodyStore.replace(savedPost);
         logger.info("Post edited successfully with ID: {}", savedPost.getId());
+        postSearchIndex.index(savedPost);
+        postOutbox.postUpdated(PostView.from(savedPost));
 
         return savedPost;
     }
 
+    /**
+     * Удаляет пост; текст удаляется базой вместе с ним (ON DELETE CASCADE) и не загружается.
+     */
+    @Transactional
     public void deletePost(Long postId) {
         logger.info("Attempting to delete post with ID: {}", postId);
 
@@ -74,61 +264,162 @@ public class PostService {
 
         postRepository.delete(post);
         logger.info("Post deleted successfully with ID: {}", postId);
+        postSearchIndex.remove(postId);
+        postOutbox.postDeleted(postId, post.getAuthor().getId());
+    }
+
+    /**
+     * Полнотекстовый поиск по заголовку и тексту постов, от самых релевантных.
+     * @param page номер страницы с нуля
+     * @param size размер страницы; null означает размер по умолчанию, значения больше максимума обрезаются
+     * @throws IllegalArgumentException если страница лежит дальше app.search.max-window результатов
+     */
+    public PostSearchResult searchPosts(String query, int page, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        long offset = (long) page * pageSize;
+        if (offset < 0 || offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Page is out of range");
+        }
+        PostSearchIndex.Hits hits = postSearchIndex.search(query, (int) offset, pageSize);
+
+        // Один запрос за всю страницу вместе с авторами; посты, удалённые после поиска, пропускаются
+        Map<Long, PostView> postsById = new HashMap<>();
+        if (!hits.getIds().isEmpty()) {
+            for (PostView post : postRepository.findViewsByIdIn(hits.getIds())) {
+                postsById.put(post.getId(), post);
+            }
+        }
+        List<PostSearchResult.Hit> results = new ArrayList<>(hits.getIds().size());
+        for (int i = 0; i < hits.getIds().size(); i++) {
+            PostView post = postsById.get(hits.getIds().get(i));
+            if (post != null) {
+                results.add(new PostSearchResult.Hit(post, hits.getScores().get(i)));
+            }
+        }
+        logger.info("Search for '{}' matched {} posts", query, hits.getTotalHits());
+        return new PostSearchResult(results, hits.getTotalHits(), page, pageSize);
     }
 
-    public List<Post> getUserPostsIfSubscribed(Long userId) {
+    /**
+     * Запускает перестройку поискового индекса из базы в фоне.
+     * @return false, если перестройка уже выполняется
+     */
+    public boolean rebuildSearchIndex() {
+        return postSearchIndex.rebuildAsync();
+    }
+
+    /**
+     * Страница постов автора при активной подписке.
+     * @param cursor курсор из предыдущей страницы или null для первой страницы
+     * @param limit запрошенный размер страницы; null означает размер по умолчанию,
+     *              значения больше максимума обрезаются
+     * @throws IllegalArgumentException если курсор повреждён
+     */
+    public PostPage getUserPostsIfSubscribed(Long userId, String cursor, Integer limit) {
         logger.info("Checking if user with ID: {} has an active subscription", userId);
 
         if (!checkSubscription(userId)) {
             logger.info("User with ID: {} does not have an active subscription", userId);
-            return List.of();
+            return new PostPage(List.of(), null);
+        }
+
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        // Запрашиваем на одну запись больше, чтобы узнать, есть ли следующая страница
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<PostView> userPosts;
+        if (cursor == null || cursor.isBlank()) {
+            userPosts = postRepository.findFirstPageByAuthorId(userId, page);
+        } else {
+            PostCursor after = PostCursor.decode(cursor);
+            userPosts = postRepository.findPageByAuthorIdAfter(userId, after.getCreatedAt(), after.getId(), page);
         }
 
-        List<Post> userPosts = postRepository.findAllByAuthorId(userId);
+        String nextCursor = null;
+        if (userPosts.size() > pageSize) {
+            userPosts = userPosts.subList(0, pageSize);
+            PostView last = userPosts.get(pageSize - 1);
+            nextCursor = new PostCursor(last.getCreatedAt(), last.getId()).encode();
+        }
         logger.info("Found {} posts for user with ID: {}", userPosts.size(), userId);
 
-        return userPosts;
+        return new PostPage(userPosts, nextCursor);
+    }
+
+    /**
+     * ETag текста поста для условного GET: ID и версия поста, которая растёт при каждой правке текста.
+     * Пост обычно берётся из кэша второго уровня, поэтому проверка не читает ни текст, ни базу.
+     * Слабый, как и ETag списка: сильный ETag запретил бы Tomcat сжимать ответ.
+     * @return ETag или null, если поста нет
+     */
+    public String getPostContentETag(Long postId) {
+        return postRepository.findById(postId)
+                .map(post -> "W/\"" + Long.toHexString(post.getId()) + "-"
+                        + Long.toHexString(post.getVersion()) + "\"")
+                .orElse(null);
+    }
+
+    /**
+     * Текст поста, распакованный, если он хранится сжатым.
+     * @return пусто, если поста нет
+     */
+    public Optional<String> getPostContent(Long postId) {
+        return postBodyStore.findContent(postId);
+    }
+
+    /**
+     * ETag списка постов автора для условного GET: строится по сводной версии постов,
+     * сами посты не читаются. Если ETag совпал с If-None-Match, ответ 304 можно отдать сразу.
+     * @return слабый ETag или null, если активной подписки нет (тогда отдаётся обычный ответ)
+     */
+    public String getUserPostsETag(Long userId) {
+        if (!checkSubscription(userId)) {
+            return null;
+        }
+        return postRepository.findListVersionByAuthorId(userId).toETag();
     }
 
     private boolean checkSubscription(Long userId) {
-        logger.info("Simulating subscription check for user with ID: {}", userId);
-        return true;
+        return subscriptionCache.hasActiveSubscription(userId);
     }
 
-    public void generatePostsReport(String filePath) {
-        logger.info("Generating XLS report for all posts");
+    /**
+     * Пишет XLSX-отчёт по всем постам в переданный поток.
+     * Посты читаются страницами по ID сразу в строки отчёта (без сущностей и авторов),
+     * а строки книги сбрасываются на диск, поэтому объём памяти не зависит от числа постов.
+     */
+    public void generatePostsReport(OutputStream out) {
+        generatePostsReport(out, rows -> { });
+    }
 
-        List<Post> posts = postRepository.findAll();
-
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Posts Report");
-
-            // Header row
-            Row headerRow = sheet.createRow(0);
-            headerRow.createCell(0).setCellValue("ID");
-            headerRow.createCell(1).setCellValue("Title");
-            headerRow.createCell(2).setCellValue("Content");
-            headerRow.createCell(3).setCellValue("Created At");
-
-            // Data rows
-            int rowNum = 1;
-            for (Post post : posts) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(post.getId());
-                row.createCell(1).setCellValue(post.getTitle());
-                row.createCell(2).setCellValue(post.getContent());
-                row.createCell(3).setCellValue(post.getCreatedAt().toString());
-            }
+    /**
+     * То же, с отчётом о ходе работы.
+     * @param progress получает число записанных строк после каждой страницы
+     */
+    // Таймер только здесь: сюда приходят фоновые задачи отчёта, а вызов из перегрузки выше идёт мимо прокси
+    @Timed("posts.report.generation")
+    public void generatePostsReport(OutputStream out, LongConsumer progress) {
+        logger.info("Generating XLS report for all posts");
 
-            // Write to file
-            try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
-                workbook.write(fileOut);
-            }
+        try (PostsReportWriter writer = new PostsReportWriter(reportRowWindow)) {
+            PageRequest page = PageRequest.of(0, reportPageSize);
+            long lastId = 0;
+            List<PostReportRow> posts;
+            do {
+                posts = postRepository.findReportRowsAfter(lastId, page);
+                for (PostReportRow post : posts) {
+                    writer.writeRow(post);
+                }
+                if (!posts.isEmpty()) {
+                    lastId = posts.get(posts.size() - 1).getId();
+                }
+                progress.accept(writer.getRowCount());
+            } while (posts.size() == reportPageSize);
 
-            logger.info("XLS report generated successfully at: {}", filePath);
+            writer.writeTo(out);
+            logger.info("XLS report generated successfully with {} rows", writer.getRowCount());
         } catch (IOException e) {
             logger.error("Error generating XLS report: {}", e.getMessage(), e);
             throw new RuntimeException("Error generating XLS report", e);
         }
     }
-}
\ No newline at end of file
+}
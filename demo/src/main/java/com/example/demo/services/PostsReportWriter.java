@@ -0,0 +1,70 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostReportRow;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Пишет отчёт по постам в XLSX через SXSSF: в памяти держится только окно
+ * из последних {@code rowWindow} строк, остальные сбрасываются во временный файл.
+ */
+public class PostsReportWriter implements Closeable {
+
+    // Ячейка XLSX вмещает не больше 32 767 символов; более длинные тексты обрезаются, иначе POI бросает исключение
+    private static final int MAX_CELL_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+    private final SXSSFWorkbook workbook;
+    private final Sheet sheet;
+    private int rowNum;
+
+    public PostsReportWriter(int rowWindow) {
+        this.workbook = new SXSSFWorkbook(rowWindow);
+        this.workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet("Posts Report");
+
+        // Header row
+        Row headerRow = sheet.createRow(rowNum++);
+        headerRow.createCell(0).setCellValue("ID");
+        headerRow.createCell(1).setCellValue("Title");
+        headerRow.createCell(2).setCellValue("Content");
+        headerRow.createCell(3).setCellValue("Created At");
+    }
+
+    public void writeRow(PostReportRow post) {
+        Row row = sheet.createRow(rowNum++);
+        row.createCell(0).setCellValue(post.getId());
+        row.createCell(1).setCellValue(post.getTitle());
+        row.createCell(2).setCellValue(truncate(post.getContent()));
+        row.createCell(3).setCellValue(post.getCreatedAt().toString());
+    }
+
+    private static String truncate(String text) {
+        if (text == null || text.length() <= MAX_CELL_LENGTH) {
+            return text;
+        }
+        // Не разрезаем суррогатную пару
+        int end = Character.isHighSurrogate(text.charAt(MAX_CELL_LENGTH - 1)) ? MAX_CELL_LENGTH - 1 : MAX_CELL_LENGTH;
+        return text.substring(0, end);
+    }
+
+    public int getRowCount() {
+        return rowNum - 1;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        workbook.write(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Удаляем временные файлы SXSSF до закрытия книги
+        workbook.dispose();
+        workbook.close();
+    }
+}
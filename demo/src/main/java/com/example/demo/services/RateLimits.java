@@ -0,0 +1,124 @@
+package com.example.demo.services;
+
+import com.example.demo.utils.RateLimiter;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Именованные лимиты частоты запросов. Лимит {@code name} задаётся свойствами
+ * {@code app.rate-limit.<name>.permits} и {@code app.rate-limit.<name>.period}: не больше permits
+ * запросов подряд, дальше по одному на period / permits. Ключ внутри лимита — пользователь,
+ * IP-адрес или WebSocket-сессия, у каждого ключа своё ведро токенов.
+ */
+@Service
+public class RateLimits implements MeterBinder {
+
+    public static final String POSTS_CREATE = "posts-create";
+    public static final String POSTS_BATCH = "posts-batch";
+    public static final String LOGIN = "login";
+    public static final String REPORT = "report";
+    public static final String WEBSOCKET = "websocket";
+
+    private static final List<String> NAMES = List.of(POSTS_CREATE, POSTS_BATCH, LOGIN, REPORT, WEBSOCKET);
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimits.class);
+
+    private final Map<String, Limited> limits = new LinkedHashMap<>();
+    private final boolean enabled;
+
+    @Autowired
+    public RateLimits(Environment environment,
+                      @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                      @Value("${app.rate-limit.max-keys:100000}") long maximumKeys) {
+        this(limitsFrom(environment), enabled, maximumKeys, Ticker.systemTicker());
+    }
+
+    public RateLimits(Map<String, Limit> limits, boolean enabled, long maximumKeys, Ticker ticker) {
+        this.enabled = enabled;
+        limits.forEach((name, limit) -> this.limits.put(name,
+                new Limited(new RateLimiter<>(limit.permits(), limit.period(), maximumKeys, ticker))));
+        if (enabled) {
+            logger.info("Rate limits: {}", limits);
+        } else {
+            logger.info("Rate limiting is disabled");
+        }
+    }
+
+    /**
+     * Списывает запрос с лимита ключа. Лимит без настроек не ограничивает.
+     *
+     * @return 0, если запрос разрешён, иначе через сколько наносекунд повторить
+     */
+    public long tryAcquire(String name, String key) {
+        Limited limited = limits.get(name);
+        if (!enabled || limited == null) {
+            return 0;
+        }
+        long wait = limited.limiter.tryAcquire(key);
+        if (wait > 0) {
+            limited.rejected.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Забывает ключ, который больше не появится, например закрытую WebSocket-сессию.
+     */
+    public void release(String name, String key) {
+        Limited limited = limits.get(name);
+        if (limited != null) {
+            limited.limiter.remove(key);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        limits.forEach((name, limited) -> {
+            FunctionCounter.builder("rate.limit.rejected", limited.rejected, LongAdder::sum)
+                    .description("Requests rejected by the rate limit")
+                    .tag("limit", name)
+                    .register(registry);
+            Gauge.builder("rate.limit.keys", limited.limiter, RateLimiter::size)
+                    .description("Users, addresses or sessions tracked by the rate limit")
+                    .tag("limit", name)
+                    .register(registry);
+        });
+    }
+
+    private static Map<String, Limit> limitsFrom(Environment environment) {
+        Map<String, Limit> limits = new LinkedHashMap<>();
+        for (String name : NAMES) {
+            Integer permits = environment.getProperty("app.rate-limit." + name + ".permits", Integer.class);
+            Duration period = environment.getProperty("app.rate-limit." + name + ".period", Duration.class);
+            if (permits != null && period != null) {
+                limits.put(name, new Limit(permits, period));
+            }
+        }
+        return limits;
+    }
+
+    public record Limit(int permits, Duration period) {
+    }
+
+    private record Limited(RateLimiter<String> limiter, LongAdder rejected) {
+
+        Limited(RateLimiter<String> limiter) {
+            this(limiter, new LongAdder());
+        }
+    }
+}
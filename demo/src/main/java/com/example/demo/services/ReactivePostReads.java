@@ -0,0 +1,170 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostView;
+import com.example.demo.dto.SubscriptionStatus;
+import com.example.demo.utils.PostCursor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.Readable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+
+/**
+ * Неблокирующее чтение постов автора и статуса подписки через R2DBC, включается {@code app.reactive.enabled}.
+ *
+ * Читает ту же базу H2, что и JPA, своим пулом соединений ({@code app.reactive.pool-size}). Пул не
+ * объявлен бином: ConnectionFactory в контексте отключила бы DataSource и JPA. Запрос, ждущий соединения,
+ * не занимает поток; драйвер H2 выполняет сам запрос синхронно в потоке, который получил соединение.
+ *
+ * Записи (создание постов, подписок) идут только через обычный стек JPA. Статус подписки сначала ищется
+ * в {@link SubscriptionCache}; при промахе читается из базы и кладётся в тот же кэш.
+ */
+@Service
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactivePostReads implements MeterBinder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactivePostReads.class);
+
+    private static final String JDBC_H2_PREFIX = "jdbc:h2:";
+
+    // Как PostRepository.AUTHOR_POST_VIEW и AUTHOR_PAGE_ORDER: страница берётся из индекса idx_posts_author_created_id
+    private static final String AUTHOR_POSTS = "SELECT p.id, p.title, p.created_at, p.author_id, "
+            + "(SELECT a.name FROM users a WHERE a.id = :authorId) AS author_name FROM posts p "
+            + "WHERE p.author_id = :authorId";
+    private static final String AFTER_CURSOR =
+            " AND (p.created_at < :createdAt OR (p.created_at = :createdAt AND p.id < :id))";
+    private static final String AUTHOR_POSTS_ORDER =
+            " ORDER BY p.author_id DESC, p.created_at DESC, p.id DESC LIMIT :limit";
+
+    private final SubscriptionCache subscriptionCache;
+    private final ConnectionPool pool;
+    private final DatabaseClient database;
+    private final int defaultPageSize;
+    private final int maxStreamSize;
+
+    @Autowired
+    public ReactivePostReads(SubscriptionCache subscriptionCache,
+                             @Value("${spring.datasource.url}") String jdbcUrl,
+                             @Value("${spring.datasource.username:sa}") String username,
+                             @Value("${spring.datasource.password:}") String password,
+                             @Value("${app.reactive.pool-size:10}") int poolSize,
+                             @Value("${app.reactive.max-acquire-time:10s}") Duration maxAcquireTime,
+                             @Value("${app.posts.page.default-size:20}") int defaultPageSize,
+                             @Value("${app.reactive.max-stream-size:1000}") int maxStreamSize) {
+        if (!jdbcUrl.startsWith(JDBC_H2_PREFIX)) {
+            throw new IllegalStateException("Reactive reads support only H2, spring.datasource.url is " + jdbcUrl);
+        }
+        this.subscriptionCache = subscriptionCache;
+        this.defaultPageSize = defaultPageSize;
+        this.maxStreamSize = maxStreamSize;
+        H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(jdbcUrl.substring(JDBC_H2_PREFIX.length()))
+                .username(username)
+                .password(password)
+                .build());
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("reactive-reads")
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+        this.database = DatabaseClient.create(pool);
+        logger.info("ReactivePostReads initialized with {} connections to {}", poolSize, jdbcUrl);
+    }
+
+    /**
+     * Дата окончания подписки пользователя; пустой Mono, если подписки нет.
+     */
+    public Mono<SubscriptionStatus> getSubscription(Long userId) {
+        return expiryDate(userId)
+                .flatMap(expiryDate -> Mono.justOrEmpty(expiryDate.map(date ->
+                        new SubscriptionStatus(userId, date, subscriptionCache.isActive(expiryDate)))));
+    }
+
+    public Mono<Boolean> hasActiveSubscription(Long userId) {
+        return expiryDate(userId).map(subscriptionCache::isActive);
+    }
+
+    /**
+     * Посты автора от новых к старым, строго после курсора, по одному по мере запроса подписчиком.
+     * Соединение занято, пока поток не дочитан до конца или не отменён.
+     * @param cursor курсор {@link PostCursor} последнего полученного поста или null, чтобы начать с самого нового
+     * @param limit сколько постов отдать; null означает размер страницы по умолчанию,
+     *              значения больше {@code app.reactive.max-stream-size} обрезаются
+     * @throws IllegalArgumentException если курсор повреждён
+     */
+    public Flux<PostView> getUserPosts(Long authorId, String cursor, Integer limit) {
+        int size = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxStreamSize));
+        PostCursor after = cursor == null || cursor.isBlank() ? null : PostCursor.decode(cursor);
+        DatabaseClient.GenericExecuteSpec query = database
+                .sql(AUTHOR_POSTS + (after == null ? "" : AFTER_CURSOR) + AUTHOR_POSTS_ORDER)
+                .bind("authorId", authorId)
+                .bind("limit", size);
+        if (after != null) {
+            query = query.bind("createdAt", after.getCreatedAt()).bind("id", after.getId());
+        }
+        return query.map(ReactivePostReads::toPostView).all();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        poolGauge(registry, "reactive.pool.acquired", "Connections in use", PoolMetrics::acquiredSize);
+        poolGauge(registry, "reactive.pool.pending", "Requests waiting for a connection",
+                PoolMetrics::pendingAcquireSize);
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+        logger.info("ReactivePostReads connection pool closed");
+    }
+
+    /**
+     * Статус подписки: из кэша без обращения к базе или запросом в обход загрузчика кэша.
+     */
+    private Mono<Optional<LocalDateTime>> expiryDate(Long userId) {
+        Optional<LocalDateTime> cached = subscriptionCache.getIfPresent(userId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        long generation = subscriptionCache.generation();
+        // Продление добавляет новую строку, поэтому, как и загрузчик кэша, берём самую позднюю дату
+        return database.sql("SELECT MAX(expiry_date) AS expiry_date FROM subscriptions WHERE user_id = :userId")
+                .bind("userId", userId)
+                .map(row -> Optional.ofNullable(row.get("expiry_date", LocalDateTime.class)))
+                .one()
+                .doOnNext(expiryDate -> subscriptionCache.putLoaded(userId, expiryDate, generation));
+    }
+
+    private void poolGauge(MeterRegistry registry, String name, String description,
+                           ToIntFunction<PoolMetrics> value) {
+        Gauge.builder(name, pool, p -> p.getMetrics().map(value::applyAsInt).orElse(0))
+                .description(description)
+                .register(registry);
+    }
+
+    private static PostView toPostView(Readable row) {
+        return new PostView(row.get("id", Long.class), row.get("title", String.class),
+                row.get("created_at", LocalDateTime.class), row.get("author_id", Long.class),
+                row.get("author_name", String.class));
+    }
+}
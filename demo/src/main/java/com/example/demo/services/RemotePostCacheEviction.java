@@ -0,0 +1,62 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostEvent;
+import com.example.demo.dto.PostView;
+import com.example.demo.entities.Post;
+import com.example.demo.repositories.PostRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Сбрасывает кэш второго уровня этого узла после записей постов на других узлах.
+ *
+ * Кэш у каждого узла свой, и Hibernate обновляет его только при записях через этот узел.
+ * Без сброса узел отдавал бы прежнюю версию поста до истечения записи: устаревшие ETag, 304
+ * на изменённый текст и 409 на каждую правку. Посты из события удаляются из региона сущностей,
+ * а регионы запросов по постам очищаются целиком — так же локальная запись делает их результаты
+ * устаревшими через метки времени таблицы. Устаревание ограничено интервалом опроса outbox.
+ *
+ * Вызывается раньше остальных получателей, чтобы клиент, получивший уведомление, прочитал уже новую версию.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RemotePostCacheEviction implements PostEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemotePostCacheEviction.class);
+
+    private static final List<String> POST_QUERY_REGIONS = List.of(
+            PostRepository.POSTS_BY_AUTHOR_REGION,
+            PostRepository.POST_LIST_VERSION_REGION,
+            PostRepository.POST_REPORT_VERSION_REGION);
+
+    private final Cache cache;
+
+    @Autowired
+    public RemotePostCacheEviction(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    @Override
+    public void onPostEvent(PostEvent event) {
+        // Свои записи Hibernate уже отразил в кэше при коммите
+    }
+
+    @Override
+    public void onRemotePostEvent(PostEvent event) {
+        for (PostView post : event.getPosts()) {
+            cache.evictEntityData(Post.class, post.getId());
+        }
+        POST_QUERY_REGIONS.forEach(cache::evictQueryRegion);
+        logger.debug("Evicted {} posts and post query regions after a {} event from another node",
+                event.getPosts().size(), event.getType());
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.services;
+
+import com.example.demo.services.WebSocketService.SlowConsumerPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченная очередь исходящих сообщений одной WebSocket-сессии.
+ *
+ * Сообщения добавляются без блокировок, а отправляет их не более одной задачи на пуле отправки
+ * одновременно, поэтому порядок сообщений в сессии сохраняется. Если очередь переполнена
+ * или текущая отправка идёт дольше лимита, клиент считается медленным и к нему применяется
+ * {@link SlowConsumerPolicy}. Саму отправку по тому же лимиту прерывает контейнер
+ * (см. {@link WebSocketService#addSession}), поэтому зависший клиент не держит поток пула дольше лимита.
+ */
+class SessionOutbound implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionOutbound.class);
+
+    // Сколько сообщений отправить за один запуск, прежде чем уступить поток другим сессиям
+    private static final int MAX_MESSAGES_PER_RUN = 64;
+
+    private final WebSocketSession session;
+    private final Executor sender;
+    private final Limits limits;
+    private final Runnable onClose;
+
+    private final Queue<TextMessage> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedMessages = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile long sendStartedAt;
+
+    SessionOutbound(WebSocketSession session, Executor sender, Limits limits, Runnable onClose) {
+        this.session = session;
+        this.sender = sender;
+        this.limits = limits;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Ставит сообщение в очередь сессии, не дожидаясь отправки.
+     */
+    void enqueue(TextMessage message) {
+        if (closed.get()) {
+            return;
+        }
+        if (!session.isOpen()) {
+            close(null);
+            return;
+        }
+        long sendStarted = sendStartedAt;
+        if (sendStarted != 0 && System.currentTimeMillis() - sendStarted > limits.sendTimeLimitMs) {
+            logger.warn("Closing WebSocket session {}: send time limit of {} ms exceeded",
+                    session.getId(), limits.sendTimeLimitMs);
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            return;
+        }
+        int length = message.getPayloadLength();
+        if (isFull(length)) {
+            if (limits.policy == SlowConsumerPolicy.DISCONNECT) {
+                logger.warn("Closing WebSocket session {}: outbound queue is full", session.getId());
+                close(CloseStatus.SESSION_NOT_RELIABLE);
+                return;
+            }
+            dropOldestUntilFits(length);
+        }
+        queue.offer(message);
+        queuedMessages.incrementAndGet();
+        queuedBytes.addAndGet(length);
+        schedule();
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int sent = 0; sent < MAX_MESSAGES_PER_RUN && !closed.get(); sent++) {
+                TextMessage message = poll();
+                if (message == null) {
+                    break;
+                }
+                sendStartedAt = System.currentTimeMillis();
+                try {
+                    session.sendMessage(message);
+                } catch (Exception e) {
+                    logger.warn("Failed to send message to WebSocket session {}", session.getId(), e);
+                    close(CloseStatus.SERVER_ERROR);
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            if (!queue.isEmpty() && !closed.get()) {
+                schedule();
+            }
+        }
+    }
+
+    private boolean isFull(int length) {
+        return queuedMessages.get() >= limits.queueCapacity || queuedBytes.get() + length > limits.bufferSizeLimit;
+    }
+
+    private void dropOldestUntilFits(int length) {
+        int dropped = 0;
+        while (isFull(length) && poll() != null) {
+            dropped++;
+        }
+        if (dropped > 0) {
+            logger.debug("Dropped {} oldest messages for slow WebSocket session {}", dropped, session.getId());
+        }
+    }
+
+    private TextMessage poll() {
+        TextMessage message = queue.poll();
+        if (message != null) {
+            queuedMessages.decrementAndGet();
+            queuedBytes.addAndGet(-message.getPayloadLength());
+        }
+        return message;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            sender.execute(this);
+        }
+    }
+
+    private void close(CloseStatus status) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        queue.clear();
+        onClose.run();
+        if (status != null && session.isOpen()) {
+            try {
+                session.close(status);
+            } catch (Exception e) {
+                logger.debug("Failed to close WebSocket session {}", session.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Лимиты очереди исходящих сообщений, общие для всех сессий.
+     */
+    static final class Limits {
+
+        final int queueCapacity;
+        final long bufferSizeLimit;
+        final long sendTimeLimitMs;
+        final SlowConsumerPolicy policy;
+
+        Limits(int queueCapacity, long bufferSizeLimit, long sendTimeLimitMs, SlowConsumerPolicy policy) {
+            this.queueCapacity = queueCapacity;
+            this.bufferSizeLimit = bufferSizeLimit;
+            this.sendTimeLimitMs = sendTimeLimitMs;
+            this.policy = policy;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.services;
+
+import com.example.demo.repositories.SubscriptionRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Кэш статуса подписки по ID пользователя.
+ *
+ * Активная подписка хранится в кэше ровно до своего expiryDate, отсутствующая или истёкшая —
+ * короткое время {@code app.subscription-cache.negative-ttl}. Одновременные промахи по одному
+ * пользователю ждут одну общую загрузку из базы.
+ */
+@Service
+public class SubscriptionCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionCache.class);
+
+    private final LoadingCache<Long, Optional<LocalDateTime>> cache;
+    private final Clock clock;
+    private final Duration negativeTtl;
+    private long generation;
+
+    @Autowired
+    public SubscriptionCache(SubscriptionRepository subscriptionRepository,
+                             @Value("${app.subscription-cache.maximum-size:100000}") long maximumSize,
+                             @Value("${app.subscription-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this(subscriptionRepository, maximumSize, negativeTtl, Ticker.systemTicker(), Clock.systemDefaultZone());
+    }
+
+    public SubscriptionCache(SubscriptionRepository subscriptionRepository, long maximumSize, Duration negativeTtl,
+                             Ticker ticker, Clock clock) {
+        this.clock = clock;
+        this.negativeTtl = negativeTtl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilExpiryDate())
+                .ticker(ticker)
+                .recordStats()
+                .build(subscriptionRepository::findLatestExpiryDateByUserId);
+        logger.info("SubscriptionCache initialized with maximum size {}", maximumSize);
+    }
+
+    public boolean hasActiveSubscription(Long userId) {
+        return isActive(cache.get(userId));
+    }
+
+    /**
+     * Запись кэша без загрузки из базы, для читателей, которые загружают статус сами (реактивный путь).
+     * @return null при промахе, иначе дата окончания подписки (пустая, если подписки нет)
+     */
+    public Optional<LocalDateTime> getIfPresent(Long userId) {
+        return cache.getIfPresent(userId);
+    }
+
+    /**
+     * Поколение кэша: растёт при каждой инвалидации. Снимается до чтения статуса в обход кэша
+     * и передаётся в {@link #putLoaded}.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Кладёт в кэш статус, прочитанный из базы в обход загрузчика. Если с момента generation была инвалидация,
+     * чтение могло застать подписку до изменения, и запись не сохраняется: иначе устаревший статус
+     * прожил бы до конца своего срока.
+     */
+    public void putLoaded(Long userId, Optional<LocalDateTime> expiryDate, long generation) {
+        synchronized (this) {
+            if (generation == this.generation) {
+                cache.asMap().putIfAbsent(userId, expiryDate);
+            }
+        }
+    }
+
+    public boolean isActive(Optional<LocalDateTime> expiryDate) {
+        return expiryDate.filter(this::isInFuture).isPresent();
+    }
+
+    public void invalidate(Long userId) {
+        synchronized (this) {
+            generation++;
+            cache.invalidate(userId);
+        }
+        logger.info("Subscription cache entry invalidated for user ID: {}", userId);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Набор тегов как у регионов Hibernate (cache.manager), иначе Prometheus отбросит эти метрики;
+        // имя отличается от региона сущностей subscriptions
+        CaffeineCacheMetrics.monitor(registry, cache, "subscription-status", Tags.of("cache.manager", "app"));
+    }
+
+    private boolean isInFuture(LocalDateTime expiryDate) {
+        return expiryDate.isAfter(LocalDateTime.now(clock));
+    }
+
+    /**
+     * Время жизни записи: до окончания подписки, а для отсутствующей или истёкшей — negative TTL.
+     */
+    private final class UntilExpiryDate implements Expiry<Long, Optional<LocalDateTime>> {
+
+        @Override
+        public long expireAfterCreate(Long userId, Optional<LocalDateTime> expiryDate, long currentTime) {
+            return expiryDate.filter(SubscriptionCache.this::isInFuture)
+                    .map(date -> Duration.between(LocalDateTime.now(clock), date))
+                    .orElse(negativeTtl)
+                    .toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, Optional<LocalDateTime> expiryDate, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(userId, expiryDate, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, Optional<LocalDateTime> expiryDate, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -4,21 +4,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.example.demo.entities.Subscription;
 import com.example.demo.repositories.SubscriptionRepository;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
 @Service
+@Timed("service.method")
 public class SubscriptionService {
 
     private static final Logger logger = LoggerFactory.getLogger(SubscriptionService.class);
 
     private final SubscriptionRepository subscriptionRepository;
+    private final SubscriptionCache subscriptionCache;
 
     @Autowired
-    public SubscriptionService(SubscriptionRepository subscriptionRepository) {
+    public SubscriptionService(SubscriptionRepository subscriptionRepository, SubscriptionCache subscriptionCache) {
         this.subscriptionRepository = subscriptionRepository;
+        this.subscriptionCache = subscriptionCache;
         logger.info("SubscriptionService initialized");
     }
 
@@ -26,6 +31,7 @@ public class SubscriptionService {
         logger.info("Attempting to create a subscription for user with ID: {}", subscription.getUser().getId());
         try {
             Subscription savedSubscription = subscriptionRepository.save(subscription);
+            subscriptionCache.invalidate(savedSubscription.getUser().getId());
             logger.info("Subscription created successfully with ID: {}, expiryDate: {}", 
                         savedSubscription.getId(), savedSubscription.getExpiryDate());
             return savedSubscription;
@@ -38,7 +44,7 @@ public class SubscriptionService {
     public Subscription getSubscription(Long userId) {
         logger.info("Attempting to get subscription information for user ID: {}", userId);
         try {
-            Optional<Subscription> subscriptionOpt = subscriptionRepository.findByUser_Id(userId);
+            Optional<Subscription> subscriptionOpt = subscriptionRepository.findFirstByUser_IdOrderByExpiryDateDesc(userId);
             if (subscriptionOpt.isEmpty()) {
                 logger.error("Subscription not found for user ID: {}", userId);
                 throw new RuntimeException("Subscription not found");
@@ -52,4 +58,12 @@ public class SubscriptionService {
             throw e;
         }
     }
+
+    public CacheStats getCacheStats() {
+        return subscriptionCache.stats();
+    }
+
+    public long getCacheSize() {
+        return subscriptionCache.size();
+    }
 }
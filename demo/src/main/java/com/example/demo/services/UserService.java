@@ -5,26 +5,36 @@ import org.slf4j.LoggerFactory;
 import com.example.demo.entities.User;
 import com.example.demo.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
 @Service
+@Timed("service.method")
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
+    private final EmailAvailabilityFilter emailFilter;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, EmailAvailabilityFilter emailFilter) {
         this.userRepository = userRepository;
+        this.emailFilter = emailFilter;
         logger.info("UserService initialized");
     }
 
     /**
-     * Проверяем, существует ли пользователь по email
+     * Проверяем, существует ли пользователь по email.
+     * Если фильтр Блума отвечает «точно нет», запрос к базе не выполняется.
      */
     public boolean existsByEmail(String email) {
         logger.info("Checking existence of user with email: {}", email);
+        if (!emailFilter.mightBeRegistered(email)) {
+            logger.info("User with email {} is absent according to email filter", email);
+            return false;
+        }
         try {
             boolean exists = userRepository.existsByEmailNative(email);
+            emailFilter.recordLookup(exists);
             logger.info("User with email {} exists: {}", email, exists);
             return exists;
         } catch (Exception e) {
@@ -40,6 +50,7 @@ public class UserService {
         logger.info("Creating user with email: {}", user.getEmail());
         try {
             User createdUser = userRepository.save(user);
+            emailFilter.recordRegistered(createdUser.getEmail());
             logger.info("User created successfully with ID: {}", createdUser.getId());
             return createdUser;
         } catch (Exception e) {
@@ -1,34 +1,371 @@
 package com.example.demo.services;
 
+import com.example.demo.utils.ThreadPools;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.websocket.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
+/**
+ * Рассылка сообщений подключённым WebSocket-сессиям.
+ *
+ * Сессии подписываются на темы; публикация в тему обходит только её подписчиков
+ * по индексу тема → сессии, поэтому её стоимость не зависит от общего числа подключений.
+ * Вызывающий поток только передаёт сообщение потоку рассылки и сразу возвращается.
+ * Поток рассылки раскладывает сообщение по очередям сессий ({@link SessionOutbound}),
+ * а сами отправки выполняются на отдельном пуле, по одной задаче на сессию,
+ * поэтому медленный клиент не задерживает остальных. С виртуальными потоками
+ * ({@code spring.threads.virtual.enabled}) у каждой отправляющей задачи свой поток.
+ *
+ * Очередь потока рассылки ограничена {@code app.websocket.fan-out-queue-capacity}. Если рассылки
+ * приходят быстрее, чем раскладываются, самая старая из ожидающих отбрасывается — как
+ * {@link SlowConsumerPolicy#DROP_OLDEST} в очереди сессии: уведомления о постах устаревают быстрее,
+ * чем копятся. Глубина очереди — метрика {@code websocket.fan-out.queue},
+ * отброшенные рассылки — {@code websocket.fan-out.dropped}.
+ */
 @Service
-public class WebSocketService {
+public class WebSocketService implements DisposableBean, MeterBinder {
 
-    private final Set<WebSocketSession> sessions = Collections.synchronizedSet(new HashSet<>());
+    /**
+     * Что делать с клиентом, который не успевает забирать сообщения.
+     */
+    public enum SlowConsumerPolicy {
+        /** Отбросить самые старые сообщения из очереди сессии. */
+        DROP_OLDEST,
+        /** Закрыть сессию. */
+        DISCONNECT
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketService.class);
+
+    static final int DEFAULT_FAN_OUT_QUEUE_CAPACITY = 10_000;
+
+    // Таймаут блокирующей отправки Tomcat в миллисекундах, читается из свойств сессии при каждой отправке
+    static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    // Итерация по ConcurrentHashMap не берёт блокировок, подключение и отключение не ждут рассылку
+    private final ConcurrentMap<String, SessionOutbound> sessions = new ConcurrentHashMap<>();
+
+    // Индекс подписок. Пустые темы удаляются; изменения идут через compute, чтобы подписка
+    // не попала в набор, который одновременно удаляется из индекса
+    private final ConcurrentMap<String, Set<SessionOutbound>> topics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> sessionTopics = new ConcurrentHashMap<>();
+
+    // Один поток сохраняет порядок рассылок: сообщения попадают в очереди сессий в порядке вызова
+    private final ThreadPoolExecutor fanOut;
+    private final LongAdder fanOutDropped = new LongAdder();
+    private final ExecutorService sender;
+    private final SessionOutbound.Limits limits;
+    private final int maxTopicsPerSession;
+    private volatile Timer fanOutTimer;
+    private volatile Timer publishTimer;
+
+    @Autowired
+    public WebSocketService(@Value("${app.websocket.sender-threads:8}") int senderThreads,
+                            @Value("${app.websocket.queue-capacity:256}") int queueCapacity,
+                            @Value("${app.websocket.buffer-size-limit:524288}") int bufferSizeLimit,
+                            @Value("${app.websocket.send-time-limit-ms:5000}") int sendTimeLimitMs,
+                            @Value("${app.websocket.slow-consumer-policy:DROP_OLDEST}") SlowConsumerPolicy policy,
+                            @Value("${app.websocket.max-topics-per-session:100}") int maxTopicsPerSession,
+                            @Value("${app.websocket.fan-out-queue-capacity:10000}") int fanOutQueueCapacity,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this(ThreadPools.newPool("ws-send-", senderThreads, virtualThreads),
+                queueCapacity, bufferSizeLimit, sendTimeLimitMs, policy, maxTopicsPerSession, fanOutQueueCapacity);
+    }
+
+    public WebSocketService(ExecutorService sender, int queueCapacity, int bufferSizeLimit, int sendTimeLimitMs,
+                            SlowConsumerPolicy policy, int maxTopicsPerSession) {
+        this(sender, queueCapacity, bufferSizeLimit, sendTimeLimitMs, policy, maxTopicsPerSession,
+                DEFAULT_FAN_OUT_QUEUE_CAPACITY);
+    }
+
+    public WebSocketService(ExecutorService sender, int queueCapacity, int bufferSizeLimit, int sendTimeLimitMs,
+                            SlowConsumerPolicy policy, int maxTopicsPerSession, int fanOutQueueCapacity) {
+        this.fanOut = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fanOutQueueCapacity), new CustomizableThreadFactory("ws-fan-out-"),
+                this::dropOldestFanOut);
+        this.sender = sender;
+        this.limits = new SessionOutbound.Limits(queueCapacity, bufferSizeLimit, sendTimeLimitMs, policy);
+        this.maxTopicsPerSession = maxTopicsPerSession;
+        logger.info("WebSocketService initialized with slow consumer policy {}", policy);
+    }
 
     public void addSession(WebSocketSession session) {
-        sessions.add(session);
+        String id = session.getId();
+        limitBlockingSend(session);
+        sessions.put(id, new SessionOutbound(session, sender, limits, () -> removeSession(id)));
+    }
+
+    /**
+     * Ограничивает одну блокирующую отправку лимитом send-time-limit-ms. Без этого отправка клиенту,
+     * который перестал читать, держит поток пула до таймаута Tomcat (20 с на кадр), и несколько
+     * таких клиентов занимают все потоки отправки. По таймауту отправка падает и сессия закрывается.
+     */
+    private void limitBlockingSend(WebSocketSession session) {
+        if (WebSocketSessionDecorator.unwrap(session) instanceof NativeWebSocketSession nativeSession) {
+            Session container = nativeSession.getNativeSession(Session.class);
+            if (container != null) {
+                container.getUserProperties().put(BLOCKING_SEND_TIMEOUT, limits.sendTimeLimitMs);
+            }
+        }
     }
 
     public void removeSession(WebSocketSession session) {
-        sessions.remove(session);
+        removeSession(session.getId());
     }
 
-    public void sendMessageToAll(String message) {
-        sessions.forEach(session -> {
-            try {
-                if (session.isOpen()) {
-                    session.sendMessage(new org.springframework.web.socket.TextMessage(message));
+    private void removeSession(String sessionId) {
+        SessionOutbound outbound = sessions.remove(sessionId);
+        Set<String> subscribed = sessionTopics.remove(sessionId);
+        if (outbound != null && subscribed != null) {
+            for (String topic : subscribed) {
+                unindex(topic, outbound);
+            }
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Число тем, на которые подписана хотя бы одна сессия.
+     */
+    public int getTopicCount() {
+        return topics.size();
+    }
+
+    /**
+     * Подписывает сессию на тему. Повторная подписка ничего не меняет.
+     * @return false, если сессия не подключена или уже подписана на максимум тем
+     */
+    public boolean subscribe(WebSocketSession session, String topic) {
+        SessionOutbound outbound = sessions.get(session.getId());
+        if (outbound == null) {
+            return false;
+        }
+        Set<String> subscribed = sessionTopics.computeIfAbsent(session.getId(), id -> ConcurrentHashMap.newKeySet());
+        if (!subscribed.contains(topic) && subscribed.size() >= maxTopicsPerSession) {
+            return false;
+        }
+        subscribed.add(topic);
+        topics.compute(topic, (key, subscribers) -> {
+            Set<SessionOutbound> result = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            result.add(outbound);
+            return result;
+        });
+        // Сессия могла закрыться между проверкой и добавлением в индекс
+        if (!sessions.containsKey(session.getId())) {
+            sessionTopics.remove(session.getId());
+            unindex(topic, outbound);
+            return false;
+        }
+        return true;
+    }
+
+    public void unsubscribe(WebSocketSession session, String topic) {
+        SessionOutbound outbound = sessions.get(session.getId());
+        Set<String> subscribed = sessionTopics.get(session.getId());
+        if (outbound == null || subscribed == null || !subscribed.remove(topic)) {
+            return;
+        }
+        unindex(topic, outbound);
+    }
+
+    private void unindex(String topic, SessionOutbound outbound) {
+        topics.computeIfPresent(topic, (key, subscribers) -> {
+            subscribers.remove(outbound);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    /**
+     * Ставит сообщение в очередь только одной сессии, например ответ на её команду.
+     */
+    public void sendTo(WebSocketSession session, String message) {
+        SessionOutbound outbound = sessions.get(session.getId());
+        if (outbound != null) {
+            TextMessage frame = new TextMessage(message);
+            fanOut.execute(() -> outbound.enqueue(frame));
+        }
+    }
+
+    /**
+     * Ставит сообщение в очередь подписчикам перечисленных тем и сразу возвращает управление.
+     * Сессия, подписанная на несколько из этих тем, получает сообщение один раз.
+     */
+    public void publish(Collection<String> targetTopics, String message) {
+        TextMessage frame = new TextMessage(message);
+        fanOut.execute(() -> {
+            long started = System.nanoTime();
+            if (targetTopics.size() == 1) {
+                Set<SessionOutbound> subscribers = topics.get(targetTopics.iterator().next());
+                if (subscribers != null) {
+                    for (SessionOutbound outbound : subscribers) {
+                        outbound.enqueue(frame);
+                    }
+                }
+            } else {
+                Set<SessionOutbound> delivered = new HashSet<>();
+                for (String topic : targetTopics) {
+                    Set<SessionOutbound> subscribers = topics.get(topic);
+                    if (subscribers == null) {
+                        continue;
+                    }
+                    for (SessionOutbound outbound : subscribers) {
+                        if (delivered.add(outbound)) {
+                            outbound.enqueue(frame);
+                        }
+                    }
+                }
+            }
+            Timer timer = publishTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * Публикует пачку элементов, разложенную по темам, одним сообщением на сессию.
+     * Сессия получает элементы всех своих тем из пачки, без повторов; сессии с одинаковым
+     * набором тем делят одно сообщение, поэтому {@code render} вызывается по разу на такой набор.
+     * Вызывается на потоке рассылки; если {@code render} вернул null, эти сессии ничего не получают.
+     * Возвращает управление сразу.
+     */
+    public <T> void publish(Map<String, List<T>> itemsByTopic, Function<List<T>, String> render) {
+        fanOut.execute(() -> {
+            long started = System.nanoTime();
+            Map<SessionOutbound, List<String>> matched = new HashMap<>();
+            for (String topic : itemsByTopic.keySet()) {
+                Set<SessionOutbound> subscribers = topics.get(topic);
+                if (subscribers == null) {
+                    continue;
+                }
+                for (SessionOutbound outbound : subscribers) {
+                    matched.computeIfAbsent(outbound, key -> new ArrayList<>(2)).add(topic);
+                }
+            }
+            // Темы добавлялись в порядке itemsByTopic, поэтому одинаковые наборы дают равные списки
+            Map<List<String>, TextMessage> frames = new HashMap<>();
+            matched.forEach((outbound, sessionTopics) -> {
+                TextMessage frame = frames.get(sessionTopics);
+                if (frame == null && !frames.containsKey(sessionTopics)) {
+                    String payload = render.apply(merge(itemsByTopic, sessionTopics));
+                    frame = payload == null ? null : new TextMessage(payload);
+                    frames.put(sessionTopics, frame);
+                }
+                if (frame != null) {
+                    outbound.enqueue(frame);
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
+            });
+            Timer timer = publishTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
             }
         });
     }
+
+    // Вызывается потоком, ставящим рассылку, когда очередь потока рассылки заполнена
+    private void dropOldestFanOut(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        if (executor.getQueue().poll() != null) {
+            fanOutDropped.increment();
+            logger.debug("Fan-out queue is full, dropped the oldest pending broadcast");
+        }
+        executor.execute(task);
+    }
+
+    private static <T> List<T> merge(Map<String, List<T>> itemsByTopic, List<String> sessionTopics) {
+        if (sessionTopics.size() == 1) {
+            return itemsByTopic.get(sessionTopics.get(0));
+        }
+        Set<T> merged = new LinkedHashSet<>();
+        for (String topic : sessionTopics) {
+            merged.addAll(itemsByTopic.get(topic));
+        }
+        return new ArrayList<>(merged);
+    }
+
+    /**
+     * Ставит сообщение в очередь на отправку всем открытым сессиям независимо от подписок
+     * и сразу возвращает управление. Для событий, адресованных подписчикам, используйте {@link #publish}.
+     */
+    public void sendMessageToAll(String message) {
+        TextMessage frame = new TextMessage(message);
+        fanOut.execute(() -> {
+            long started = System.nanoTime();
+            for (SessionOutbound outbound : sessions.values()) {
+                outbound.enqueue(frame);
+            }
+            Timer timer = fanOutTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("websocket.sessions", sessions, ConcurrentMap::size)
+                .description("Open WebSocket sessions")
+                .register(registry);
+        Gauge.builder("websocket.topics", topics, ConcurrentMap::size)
+                .description("Topics with at least one subscribed session")
+                .register(registry);
+        Gauge.builder("websocket.fan-out.queue", fanOut, executor -> executor.getQueue().size())
+                .description("Broadcasts waiting for the fan-out thread")
+                .register(registry);
+        FunctionCounter.builder("websocket.fan-out.dropped", fanOutDropped, LongAdder::sum)
+                .description("Broadcasts dropped because the fan-out queue was full")
+                .register(registry);
+        fanOutTimer = Timer.builder("websocket.broadcast.fan-out")
+                .description("Time to enqueue one broadcast to every session")
+                .register(registry);
+        publishTimer = Timer.builder("websocket.publish.fan-out")
+                .description("Time to enqueue one topic publication to its subscribers")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        fanOut.shutdown();
+        fanOut.awaitTermination(5, TimeUnit.SECONDS);
+        sender.shutdown();
+        if (!sender.awaitTermination(5, TimeUnit.SECONDS)) {
+            sender.shutdownNow();
+        }
+    }
 }
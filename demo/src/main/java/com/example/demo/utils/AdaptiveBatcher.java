@@ -0,0 +1,124 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Собирает элементы в пачки по временному окну и передаёт их обработчику.
+ *
+ * Первый элемент после паузы не ждёт: если с прошлой отправки прошло больше окна, пачка уходит сразу.
+ * Элементы, пришедшие раньше, копятся до конца окна или до {@code maxBatch} штук.
+ * Окно подстраивается под нагрузку: после пачки из нескольких элементов оно удваивается
+ * (не больше {@code maxWindow}), после одиночной отправки — уменьшается вдвое
+ * (не меньше {@code minWindow}), а после паузы длиннее {@code maxWindow} сбрасывается на минимум.
+ *
+ * Обработчик вызывается под блокировкой батчера, по одной пачке за раз и в порядке поступления,
+ * поэтому он должен быстро возвращать управление.
+ */
+public final class AdaptiveBatcher<T> {
+
+    private final Consumer<List<T>> sink;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier nanoTime;
+    private final long minWindowNanos;
+    private final long maxWindowNanos;
+    private final int maxBatch;
+
+    // Всё состояние ниже защищено монитором this
+    private List<T> pending = new ArrayList<>();
+    private long windowNanos;
+    private long lastFlushNanos;
+    private boolean flushScheduled;
+
+    public AdaptiveBatcher(Consumer<List<T>> sink, ScheduledExecutorService scheduler, long minWindow,
+                           long maxWindow, TimeUnit unit, int maxBatch) {
+        this(sink, scheduler, System::nanoTime, minWindow, maxWindow, unit, maxBatch);
+    }
+
+    public AdaptiveBatcher(Consumer<List<T>> sink, ScheduledExecutorService scheduler, LongSupplier nanoTime,
+                           long minWindow, long maxWindow, TimeUnit unit, int maxBatch) {
+        if (minWindow < 0 || maxWindow < minWindow) {
+            throw new IllegalArgumentException("Window must satisfy 0 <= min <= max");
+        }
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Max batch must be positive");
+        }
+        this.sink = sink;
+        this.scheduler = scheduler;
+        this.nanoTime = nanoTime;
+        this.minWindowNanos = unit.toNanos(minWindow);
+        this.maxWindowNanos = unit.toNanos(maxWindow);
+        this.maxBatch = maxBatch;
+        this.windowNanos = minWindowNanos;
+        this.lastFlushNanos = nanoTime.getAsLong() - maxWindowNanos;
+    }
+
+    public void add(T item) {
+        addAll(List.of(item));
+    }
+
+    /**
+     * Добавляет элементы; больше {@code maxBatch} штук уходят несколькими пачками.
+     */
+    public synchronized void addAll(Collection<? extends T> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        if (pending.isEmpty() && now - lastFlushNanos >= maxWindowNanos) {
+            windowNanos = minWindowNanos;
+        }
+        for (T item : items) {
+            pending.add(item);
+            if (pending.size() >= maxBatch) {
+                flush(now);
+            }
+        }
+        if (pending.isEmpty() || flushScheduled) {
+            return;
+        }
+        long delay = lastFlushNanos + windowNanos - now;
+        if (delay <= 0) {
+            flush(now);
+        } else {
+            flushScheduled = true;
+            scheduler.schedule(this::flushScheduled, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Отправляет накопленное, не дожидаясь конца окна, например при остановке приложения.
+     */
+    public synchronized void flush() {
+        if (!pending.isEmpty()) {
+            flush(nanoTime.getAsLong());
+        }
+    }
+
+    /**
+     * Текущая длина окна.
+     */
+    public synchronized long getWindow(TimeUnit unit) {
+        return unit.convert(windowNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void flushScheduled() {
+        flushScheduled = false;
+        flush();
+    }
+
+    private void flush(long now) {
+        List<T> batch = pending;
+        pending = new ArrayList<>();
+        windowNanos = batch.size() > 1
+                ? Math.min(maxWindowNanos, Math.max(windowNanos * 2, 1))
+                : Math.max(minWindowNanos, windowNanos / 2);
+        lastFlushNanos = now;
+        sink.accept(batch);
+    }
+}
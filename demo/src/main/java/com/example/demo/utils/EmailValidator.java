@@ -0,0 +1,12 @@
+package com.example.demo.utils;
+
+import java.util.regex.Pattern;
+
+public class EmailValidator {
+    private static final String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@(.+)$";
+    private static final Pattern emailPattern = Pattern.compile(EMAIL_REGEX);
+
+    public static boolean isValidEmail(String email) {
+        return email != null && emailPattern.matcher(email).matches();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.utils;
+
+import com.example.demo.entities.PostBody;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Кодирует текст поста для {@link PostBody}: тексты от {@code compressionThreshold} байт UTF-8 сжимаются LZ4,
+ * короткие хранятся как есть — для них выигрыш от сжатия меньше затрат на распаковку при каждом чтении.
+ */
+public final class PostBodyCodec {
+
+    // Быстрый компрессор, а не LZ4 HC: сжатие идёт в запросе на создание и правку поста
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    // Безопасный распаковщик проверяет границы и на повреждённых данных бросает исключение, а не читает мимо буфера
+    private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+    private static final XXHash64 HASH = XXHashFactory.fastestInstance().hash64();
+
+    private final int compressionThreshold;
+
+    public PostBodyCodec(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public PostBody encode(String content) {
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= compressionThreshold) {
+            byte[] compressed = COMPRESSOR.compress(raw);
+            // Несжимаемый текст (например, уже сжатые данные в base64) хранится как есть
+            if (compressed.length < raw.length) {
+                return new PostBody(PostBody.Codec.LZ4, raw.length, compressed);
+            }
+        }
+        return new PostBody(PostBody.Codec.NONE, raw.length, raw);
+    }
+
+    /**
+     * @throws IllegalStateException если сжатые данные повреждены
+     */
+    public static String decode(PostBody body) {
+        byte[] raw = switch (body.getCodec()) {
+            case NONE -> body.getData();
+            case LZ4 -> decompress(body.getData(), body.getOriginalLength());
+        };
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 64-битный хэш текста; совпадение хэшей разных текстов практически исключено.
+     */
+    public static long hash(String content) {
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        return HASH.hash(raw, 0, raw.length, 0);
+    }
+
+    private static byte[] decompress(byte[] data, int originalLength) {
+        byte[] raw = new byte[originalLength];
+        int length;
+        try {
+            length = DECOMPRESSOR.decompress(data, 0, data.length, raw, 0);
+        } catch (LZ4Exception e) {
+            throw new IllegalStateException("Corrupted post body", e);
+        }
+        if (length != originalLength) {
+            throw new IllegalStateException("Post body is " + length + " bytes, expected " + originalLength);
+        }
+        return raw;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.utils;
+
+import java.util.List;
+
+/**
+ * Лента ID постов фиксированной ёмкости, от новых к старым, на кольцевом буфере.
+ *
+ * Новый пост обычно новее всех в ленте и добавляется за O(1) на место самого старого.
+ * Запоздавший пост (например, выделенный из пула ID другого узла) вставляется на своё место
+ * сдвигом только более новых элементов. Повторное добавление того же ID ничего не меняет,
+ * поэтому ленте безопасно повторно доставленное событие. Методы синхронизированы на ленте:
+ * одновременно её трогают только читатель и раздача постов одного автора.
+ */
+public final class PostTimeline {
+
+    private final long[] ids;
+    private int newest;
+    private int size;
+
+    public PostTimeline(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.ids = new long[capacity];
+        this.newest = capacity - 1;
+    }
+
+    /**
+     * @param idsNewestFirst ID постов по убыванию; в ленту попадут первые capacity
+     */
+    public static PostTimeline of(int capacity, List<Long> idsNewestFirst) {
+        PostTimeline timeline = new PostTimeline(capacity);
+        for (int i = Math.min(capacity, idsNewestFirst.size()) - 1; i >= 0; i--) {
+            timeline.add(idsNewestFirst.get(i));
+        }
+        return timeline;
+    }
+
+    /**
+     * @return false, если ID уже в ленте или он старше всех постов полной ленты
+     */
+    public synchronized boolean add(long id) {
+        int pos = 0;
+        while (pos < size && get(pos) > id) {
+            pos++;
+        }
+        if (pos < size && get(pos) == id || pos == ids.length) {
+            return false;
+        }
+        // Самый новый сдвигается вперёд; в полной ленте при этом затирается самый старый
+        newest = (newest + 1) % ids.length;
+        size = Math.min(size + 1, ids.length);
+        for (int i = 0; i < pos; i++) {
+            set(i, get(i + 1));
+        }
+        set(pos, id);
+        return true;
+    }
+
+    public synchronized boolean remove(long id) {
+        int pos = indexBefore(id + 1);
+        if (pos == size || get(pos) != id) {
+            return false;
+        }
+        for (int i = pos; i > 0; i--) {
+            set(i, get(i - 1));
+        }
+        newest = (newest - 1 + ids.length) % ids.length;
+        size--;
+        return true;
+    }
+
+    /**
+     * Страница ленты: до limit ID меньше beforeId, от новых к старым.
+     */
+    public synchronized long[] before(long beforeId, int limit) {
+        int from = indexBefore(beforeId);
+        long[] page = new long[Math.max(0, Math.min(limit, size - from))];
+        for (int i = 0; i < page.length; i++) {
+            page[i] = get(from + i);
+        }
+        return page;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    // Первая позиция (от новых) с ID меньше заданного; лента отсортирована по убыванию
+    private int indexBefore(long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid) >= id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long get(int position) {
+        return ids[Math.floorMod(newest - position, ids.length)];
+    }
+
+    private void set(int position, long id) {
+        ids[Math.floorMod(newest - position, ids.length)] = id;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничитель частоты по ключам: у каждого ключа своё ведро на {@code permits} токенов,
+ * которое целиком пополняется за {@code period} (равномерно, по токену за period / permits).
+ *
+ * Ведро хранится одним числом — моментом, когда оно станет полным (алгоритм GCRA), — и списание
+ * токена делается одним CAS без блокировок. Ведро, к которому не обращались дольше {@code period},
+ * заведомо полное и ничем не отличается от нового, поэтому такие ключи вытесняются из памяти;
+ * общее число ключей ограничено {@code maximumKeys}.
+ */
+public final class RateLimiter<K> {
+
+    private final Cache<K, AtomicLong> buckets;
+    private final Ticker ticker;
+    private final long intervalNanos;
+    private final long periodNanos;
+
+    public RateLimiter(int permits, Duration period, long maximumKeys) {
+        this(permits, period, maximumKeys, Ticker.systemTicker());
+    }
+
+    public RateLimiter(int permits, Duration period, long maximumKeys, Ticker ticker) {
+        if (permits < 1 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Permits and period must be positive");
+        }
+        this.ticker = ticker;
+        this.periodNanos = period.toNanos();
+        this.intervalNanos = Math.max(1, periodNanos / permits);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(period)
+                .ticker(ticker)
+                // Обслуживание кэша (вытеснение) идёт в вызывающем потоке под tryLock, а не в общем пуле
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Списывает токен из ведра ключа.
+     *
+     * @return 0, если токен списан, иначе через сколько наносекунд появится следующий токен
+     */
+    public long tryAcquire(K key) {
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(ticker.read()));
+        long now = ticker.read();
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long wait = next - now - periodNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public void remove(K key) {
+        buckets.invalidate(key);
+    }
+
+    public long size() {
+        return buckets.estimatedSize();
+    }
+
+    /**
+     * Выполняет отложенное вытеснение простаивающих ключей; в работе оно идёт само по ходу обращений.
+     */
+    public void cleanUp() {
+        buckets.cleanUp();
+    }
+}
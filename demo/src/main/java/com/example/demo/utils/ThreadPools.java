@@ -0,0 +1,47 @@
+package com.example.demo.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пулы потоков для фоновой работы сервисов.
+ *
+ * При {@code spring.threads.virtual.enabled=true} на Java 21+ каждая задача получает свой виртуальный поток:
+ * блокирующий вызов (JDBC, отправка в сокет) освобождает поток-носитель, а ограничение параллелизма
+ * остаётся за ресурсом — пулом соединений или очередью сессии. На Java 17 флаг игнорируется
+ * и используется обычный пул платформенных потоков.
+ */
+public final class ThreadPools {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadPools.class);
+
+    private ThreadPools() {
+    }
+
+    public static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * @param threads размер пула платформенных потоков; для виртуальных потоков не используется
+     */
+    public static ExecutorService newPool(String threadNamePrefix, int threads, boolean virtual) {
+        if (virtual && virtualThreadsSupported()) {
+            // Поток на задачу: простаивающий виртуальный поток завершается сразу (keepAlive = 0)
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        }
+        if (virtual) {
+            logger.warn("Virtual threads need Java 21+, running {} on {} platform threads", threadNamePrefix, threads);
+        }
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory(threadNamePrefix));
+    }
+}
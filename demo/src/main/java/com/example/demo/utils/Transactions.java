@@ -0,0 +1,30 @@
+package com.example.demo.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Действия, которые должны видеть только закоммиченные данные.
+ */
+public final class Transactions {
+
+    private Transactions() {
+    }
+
+    /**
+     * Выполняет действие после коммита текущей транзакции, при откате — не выполняет.
+     * Вне транзакции действие выполняется сразу.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+-- Исходная схема. Шаг последовательностей равен allocationSize в сущностях: Hibernate выделяет ID пулом по 50.
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE posts_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE subscriptions_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id       BIGINT       NOT NULL,
+    name     VARCHAR(100) NOT NULL,
+    email    VARCHAR(150) NOT NULL,
+    password VARCHAR(150) NOT NULL,
+    is_admin BOOLEAN      NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    -- Проверка занятости email и вход (UserRepository.existsByEmailNative, authenticateByEmailNative)
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE posts (
+    id         BIGINT       NOT NULL,
+    title      VARCHAR(255) NOT NULL,
+    content    TEXT         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    author_id  BIGINT       NOT NULL,
+    version    BIGINT       NOT NULL,
+    CONSTRAINT pk_posts PRIMARY KEY (id)
+);
+
+CREATE TABLE subscriptions (
+    id          BIGINT       NOT NULL,
+    user_id     BIGINT       NOT NULL,
+    expiry_date TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_subscriptions PRIMARY KEY (id)
+);
+
+-- IDENTITY, а не последовательность: ID событий идут подряд в порядке вставки (см. OutboxEvent)
+CREATE TABLE outbox_events (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    type       VARCHAR(32)  NOT NULL,
+    payload    TEXT         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id)
+);
+
+-- Индексы под запросы горячего пути. Внешние ключи индексируются не всеми СУБД, поэтому индексы
+-- по author_id и user_id создаются явно и до внешних ключей.
+
+-- Посты автора от новых к старым (PostRepository.findFirstPageByAuthorId, findPageByAuthorIdAfter),
+-- все посты автора (findAllByAuthorId) и версия списка для ETag (findListVersionByAuthorId).
+-- Все столбцы по убыванию, как в ORDER BY страниц: H2 читает страницу из индекса без сортировки,
+-- только если порядок совпадает с индексом с первого столбца
+CREATE INDEX idx_posts_author_created_id ON posts (author_id DESC, created_at DESC, id DESC);
+
+-- Подписка пользователя (SubscriptionRepository.findByUser_Id); внешний ключ использует этот же индекс
+CREATE INDEX idx_subscriptions_user ON subscriptions (user_id);
+
+-- Очистка старых событий outbox (OutboxEventRepository.deleteCreatedBefore)
+CREATE INDEX idx_outbox_events_created_at ON outbox_events (created_at);
+
+ALTER TABLE posts ADD CONSTRAINT fk_posts_author FOREIGN KEY (author_id) REFERENCES users (id);
+ALTER TABLE subscriptions ADD CONSTRAINT fk_subscriptions_user FOREIGN KEY (user_id) REFERENCES users (id);
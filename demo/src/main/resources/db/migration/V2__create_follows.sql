@@ -0,0 +1,19 @@
+-- Подписки читателей на авторов для домашней ленты (HomeTimelines).
+
+CREATE SEQUENCE follows_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE follows (
+    id          BIGINT       NOT NULL,
+    follower_id BIGINT       NOT NULL,
+    author_id   BIGINT       NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_follows PRIMARY KEY (id),
+    -- Авторы читателя при перестройке его ленты (FollowRepository.findAuthorIdsByFollowerId)
+    CONSTRAINT uk_follows_follower_author UNIQUE (follower_id, author_id)
+);
+
+-- Читатели автора при раздаче нового поста по лентам (FollowRepository.findFollowerIdsByAuthorId)
+CREATE INDEX idx_follows_author ON follows (author_id);
+
+ALTER TABLE follows ADD CONSTRAINT fk_follows_follower FOREIGN KEY (follower_id) REFERENCES users (id);
+ALTER TABLE follows ADD CONSTRAINT fk_follows_author FOREIGN KEY (author_id) REFERENCES users (id);
@@ -0,0 +1,25 @@
+-- Тексты постов в отдельной таблице (PostBody): списки и метаданные читают только posts,
+-- а текст, сжатый LZ4 начиная с app.posts.body.compression-threshold, загружается лишь там, где нужен.
+
+CREATE TABLE post_bodies (
+    post_id         BIGINT     NOT NULL,
+    -- NONE — байты UTF-8 как есть, LZ4 — блок LZ4 из original_length байт UTF-8
+    codec           VARCHAR(8) NOT NULL,
+    original_length INTEGER    NOT NULL,
+    data            BLOB       NOT NULL,
+    CONSTRAINT pk_post_bodies PRIMARY KEY (post_id)
+);
+
+-- Существующие тексты переносятся без сжатия; сжимаются при следующем редактировании
+INSERT INTO post_bodies (post_id, codec, original_length, data)
+SELECT id, 'NONE', OCTET_LENGTH(CAST(content AS BLOB)), CAST(content AS BLOB) FROM posts;
+
+ALTER TABLE posts DROP COLUMN content;
+
+-- Хэш текста (Post.contentHash): правка одного текста меняет строку posts, а с ней версию и ETag поста.
+-- У перенесённых постов пуст до первой правки
+ALTER TABLE posts ADD COLUMN content_hash BIGINT;
+
+-- Текст удаляется вместе с постом: удаление поста не читает и не загружает текст
+ALTER TABLE post_bodies ADD CONSTRAINT fk_post_bodies_post FOREIGN KEY (post_id) REFERENCES posts (id)
+    ON DELETE CASCADE;
@@ -0,0 +1,8 @@
+-- Подписки пользователя читаются по последней дате окончания: SubscriptionRepository.findLatestExpiryDateByUserId
+-- (MAX(expiry_date)) и findFirstByUser_IdOrderByExpiryDateDesc. Индекс из V1 только по user_id (его комментарий
+-- ссылается на удалённый findByUser_Id): при продлениях у пользователя копятся строки, и обоим запросам
+-- приходилось читать их все. С expiry_date в индексе максимум — первая запись диапазона пользователя.
+--
+-- idx_subscriptions_user остаётся индексом внешнего ключа fk_subscriptions_user: H2 берёт для ключа только
+-- индекс ровно по его столбцам и без него создал бы такой же сам.
+CREATE INDEX idx_subscriptions_user_expiry ON subscriptions (user_id, expiry_date DESC);
@@ -0,0 +1,34 @@
+package com.example.demo;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.RollingRandomAccessFileAppender;
+import org.apache.logging.log4j.core.async.AsyncLoggerContext;
+import org.apache.logging.log4j.core.async.AsyncQueueFullPolicyFactory;
+import org.apache.logging.log4j.core.async.DiscardingAsyncQueueFullPolicy;
+import org.apache.logging.log4j.core.util.Constants;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggingConfigurationTest {
+
+	@Test
+	void slf4jLoggersAreBackedByAsyncLog4j2() {
+		assertThat(LoggerFactory.getILoggerFactory().getClass().getName())
+				.isEqualTo("org.apache.logging.slf4j.Log4jLoggerFactory");
+
+		LoggerContext context = (LoggerContext) LogManager.getContext(false);
+		assertThat(context).isInstanceOf(AsyncLoggerContext.class);
+		assertThat(context.getConfiguration().getAppenders().get("FileLogger"))
+				.isInstanceOf(RollingRandomAccessFileAppender.class);
+	}
+
+	@Test
+	void garbageFreeModeAndDiscardPolicyAreEnabled() {
+		assertThat(Constants.ENABLE_THREADLOCALS).isTrue();
+		assertThat(Constants.ENABLE_DIRECT_ENCODERS).isTrue();
+		assertThat(AsyncQueueFullPolicyFactory.create()).isInstanceOf(DiscardingAsyncQueueFullPolicy.class);
+	}
+}
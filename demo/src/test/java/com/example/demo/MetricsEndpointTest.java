@@ -0,0 +1,39 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void prometheusEndpointExposesRequestServiceAndSocketMetrics() {
+		restTemplate.getForEntity("/api/posts/user/1", String.class);
+
+		ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody())
+				.contains("http_server_requests_seconds_bucket")
+				.contains("service_method_seconds_count{")
+				.contains("class=\"com.example.demo.services.PostService\"")
+				.contains("websocket_sessions")
+				.contains("cache_gets_total{application=\"demo\",cache=\"subscription-status\",cache_manager=\"app\"")
+				.contains("cache_gets_total{application=\"demo\",cache=\"subscriptions\",cache_manager=\"hibernate\"")
+				.contains("cache_gets_total{application=\"demo\",cache=\"home-timelines\",cache_manager=\"app\"")
+				.contains("hibernate_second_level_cache_requests_total")
+				.contains("email_filter_lookups_total")
+				.contains("hikaricp_connections_active");
+	}
+}
@@ -0,0 +1,34 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Профиль prod, под который собирается быстрый старт (mvn -Pfast-startup): без springdoc и консоли H2.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.datasource.url=jdbc:h2:mem:prod-profile")
+@ActiveProfiles("prod")
+class ProdProfileTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void developmentEndpointsAreOff() {
+		assertThat(restTemplate.getForEntity("/v3/api-docs", String.class).getStatusCode())
+				.isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(restTemplate.getForEntity("/swagger-ui/index.html", String.class).getStatusCode())
+				.isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(restTemplate.getForEntity("/h2-console", String.class).getStatusCode())
+				.isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(restTemplate.getForEntity("/actuator/health", String.class).getStatusCode())
+				.isEqualTo(HttpStatus.OK);
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.demo.configuration;
+
+import com.example.demo.services.RateLimits;
+import com.example.demo.services.RateLimits.Limit;
+import com.example.demo.services.WebSocketService;
+import com.example.demo.services.WebSocketService.SlowConsumerPolicy;
+import com.example.demo.support.FakeWebSocketSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class CustomWebSocketHandlerTest {
+
+	private final WebSocketService webSocketService = new WebSocketService(Executors.newFixedThreadPool(2), 256,
+			512 * 1024, 5_000, SlowConsumerPolicy.DROP_OLDEST, 10);
+	private final AtomicLong nanos = new AtomicLong();
+	private final RateLimits rateLimits = new RateLimits(
+			Map.of(RateLimits.WEBSOCKET, new Limit(5, Duration.ofSeconds(1))), true, 1_000, nanos::get);
+	private final CustomWebSocketHandler handler =
+			new CustomWebSocketHandler(webSocketService, new ObjectMapper(), rateLimits);
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		webSocketService.destroy();
+	}
+
+	@Test
+	void subscribeCommandIsAcknowledgedAndRoutesTopicMessages() throws Exception {
+		FakeWebSocketSession subscriber = connect("subscriber");
+		FakeWebSocketSession bystander = connect("bystander");
+
+		handler.handleTextMessage(subscriber, new TextMessage("{\"action\":\"subscribe\",\"topic\":\"author:7\"}"));
+		await().atMost(5, TimeUnit.SECONDS).until(() -> !subscriber.getReceived().isEmpty());
+		webSocketService.publish(List.of("author:7"), "{\"type\":\"posts.created\"}");
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> subscriber.getReceived().size() == 2);
+		assertThat(subscriber.getReceived()).containsExactly(
+				"{\"type\":\"subscribed\",\"topic\":\"author:7\"}", "{\"type\":\"posts.created\"}");
+		assertThat(bystander.getReceived()).isEmpty();
+	}
+
+	@Test
+	void clientFramesAreNotRebroadcastToOtherSessions() throws Exception {
+		FakeWebSocketSession sender = connect("sender");
+		FakeWebSocketSession other = connect("other");
+		handler.handleTextMessage(other, new TextMessage("{\"action\":\"subscribe\",\"topic\":\"posts\"}"));
+
+		handler.handleTextMessage(sender, new TextMessage("hello everyone"));
+		handler.handleTextMessage(sender, new TextMessage("{\"action\":\"subscribe\",\"topic\":\"admin\"}"));
+		handler.handleTextMessage(sender, new TextMessage("{\"action\":\"shout\",\"topic\":\"posts\"}"));
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> sender.getReceived().size() == 3);
+		assertThat(sender.getReceived()).allMatch(reply -> reply.startsWith("{\"type\":\"error\""));
+		assertThat(other.getReceived()).containsExactly("{\"type\":\"subscribed\",\"topic\":\"posts\"}");
+	}
+
+	@Test
+	void closedSessionLeavesNoSubscriptions() throws Exception {
+		FakeWebSocketSession session = connect("leaving");
+		handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"topic\":\"posts\"}"));
+
+		handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+		assertThat(webSocketService.getTopicCount()).isZero();
+		assertThat(webSocketService.getSessionCount()).isZero();
+	}
+
+	@Test
+	void sessionSendingFasterThanTheLimitIsClosedWithPolicyViolation() throws Exception {
+		FakeWebSocketSession flooder = connect("flooder");
+		FakeWebSocketSession calm = connect("calm");
+		TextMessage command = new TextMessage("{\"action\":\"subscribe\",\"topic\":\"posts\"}");
+
+		for (int i = 0; i < 5; i++) {
+			handler.handleTextMessage(flooder, command);
+		}
+		handler.handleTextMessage(calm, command);
+		assertThat(flooder.isOpen()).isTrue();
+
+		handler.handleTextMessage(flooder, command);
+
+		assertThat(flooder.isOpen()).isFalse();
+		assertThat(flooder.getCloseStatus().getCode()).isEqualTo(CloseStatus.POLICY_VIOLATION.getCode());
+		assertThat(calm.isOpen()).isTrue();
+	}
+
+	private FakeWebSocketSession connect(String id) throws Exception {
+		FakeWebSocketSession session = new FakeWebSocketSession(id);
+		handler.afterConnectionEstablished(session);
+		return session;
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.demo.configuration;
+
+import com.example.demo.services.RateLimits;
+import com.example.demo.services.RateLimits.Limit;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitInterceptorTest {
+
+	private final AtomicLong nanos = new AtomicLong();
+	private final RateLimitInterceptor interceptor = new RateLimitInterceptor(new RateLimits(
+			Map.of(RateLimits.LOGIN, new Limit(2, Duration.ofMinutes(1))), true, 1_000, nanos::get));
+
+	@Test
+	void requestsOverTheLimitGet429WithRetryAfter() throws Exception {
+		HandlerMethod login = new HandlerMethod(new Endpoints(), Endpoints.class.getMethod("login"));
+
+		assertThat(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), login)).isTrue();
+		assertThat(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), login)).isTrue();
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+		assertThat(interceptor.preHandle(request("10.0.0.1"), rejected, login)).isFalse();
+
+		assertThat(rejected.getStatus()).isEqualTo(429);
+		// Следующий токен появится через 30 с
+		assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+		assertThat(interceptor.preHandle(request("10.0.0.2"), new MockHttpServletResponse(), login)).isTrue();
+	}
+
+	@Test
+	void methodsWithoutAnnotationAreNotLimited() throws Exception {
+		HandlerMethod search = new HandlerMethod(new Endpoints(), Endpoints.class.getMethod("search"));
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), search)).isTrue();
+		}
+	}
+
+	private static MockHttpServletRequest request(String remoteAddr) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr(remoteAddr);
+		return request;
+	}
+
+	public static class Endpoints {
+
+		@RateLimited(RateLimits.LOGIN)
+		public void login() {
+		}
+
+		public void search() {
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.example.demo.controllers;
+
+import com.example.demo.entities.Post;
+import com.example.demo.entities.Subscription;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.SubscriptionRepository;
+import com.example.demo.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PostControllerConditionalGetTest {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private SubscriptionRepository subscriptionRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private User author;
+	private List<Post> posts;
+
+	@BeforeEach
+	void setUp() {
+		author = new User();
+		author.setName("Polled Author");
+		author.setEmail("polled-" + System.nanoTime() + "@example.com");
+		author.setPassword("Secret#123");
+		author.setIsAdmin(false);
+		author = userRepository.save(author);
+		Subscription subscription = new Subscription();
+		subscription.setUser(author);
+		subscription.setExpiryDate(LocalDateTime.now().plusDays(30));
+		subscriptionRepository.save(subscription);
+		posts = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			Post post = new Post();
+			post.setTitle("Polled post " + i);
+			post.setContent("Polled content ".repeat(20) + i);
+			post.setCreatedAt(LocalDateTime.now());
+			post.setAuthor(author);
+			posts.add(post);
+		}
+		posts = postRepository.saveAll(posts);
+	}
+
+	@Test
+	void unchangedRepollGets304WithoutReadingPosts() throws Exception {
+		HttpResponse<String> first = get(null);
+		String etag = first.headers().firstValue("ETag").orElseThrow();
+		get(etag);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		HttpResponse<String> repoll = get(etag);
+
+		assertThat(first.statusCode()).isEqualTo(200);
+		assertThat(etag).startsWith("W/\"");
+		assertThat(repoll.statusCode()).isEqualTo(304);
+		assertThat(repoll.body()).isEmpty();
+		assertThat(repoll.headers().firstValue("ETag")).contains(etag);
+		// Сводная версия берётся из кэша запросов, подписка — из кэша подписок
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void editAndDeleteChangeTheETag() throws Exception {
+		String initial = get(null).headers().firstValue("ETag").orElseThrow();
+
+		send(HttpRequest.newBuilder(uri("/api/posts/" + posts.get(0).getId()))
+				.header("Content-Type", "application/json")
+				.PUT(HttpRequest.BodyPublishers.ofString("{\"title\":\"Edited\",\"content\":\"Edited\"}")));
+		HttpResponse<String> afterEdit = get(initial);
+		String edited = afterEdit.headers().firstValue("ETag").orElseThrow();
+
+		send(HttpRequest.newBuilder(uri("/api/posts/" + posts.get(1).getId())).DELETE());
+		String deleted = get(edited).headers().firstValue("ETag").orElseThrow();
+
+		assertThat(afterEdit.statusCode()).isEqualTo(200);
+		assertThat(afterEdit.body()).contains("Edited");
+		assertThat(edited).isNotEqualTo(initial);
+		assertThat(deleted).isNotEqualTo(edited).isNotEqualTo(initial);
+	}
+
+	@Test
+	void largeListIsCompressedWhenClientAcceptsGzip() throws Exception {
+		HttpResponse<byte[]> plain = client.send(HttpRequest.newBuilder(uri(listPath())).GET().build(),
+				HttpResponse.BodyHandlers.ofByteArray());
+		HttpResponse<byte[]> gzip = client.send(HttpRequest.newBuilder(uri(listPath()))
+						.header("Accept-Encoding", "gzip")
+						.GET()
+						.build(),
+				HttpResponse.BodyHandlers.ofByteArray());
+
+		assertThat(gzip.headers().firstValue("Content-Encoding")).contains("gzip");
+		assertThat(gzip.body().length).isLessThan(plain.body().length / 4);
+		assertThat(gzip.headers().firstValue("ETag")).isPresent();
+	}
+
+	private HttpResponse<String> get(String ifNoneMatch) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri(listPath())).GET();
+		if (ifNoneMatch != null) {
+			request.header("If-None-Match", ifNoneMatch);
+		}
+		return send(request);
+	}
+
+	private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private String listPath() {
+		return "/api/posts/user/" + author.getId() + "?limit=100";
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+}
@@ -0,0 +1,226 @@
+package com.example.demo.controllers;
+
+import com.example.demo.entities.PostBody;
+import com.example.demo.entities.Subscription;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.OutboxEventRepository;
+import com.example.demo.repositories.SubscriptionRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.OutboxRelay;
+import com.example.demo.services.PostService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PostControllerContentTest {
+
+	// Больше порога сжатия (1 КБ) и с символами вне ASCII
+	private static final String LARGE_CONTENT = "Длинный текст поста про кэширование 🚀 ".repeat(500);
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private SubscriptionRepository subscriptionRepository;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+
+	@Autowired
+	private OutboxRelay outboxRelay;
+
+	private User author;
+
+	@BeforeEach
+	void setUp() {
+		author = new User();
+		author.setName("Content Author");
+		author.setEmail("content-" + System.nanoTime() + "@example.com");
+		author.setPassword("Secret#123");
+		author.setIsAdmin(false);
+		author = userRepository.save(author);
+		Subscription subscription = new Subscription();
+		subscription.setUser(author);
+		subscription.setExpiryDate(LocalDateTime.now().plusDays(30));
+		subscriptionRepository.save(subscription);
+	}
+
+	@Test
+	void largeContentIsStoredCompressedAndServedOnlyByTheContentEndpoint() throws Exception {
+		long large = create("Large post", LARGE_CONTENT);
+		long small = create("Small post", "Short content");
+
+		HttpResponse<String> content = get("/api/posts/" + large + "/content", null);
+		HttpResponse<String> list = get("/api/posts/user/" + author.getId(), null);
+
+		assertThat(content.statusCode()).isEqualTo(200);
+		assertThat(content.headers().firstValue("Content-Type")).contains("text/plain;charset=UTF-8");
+		assertThat(content.body()).isEqualTo(LARGE_CONTENT);
+		assertThat(get("/api/posts/" + small + "/content", null).body()).isEqualTo("Short content");
+		assertThat(list.statusCode()).isEqualTo(200);
+		JsonNode posts = objectMapper.readTree(list.body());
+		assertThat(posts).hasSize(2);
+		posts.forEach(post -> assertThat(post.has("content")).isFalse());
+
+		Map<String, Object> stored = jdbc.queryForMap(
+				"SELECT codec, original_length, OCTET_LENGTH(data) AS stored FROM post_bodies WHERE post_id = ?", large);
+		assertThat(stored.get("codec")).isEqualTo("LZ4");
+		assertThat(((Number) stored.get("stored")).longValue())
+				.isLessThan(((Number) stored.get("original_length")).longValue() / 4);
+		assertThat(jdbc.queryForObject("SELECT codec FROM post_bodies WHERE post_id = ?", String.class, small))
+				.isEqualTo("NONE");
+	}
+
+	@Test
+	void contentETagChangesOnlyWhenThePostIsEdited() throws Exception {
+		long postId = create("Versioned post", "First version");
+		String path = "/api/posts/" + postId + "/content";
+		String etag = get(path, null).headers().firstValue("ETag").orElseThrow();
+		get(path, etag);
+		// Событие о создании разносится по лентам в потоке outbox и читает подписчиков из базы
+		awaitOutboxDelivered();
+
+		Statistics statistics = statistics();
+		HttpResponse<String> unchanged = get(path, etag);
+		long statementsForUnchanged = statistics.getPrepareStatementCount();
+		edit(postId, "Versioned post", "Second version");
+		HttpResponse<String> changed = get(path, etag);
+
+		assertThat(etag).startsWith("W/\"");
+		assertThat(unchanged.statusCode()).isEqualTo(304);
+		// Версия поста берётся из кэша второго уровня, текст не читается
+		assertThat(statementsForUnchanged).isZero();
+		assertThat(changed.statusCode()).isEqualTo(200);
+		assertThat(changed.body()).isEqualTo("Second version");
+		assertThat(changed.headers().firstValue("ETag").orElseThrow()).isNotEqualTo(etag);
+	}
+
+	@Test
+	void editAndDeleteDoNotLoadTheContent() throws Exception {
+		long postId = create("Edited post", LARGE_CONTENT);
+
+		Statistics statistics = statistics();
+		HttpResponse<String> edited = edit(postId, "Edited post", LARGE_CONTENT + " edited");
+		String content = get("/api/posts/" + postId + "/content", null).body();
+		long loadsForEdit = statistics.getEntityStatistics(PostBody.class.getName()).getLoadCount();
+		statistics.clear();
+		HttpResponse<String> deleted = send(HttpRequest.newBuilder(uri("/api/posts/" + postId)).DELETE());
+
+		assertThat(edited.statusCode()).isEqualTo(200);
+		assertThat(objectMapper.readTree(edited.body()).has("content")).isFalse();
+		assertThat(content).isEqualTo(LARGE_CONTENT + " edited");
+		// Загружен только текст для GET .../content, правка его не читала
+		assertThat(loadsForEdit).isEqualTo(1);
+		assertThat(deleted.statusCode()).isEqualTo(204);
+		assertThat(statistics.getEntityStatistics(PostBody.class.getName()).getLoadCount()).isZero();
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM post_bodies WHERE post_id = ?", Long.class, postId))
+				.isZero();
+		assertThat(get("/api/posts/" + postId + "/content", null).statusCode()).isEqualTo(404);
+	}
+
+	@Test
+	void reportHasTheDecompressedContent() throws Exception {
+		long postId = create("Reported post", LARGE_CONTENT);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		postService.generatePostsReport(out);
+
+		try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+			Sheet sheet = workbook.getSheet("Posts Report");
+			Row row = sheet.getRow(sheet.getLastRowNum());
+			assertThat(row.getCell(0).getNumericCellValue()).isEqualTo((double) postId);
+			assertThat(row.getCell(2).getStringCellValue()).isEqualTo(LARGE_CONTENT);
+		}
+	}
+
+	private long create(String title, String content) throws IOException, InterruptedException {
+		ObjectNode post = objectMapper.createObjectNode()
+				.put("title", title)
+				.put("content", content);
+		post.putObject("author").put("id", author.getId());
+		HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/api/posts"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(post.toString())));
+		assertThat(response.statusCode()).isEqualTo(200);
+		return objectMapper.readTree(response.body()).get("id").asLong();
+	}
+
+	private HttpResponse<String> edit(long postId, String title, String content)
+			throws IOException, InterruptedException {
+		ObjectNode post = objectMapper.createObjectNode()
+				.put("title", title)
+				.put("content", content);
+		return send(HttpRequest.newBuilder(uri("/api/posts/" + postId))
+				.header("Content-Type", "application/json")
+				.PUT(HttpRequest.BodyPublishers.ofString(post.toString())));
+	}
+
+	private void awaitOutboxDelivered() {
+		long lastEventId = outboxEventRepository.findMaxId();
+		await().atMost(10, TimeUnit.SECONDS).until(() -> outboxRelay.getCursor() >= lastEventId);
+	}
+
+	private Statistics statistics() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		return statistics;
+	}
+
+	private HttpResponse<String> get(String path, String ifNoneMatch) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+		if (ifNoneMatch != null) {
+			request.header("If-None-Match", ifNoneMatch);
+		}
+		return send(request);
+	}
+
+	private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+}
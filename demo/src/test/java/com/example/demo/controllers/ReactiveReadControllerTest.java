@@ -0,0 +1,192 @@
+package com.example.demo.controllers;
+
+import com.example.demo.entities.Post;
+import com.example.demo.entities.Subscription;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.SubscriptionRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.SubscriptionCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "app.reactive.enabled=true")
+class ReactiveReadControllerTest {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private SubscriptionRepository subscriptionRepository;
+
+	@Autowired
+	private SubscriptionCache subscriptionCache;
+
+	private User author;
+	private User unsubscribed;
+
+	@BeforeEach
+	void setUp() {
+		author = user("Streamed Author");
+		unsubscribed = user("Unsubscribed Author");
+		Subscription subscription = new Subscription();
+		subscription.setUser(author);
+		subscription.setExpiryDate(LocalDateTime.now().plusDays(30));
+		subscriptionRepository.save(subscription);
+		List<Post> posts = new ArrayList<>();
+		LocalDateTime createdAt = LocalDateTime.now().minusHours(1);
+		for (int i = 0; i < 25; i++) {
+			Post post = new Post();
+			post.setTitle("Streamed post " + i);
+			post.setContent("Streamed content " + i);
+			// Пары постов с одинаковым временем проверяют сравнение курсора по ID
+			post.setCreatedAt(createdAt.plusSeconds(i / 2));
+			post.setAuthor(author);
+			posts.add(post);
+		}
+		postRepository.saveAll(posts);
+	}
+
+	@Test
+	void ndjsonStreamHasTheSamePostsAsTheServletPage() throws Exception {
+		HttpResponse<String> page = get("/api/posts/user/" + author.getId() + "?limit=100", "application/json");
+		HttpResponse<String> stream = get("/api/reactive/posts/user/" + author.getId() + "?limit=100",
+				"application/x-ndjson");
+
+		List<Long> pageIds = new ArrayList<>();
+		objectMapper.readTree(page.body()).forEach(post -> pageIds.add(post.get("id").asLong()));
+		List<Long> streamIds = new ArrayList<>();
+		List<JsonNode> streamed = new ArrayList<>();
+		for (String line : stream.body().split("\n")) {
+			JsonNode post = objectMapper.readTree(line);
+			streamed.add(post);
+			streamIds.add(post.get("id").asLong());
+		}
+
+		assertThat(stream.statusCode()).isEqualTo(200);
+		assertThat(stream.headers().firstValue("Content-Type")).hasValueSatisfying(
+				type -> assertThat(type).startsWith("application/x-ndjson"));
+		assertThat(streamIds).hasSize(25).isEqualTo(pageIds);
+		assertThat(streamed.get(0).path("author").path("name").asText()).isEqualTo("Streamed Author");
+	}
+
+	@Test
+	void eventStreamResumesAfterLastEventId() throws Exception {
+		String path = "/api/reactive/posts/user/" + author.getId() + "?limit=10";
+		List<String> first = eventIds(get(path, "text/event-stream").body());
+		HttpResponse<String> resumed = client.send(HttpRequest.newBuilder(uri(path))
+						.header("Accept", "text/event-stream")
+						.header("Last-Event-ID", first.get(first.size() - 1))
+						.GET()
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+		List<String> all = eventIds(get("/api/reactive/posts/user/" + author.getId() + "?limit=20",
+				"text/event-stream").body());
+
+		assertThat(first).hasSize(10);
+		assertThat(resumed.statusCode()).isEqualTo(200);
+		List<String> both = new ArrayList<>(first);
+		both.addAll(eventIds(resumed.body()));
+		assertThat(both).isEqualTo(all);
+	}
+
+	@Test
+	void streamWithoutSubscriptionOrWithBadCursorIsRejected() throws Exception {
+		assertThat(get("/api/reactive/posts/user/" + unsubscribed.getId(), "application/x-ndjson").statusCode())
+				.isEqualTo(403);
+		assertThat(get("/api/reactive/posts/user/" + author.getId() + "?cursor=bad", "application/x-ndjson")
+				.statusCode()).isEqualTo(400);
+	}
+
+	@Test
+	void subscriptionIsReadWithoutBlocking() throws Exception {
+		HttpResponse<String> found = get("/api/reactive/subscriptions/" + author.getId(), "application/json");
+		HttpResponse<String> missing = get("/api/reactive/subscriptions/" + unsubscribed.getId(), "application/json");
+
+		assertThat(found.statusCode()).isEqualTo(200);
+		JsonNode status = objectMapper.readTree(found.body());
+		assertThat(status.get("userId").asLong()).isEqualTo(author.getId());
+		assertThat(status.get("active").asBoolean()).isTrue();
+		assertThat(missing.statusCode()).isEqualTo(404);
+	}
+
+	@Test
+	void renewedSubscriptionIsReadByLatestExpiryDate() throws Exception {
+		User renewed = user("Renewed Author");
+		LocalDateTime latest = LocalDateTime.now().plusDays(30).withNano(0);
+		subscriptionRepository.save(subscription(renewed, LocalDateTime.now().minusDays(1)));
+		subscriptionRepository.save(subscription(renewed, latest));
+		subscriptionRepository.save(subscription(renewed, LocalDateTime.now().minusDays(2)));
+
+		HttpResponse<String> found = get("/api/reactive/subscriptions/" + renewed.getId(), "application/json");
+
+		assertThat(found.statusCode()).isEqualTo(200);
+		JsonNode status = objectMapper.readTree(found.body());
+		assertThat(status.get("active").asBoolean()).isTrue();
+		assertThat(LocalDateTime.parse(status.get("expiryDate").asText())).isEqualTo(latest);
+		// Реактивное чтение положило статус в общий кэш, и сервлетный путь видит тот же доступ
+		assertThat(subscriptionCache.getIfPresent(renewed.getId())).contains(latest);
+		assertThat(subscriptionCache.hasActiveSubscription(renewed.getId())).isTrue();
+	}
+
+	private static Subscription subscription(User user, LocalDateTime expiryDate) {
+		Subscription subscription = new Subscription();
+		subscription.setUser(user);
+		subscription.setExpiryDate(expiryDate);
+		return subscription;
+	}
+
+	private List<String> eventIds(String body) {
+		List<String> ids = new ArrayList<>();
+		for (String line : body.split("\n")) {
+			if (line.startsWith("id:")) {
+				ids.add(line.substring("id:".length()).trim());
+			}
+		}
+		return ids;
+	}
+
+	private User user(String name) {
+		User user = new User();
+		user.setName(name);
+		user.setEmail("streamed-" + System.nanoTime() + "@example.com");
+		user.setPassword("Secret#123");
+		user.setIsAdmin(false);
+		return userRepository.save(user);
+	}
+
+	private HttpResponse<String> get(String path, String accept) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(uri(path)).header("Accept", accept).GET().build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+}
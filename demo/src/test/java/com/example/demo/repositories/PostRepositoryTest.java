@@ -0,0 +1,75 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.PostView;
+import com.example.demo.entities.Post;
+import com.example.demo.entities.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class PostRepositoryTest {
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void keysetPagesVisitEveryPostOnceNewestFirst() {
+		User author = userRepository.save(user("author@example.com"));
+		User other = userRepository.save(user("other@example.com"));
+		LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+		for (int i = 0; i < 25; i++) {
+			// По три поста на одну и ту же секунду, чтобы проверить разбор ничьих по id
+			postRepository.save(post(author, base.plusSeconds(i / 3)));
+			postRepository.save(post(other, base.plusSeconds(i)));
+		}
+
+		List<PostView> visited = new ArrayList<>();
+		List<PostView> page = postRepository.findFirstPageByAuthorId(author.getId(), PageRequest.of(0, 7));
+		while (!page.isEmpty()) {
+			visited.addAll(page);
+			PostView last = page.get(page.size() - 1);
+			page = postRepository.findPageByAuthorIdAfter(author.getId(), last.getCreatedAt(), last.getId(),
+					PageRequest.of(0, 7));
+		}
+
+		assertThat(visited).hasSize(25)
+				.allMatch(post -> post.getAuthor().getId().equals(author.getId()))
+				.extracting(PostView::getId).doesNotHaveDuplicates();
+		for (int i = 1; i < visited.size(); i++) {
+			PostView previous = visited.get(i - 1);
+			PostView current = visited.get(i);
+			assertThat(current.getCreatedAt().isBefore(previous.getCreatedAt())
+					|| current.getCreatedAt().isEqual(previous.getCreatedAt()) && current.getId() < previous.getId())
+					.isTrue();
+		}
+	}
+
+	private static User user(String email) {
+		User user = new User();
+		user.setName("Author");
+		user.setEmail(email);
+		user.setPassword("Secret#123");
+		user.setIsAdmin(false);
+		return user;
+	}
+
+	private static Post post(User author, LocalDateTime createdAt) {
+		Post post = new Post();
+		post.setTitle("Title");
+		post.setContent("Content");
+		post.setCreatedAt(createdAt);
+		post.setAuthor(author);
+		return post;
+	}
+}
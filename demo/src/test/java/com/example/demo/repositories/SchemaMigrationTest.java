@@ -0,0 +1,96 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entities.PostBody;
+import com.example.demo.utils.PostBodyCodec;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Схему создают миграции Flyway, а Hibernate только сверяет её с сущностями (ddl-auto=validate):
+ * контекст поднимается, только если миграции и сущности совпадают. Здесь проверяется, что запросы
+ * горячего пути идут по индексам из миграций, а не перебором таблицы.
+ */
+@DataJpaTest
+class SchemaMigrationTest {
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	void migrationsAreApplied() {
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+		assertThat(jdbc.queryForList("SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" "
+				+ "AND \"version\" IS NOT NULL ORDER BY \"installed_rank\"", String.class)).containsExactly("1", "2", "3", "4");
+	}
+
+	@Test
+	void existingContentIsMovedToPostBodies() {
+		DriverManagerDataSource legacy = new DriverManagerDataSource(
+				"jdbc:h2:mem:legacy-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure().dataSource(legacy).target("2").load().migrate();
+		JdbcTemplate jdbc = new JdbcTemplate(legacy);
+		jdbc.update("INSERT INTO users (id, name, email, password, is_admin) "
+				+ "VALUES (1, 'Author', 'author@example.com', 'Secret#123', FALSE)");
+		jdbc.update("INSERT INTO posts (id, title, content, created_at, author_id, version) "
+				+ "VALUES (1, 'Old post', ?, CURRENT_TIMESTAMP, 1, 0)", "Текст до миграции");
+
+		Flyway.configure().dataSource(legacy).load().migrate();
+
+		PostBody body = jdbc.queryForObject("SELECT codec, original_length, data FROM post_bodies WHERE post_id = 1",
+				(row, i) -> new PostBody(PostBody.Codec.valueOf(row.getString(1)), row.getInt(2), row.getBytes(3)));
+		assertThat(PostBodyCodec.decode(body)).isEqualTo("Текст до миграции");
+		assertThat(jdbc.queryForList("SELECT column_name FROM information_schema.columns WHERE table_name = 'POSTS'",
+				String.class)).doesNotContain("CONTENT").contains("CONTENT_HASH");
+	}
+
+	@Test
+	void pageOfAuthorPostsIsReadInIndexOrderWithoutSorting() {
+		// Тот же порядок, что PostRepository.AUTHOR_PAGE_ORDER
+		String plan = plan("SELECT id, title FROM posts WHERE author_id = 1 "
+				+ "ORDER BY author_id DESC, created_at DESC, id DESC LIMIT 20");
+
+		assertThat(plan).containsIgnoringCase("IDX_POSTS_AUTHOR_CREATED_ID: AUTHOR_ID = CAST(1 AS BIGINT)")
+				.contains("/* index sorted */");
+	}
+
+	@Test
+	void latestSubscriptionOfUserIsReadThroughTheIndexWithoutSorting() {
+		assertThat(plan("SELECT MAX(expiry_date) FROM subscriptions WHERE user_id = 1"))
+				.containsIgnoringCase("IDX_SUBSCRIPTIONS_USER_EXPIRY: USER_ID = CAST(1 AS BIGINT)");
+		assertThat(plan("SELECT id, expiry_date FROM subscriptions WHERE user_id = 1 "
+				+ "ORDER BY user_id, expiry_date DESC LIMIT 1"))
+				.containsIgnoringCase("IDX_SUBSCRIPTIONS_USER_EXPIRY: USER_ID = CAST(1 AS BIGINT)")
+				.contains("/* index sorted */");
+	}
+
+	@Test
+	void expiredOutboxEventsAreFoundThroughTheIndex() {
+		assertThat(plan("SELECT id FROM outbox_events WHERE created_at < TIMESTAMP '2024-01-01 00:00:00'"))
+				.containsIgnoringCase("IDX_OUTBOX_EVENTS_CREATED_AT: CREATED_AT < TIMESTAMP '2024-01-01 00:00:00'");
+	}
+
+	@Test
+	void followersOfAuthorAreFoundThroughTheIndex() {
+		assertThat(plan("SELECT follower_id FROM follows WHERE author_id = 1"))
+				.containsIgnoringCase("IDX_FOLLOWS_AUTHOR: AUTHOR_ID = CAST(1 AS BIGINT)");
+	}
+
+	@Test
+	void authorsOfReaderAreFoundThroughTheUniqueIndex() {
+		assertThat(plan("SELECT author_id FROM follows WHERE follower_id = 1"))
+				.containsIgnoringCase("UK_FOLLOWS_FOLLOWER_AUTHOR");
+	}
+
+	private String plan(String sql) {
+		return new JdbcTemplate(dataSource).queryForObject("EXPLAIN " + sql, String.class);
+	}
+}
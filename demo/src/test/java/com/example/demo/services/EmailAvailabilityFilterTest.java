@@ -0,0 +1,77 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.UserEmail;
+import com.example.demo.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailAvailabilityFilterTest {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final EmailAvailabilityFilter filter = new EmailAvailabilityFilter(userRepository, 1_000, 0.01, 100, false);
+
+	@AfterEach
+	void tearDown() {
+		filter.destroy();
+	}
+
+	@Test
+	void treatsEveryEmailAsMaybeRegisteredUntilBuilt() {
+		assertThat(filter.mightBeRegistered("anyone@example.com")).isTrue();
+	}
+
+	@Test
+	void answersFromRebuiltFilterAndKeepsRegistrationsMadeDuringRebuild() throws Exception {
+		CountDownLatch scanning = new CountDownLatch(1);
+		CountDownLatch registered = new CountDownLatch(1);
+		when(userRepository.count()).thenReturn(1L);
+		when(userRepository.findEmailsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+			scanning.countDown();
+			registered.await(5, TimeUnit.SECONDS);
+			return List.of(email(1L, "existing@example.com"));
+		});
+
+		assertThat(filter.rebuildAsync()).isTrue();
+		assertThat(scanning.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(filter.rebuildAsync()).isFalse();
+		filter.recordRegistered("during-rebuild@example.com");
+		registered.countDown();
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> Boolean.TRUE.equals(filter.stats().get("ready")));
+		assertThat(filter.mightBeRegistered("existing@example.com")).isTrue();
+		assertThat(filter.mightBeRegistered("during-rebuild@example.com")).isTrue();
+		assertThat(filter.mightBeRegistered("newcomer@example.com")).isFalse();
+
+		Map<String, Object> stats = filter.stats();
+		assertThat(stats.get("insertions")).isEqualTo(2L);
+		assertThat((Long) stats.get("memoryBytes")).isPositive();
+		assertThat(stats.get("definitelyAbsent")).isEqualTo(1L);
+	}
+
+	private static UserEmail email(Long id, String email) {
+		return new UserEmail() {
+			@Override
+			public Long getId() {
+				return id;
+			}
+
+			@Override
+			public String getEmail() {
+				return email;
+			}
+		};
+	}
+}
@@ -0,0 +1,105 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostPage;
+import com.example.demo.dto.PostView;
+import com.example.demo.entities.Post;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(properties = "app.timeline.capacity=5")
+class HomeTimelinesTest {
+
+	@Autowired
+	private HomeTimelines homeTimelines;
+
+	@Autowired
+	private FollowService followService;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void newPostsOfFollowedAuthorsAreFannedOutToLoadedFeeds() {
+		Long reader = newUser("feed-reader@example.com");
+		Long author = newUser("feed-author@example.com");
+		Long stranger = newUser("feed-stranger@example.com");
+		createPost("Before follow", author);
+		assertThat(followService.follow(reader, author)).isTrue();
+		assertThat(followService.follow(reader, author)).isFalse();
+
+		// Лента перестраивается из базы при первом чтении
+		assertThat(titles(reader, null, null)).containsExactly("Before follow");
+
+		Long own = createPost("Own post", reader);
+		createPost("Followed post", author);
+		createPost("Stranger post", stranger);
+		await().untilAsserted(() -> assertThat(titles(reader, null, null))
+				.containsExactly("Followed post", "Own post", "Before follow"));
+
+		postService.deletePost(own);
+		await().untilAsserted(() -> assertThat(titles(reader, null, null))
+				.containsExactly("Followed post", "Before follow"));
+	}
+
+	@Test
+	void feedIsPagedByCursorAndBoundedByCapacity() {
+		Long reader = newUser("feed-pager@example.com");
+		Long author = newUser("feed-prolific@example.com");
+		followService.follow(reader, author);
+		homeTimelines.getFeed(reader, null, null);
+		for (int i = 1; i <= 7; i++) {
+			createPost("Post " + i, author);
+		}
+		await().untilAsserted(() -> assertThat(titles(reader, null, null)).first().isEqualTo("Post 7"));
+
+		PostPage first = homeTimelines.getFeed(reader, null, 3);
+		assertThat(first.getPosts()).extracting(PostView::getTitle).containsExactly("Post 7", "Post 6", "Post 5");
+		PostPage second = homeTimelines.getFeed(reader, first.getNextCursor(), 3);
+		assertThat(second.getPosts()).extracting(PostView::getTitle).containsExactly("Post 4", "Post 3");
+		assertThat(second.getNextCursor()).isNull();
+
+		assertThatThrownBy(() -> homeTimelines.getFeed(reader, "not-a-cursor", 3))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void unfollowRebuildsTheFeedWithoutTheAuthor() {
+		Long reader = newUser("feed-quitter@example.com");
+		Long author = newUser("feed-dropped@example.com");
+		followService.follow(reader, author);
+		createPost("Dropped post", author);
+		assertThat(titles(reader, null, null)).containsExactly("Dropped post");
+
+		assertThat(followService.unfollow(reader, author)).isTrue();
+		assertThat(followService.unfollow(reader, author)).isFalse();
+
+		assertThat(titles(reader, null, null)).isEmpty();
+		assertThatThrownBy(() -> followService.follow(reader, reader)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private List<String> titles(Long userId, String cursor, Integer limit) {
+		return homeTimelines.getFeed(userId, cursor, limit).getPosts().stream().map(PostView::getTitle).toList();
+	}
+
+	private Long createPost(String title, Long authorId) {
+		Post post = postService.createPost(PostServiceBatchTest.post(title, authorId));
+		return post.getId();
+	}
+
+	private Long newUser(String email) {
+		User user = userRepository.save(PostServiceBatchTest.user(email));
+		return user.getId();
+	}
+}
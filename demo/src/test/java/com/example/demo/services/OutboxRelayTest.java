@@ -0,0 +1,128 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostEvent;
+import com.example.demo.dto.PostView;
+import com.example.demo.entities.OutboxEvent;
+import com.example.demo.repositories.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+	private static final Duration GAP_TIMEOUT = Duration.ofMillis(200);
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+	private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+	// Закоммиченные строки outbox_events
+	private final ConcurrentSkipListMap<Long, OutboxEvent> table = new ConcurrentSkipListMap<>();
+	private final List<String> delivered = new CopyOnWriteArrayList<>();
+	private OutboxRelay relay;
+
+	@BeforeEach
+	void setUp() {
+		when(repository.findMaxId()).thenReturn(0L);
+		when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+			long after = invocation.getArgument(0);
+			int size = invocation.<Pageable>getArgument(1).getPageSize();
+			return table.tailMap(after, false).values().stream().limit(size).toList();
+		});
+		when(repository.findByIdInOrderByIdAsc(anyCollection())).thenAnswer(invocation -> {
+			Collection<Long> ids = invocation.getArgument(0);
+			return table.values().stream().filter(event -> ids.contains(event.getId())).toList();
+		});
+		PostEventListener listener = new PostEventListener() {
+			@Override
+			public void onPostEvent(PostEvent event) {
+				delivered.add("local:" + event.getPosts().get(0).getId());
+			}
+
+			@Override
+			public void onRemotePostEvent(PostEvent event) {
+				delivered.add("remote:" + event.getPosts().get(0).getId());
+			}
+		};
+		relay = new OutboxRelay(repository, List.of(listener), objectMapper, 100, Duration.ofMillis(20),
+				Duration.ofMillis(5), GAP_TIMEOUT, 3, Duration.ofHours(1), Duration.ofHours(1));
+		relay.start();
+		await().atMost(5, TimeUnit.SECONDS).until(() -> relay.getCursor() == 0);
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		relay.destroy();
+	}
+
+	@Test
+	void eventCommittedOnAnotherNodeAfterTheGapTimeoutIsStillDelivered() throws Exception {
+		commit(2);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> relay.getCursor() == 2);
+		Thread.sleep(GAP_TIMEOUT.toMillis());
+
+		commit(1);
+		commit(3);
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> delivered.size() == 3);
+		assertThat(delivered).containsExactlyInAnyOrder("remote:1", "remote:2", "remote:3");
+		assertThat(delivered.get(0)).isEqualTo("remote:2");
+		Thread.sleep(100);
+		assertThat(delivered).hasSize(3);
+	}
+
+	@Test
+	void ownEventCommittedAfterTheGapTimeoutIsDeliveredOnce() throws Exception {
+		commit(2);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> relay.getCursor() == 2);
+
+		commit(1);
+		relay.committed(Map.of(1L, event(1)));
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> delivered.size() == 2);
+		assertThat(delivered.get(0)).isEqualTo("remote:2");
+		// Из памяти или из таблицы — смотря что раньше, но один раз
+		assertThat(delivered.get(1)).endsWith(":1");
+		Thread.sleep(GAP_TIMEOUT.toMillis());
+		assertThat(delivered).hasSize(2);
+	}
+
+	@Test
+	void rolledBackIdDoesNotHoldBackLaterEvents() throws Exception {
+		commit(2);
+		commit(3);
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> relay.getCursor() == 3);
+		assertThat(delivered).containsExactly("remote:2", "remote:3");
+	}
+
+	private void commit(long id) throws Exception {
+		OutboxEvent row = new OutboxEvent(PostEvent.POSTS_CREATED, objectMapper.writeValueAsString(event(id)),
+				LocalDateTime.now());
+		ReflectionTestUtils.setField(row, "id", id);
+		table.put(id, row);
+	}
+
+	private static PostEvent event(long postId) {
+		return new PostEvent(PostEvent.POSTS_CREATED,
+				List.of(new PostView(postId, "Post " + postId, LocalDateTime.now(), 1L, "Author")));
+	}
+}
@@ -0,0 +1,229 @@
+package com.example.demo.services;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.entities.Post;
+import com.example.demo.entities.Subscription;
+import com.example.demo.repositories.SubscriptionRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.support.FakeWebSocketSession;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Два узла приложения в одном JVM на общей базе H2: события, записанные в outbox на одном узле,
+ * должны дойти до WebSocket-клиентов обоих узлов по порядку и только после коммита,
+ * а кэш второго уровня другого узла — перестать отдавать прежнюю версию поста.
+ */
+class PostOutboxTwoNodeTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(PostOutboxTwoNodeTest.class);
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private static ConfigurableApplicationContext writer;
+	private static ConfigurableApplicationContext reader;
+
+	@BeforeAll
+	static void startNodes() throws IOException {
+		String database = "jdbc:h2:mem:outbox-nodes-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+		writer = startNode(database, "writer");
+		reader = startNode(database, "reader");
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		reader.close();
+		writer.close();
+	}
+
+	// Провайдер JCache один на JVM и хранит менеджер кэшей по URI конфигурации. Своя копия
+	// application.conf даёт узлу свой менеджер, иначе узлы делили бы регионы кэша второго уровня
+	private static ConfigurableApplicationContext startNode(String database, String node) throws IOException {
+		Path cacheConfig = Files.createTempFile("outbox-" + node + "-", ".conf");
+		cacheConfig.toFile().deleteOnExit();
+		try (InputStream config = PostOutboxTwoNodeTest.class.getResourceAsStream("/application.conf")) {
+			Files.copy(config, cacheConfig, StandardCopyOption.REPLACE_EXISTING);
+		}
+		return SpringApplication.run(DemoApplication.class,
+				"--server.port=0",
+				"--spring.datasource.url=" + database,
+				"--spring.h2.console.enabled=false",
+				"--spring.jpa.properties.hibernate.javax.cache.uri=" + cacheConfig.toUri(),
+				"--app.outbox.poll-interval=50ms",
+				"--app.outbox.gap-timeout=300ms");
+	}
+
+	@Test
+	void eventsWrittenOnOneNodeReachSubscribersOnBothNodesInOrder() throws Exception {
+		Long authorId = newAuthor("two-nodes@example.com");
+		FakeWebSocketSession local = subscribe(writer, "local", PostNotifications.authorTopic(authorId));
+		FakeWebSocketSession remote = subscribe(reader, "remote", PostNotifications.authorTopic(authorId));
+		PostService postService = writer.getBean(PostService.class);
+
+		Post created = postService.createPost(PostServiceBatchTest.post("Shared post", authorId));
+		Post edited = new Post();
+		edited.setTitle("Shared post, edited");
+		edited.setContent("Edited content");
+		postService.editPost(created.getId(), edited);
+		postService.deletePost(created.getId());
+
+		for (FakeWebSocketSession session : List.of(local, remote)) {
+			await().atMost(10, TimeUnit.SECONDS).until(() -> session.getReceived().size() == 3);
+			assertThat(session.getReceived()).extracting(frame -> read(frame).path("type").asText())
+					.containsExactly("posts.created", "posts.updated", "posts.deleted");
+			assertThat(session.getReceived()).allSatisfy(frame ->
+					assertThat(read(frame).path("posts").get(0).path("id").asLong()).isEqualTo(created.getId()));
+		}
+		assertThat(read(remote.getReceived().get(1)).path("posts").get(0).path("title").asText())
+				.isEqualTo("Shared post, edited");
+	}
+
+	@Test
+	void writesOnOneNodeRefreshTheSecondLevelCacheOfTheOther() {
+		Long authorId = newAuthor("cached-two-nodes@example.com");
+		Subscription subscription = new Subscription();
+		subscription.setUser(writer.getBean(UserRepository.class).findById(authorId).orElseThrow());
+		subscription.setExpiryDate(LocalDateTime.now().plusDays(30));
+		writer.getBean(SubscriptionRepository.class).save(subscription);
+		PostService writerPosts = writer.getBean(PostService.class);
+		PostService readerPosts = reader.getBean(PostService.class);
+		Post created = writerPosts.createPost(PostServiceBatchTest.post("Cached on both nodes", authorId));
+		await().atMost(10, TimeUnit.SECONDS).until(() -> readerPosts.getPostContentETag(created.getId()) != null);
+		// Версии поста и списка на узле чтения теперь в кэше второго уровня и в кэше запросов
+		String contentETag = readerPosts.getPostContentETag(created.getId());
+		String listETag = readerPosts.getUserPostsETag(authorId);
+
+		Post edited = new Post();
+		edited.setTitle("Edited on the writer");
+		edited.setContent("Edited on the writer");
+		writerPosts.editPost(created.getId(), edited);
+
+		await().atMost(10, TimeUnit.SECONDS).until(() ->
+				!contentETag.equals(readerPosts.getPostContentETag(created.getId())));
+		assertThat(readerPosts.getUserPostsETag(authorId)).isNotEqualTo(listETag);
+		assertThat(readerPosts.getPostContent(created.getId())).contains("Edited on the writer");
+		// Правка на узле чтения видит текущую версию и не падает на оптимистической блокировке
+		Post editedAgain = new Post();
+		editedAgain.setTitle("Edited on the reader");
+		editedAgain.setContent("Edited on the reader");
+		String writerETag = writerPosts.getPostContentETag(created.getId());
+		assertThat(readerPosts.editPost(created.getId(), editedAgain).getTitle()).isEqualTo("Edited on the reader");
+
+		// И в обратную сторону: узел записи удаляет пост уже по новой версии
+		await().atMost(10, TimeUnit.SECONDS).until(() ->
+				!writerETag.equals(writerPosts.getPostContentETag(created.getId())));
+		writerPosts.deletePost(created.getId());
+		await().atMost(10, TimeUnit.SECONDS).until(() -> readerPosts.getPostContentETag(created.getId()) == null);
+	}
+
+	@Test
+	void rolledBackPostIsNeverAnnounced() {
+		Long authorId = newAuthor("rollback@example.com");
+		FakeWebSocketSession remote = subscribe(reader, "rollback-remote", PostNotifications.authorTopic(authorId));
+		PostService postService = writer.getBean(PostService.class);
+
+		new TransactionTemplate(writer.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+			postService.createPost(PostServiceBatchTest.post("Rolled back post", authorId));
+			status.setRollbackOnly();
+		});
+		postService.createPost(PostServiceBatchTest.post("Committed post", authorId));
+
+		await().atMost(10, TimeUnit.SECONDS).until(() -> !remote.getReceived().isEmpty());
+		assertThat(remote.getReceived()).singleElement().asString()
+				.contains("Committed post")
+				.doesNotContain("Rolled back post");
+	}
+
+	@Test
+	void concurrentWritesOnOneNodeAreAllDeliveredToTheOtherOnce() throws Exception {
+		int threads = 4;
+		int postsPerThread = 500;
+		Long authorId = newAuthor("throughput@example.com");
+		FakeWebSocketSession remote = subscribe(reader, "throughput-remote", PostNotifications.authorTopic(authorId));
+		PostService postService = writer.getBean(PostService.class);
+		ExecutorService clients = Executors.newFixedThreadPool(threads);
+
+		long start = System.nanoTime();
+		List<Future<?>> writes = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			writes.add(clients.submit(() -> {
+				for (int i = 0; i < postsPerThread; i++) {
+					postService.createPost(PostServiceBatchTest.post("Burst " + thread + "-" + i, authorId));
+				}
+			}));
+		}
+		for (Future<?> write : writes) {
+			write.get(60, TimeUnit.SECONDS);
+		}
+		long written = System.nanoTime();
+		await().atMost(30, TimeUnit.SECONDS).until(() -> receivedIds(remote).size() >= threads * postsPerThread);
+		long delivered = System.nanoTime();
+		clients.shutdown();
+
+		List<Long> ids = receivedIds(remote);
+		logger.info("Outbox: {} posts written in {} ms ({} posts/s), all delivered to the other node "
+						+ "{} ms after the last commit in {} frames",
+				ids.size(), TimeUnit.NANOSECONDS.toMillis(written - start),
+				Math.round(ids.size() / ((written - start) / 1_000_000_000.0)),
+				TimeUnit.NANOSECONDS.toMillis(delivered - written), remote.getReceived().size());
+		assertThat(ids).hasSize(threads * postsPerThread).doesNotHaveDuplicates();
+		// Окно уведомлений собирает посты в пачки, поэтому кадров меньше, чем постов
+		assertThat(remote.getReceived().size()).isLessThan(ids.size());
+	}
+
+	private static Long newAuthor(String email) {
+		return writer.getBean(UserRepository.class).save(PostServiceBatchTest.user(email)).getId();
+	}
+
+	private static FakeWebSocketSession subscribe(ConfigurableApplicationContext node, String id, String topic) {
+		WebSocketService webSocketService = node.getBean(WebSocketService.class);
+		FakeWebSocketSession session = new FakeWebSocketSession(id);
+		webSocketService.addSession(session);
+		webSocketService.subscribe(session, topic);
+		return session;
+	}
+
+	private static List<Long> receivedIds(FakeWebSocketSession session) {
+		List<Long> ids = new ArrayList<>();
+		for (String frame : session.getReceived()) {
+			for (JsonNode post : read(frame).path("posts")) {
+				ids.add(post.path("id").asLong());
+			}
+		}
+		return ids;
+	}
+
+	private static JsonNode read(String frame) {
+		try {
+			return objectMapper.readTree(frame);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
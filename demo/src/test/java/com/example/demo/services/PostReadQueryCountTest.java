@@ -0,0 +1,143 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostPage;
+import com.example.demo.dto.PostSearchResult;
+import com.example.demo.entities.Post;
+import com.example.demo.entities.Subscription;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.OutboxEventRepository;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.SubscriptionRepository;
+import com.example.demo.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.demo.services.PostServiceBatchTest.post;
+import static com.example.demo.services.PostServiceBatchTest.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+class PostReadQueryCountTest {
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private PostSearchIndex postSearchIndex;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private SubscriptionRepository subscriptionRepository;
+
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+
+	@Autowired
+	private OutboxRelay outboxRelay;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Value("${app.report.page-size}")
+	private int reportPageSize;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void userPostsPageIsOneStatementWhateverItsSize() {
+		User author = userRepository.save(user("count-author@example.com"));
+		Subscription subscription = new Subscription();
+		subscription.setUser(author);
+		subscription.setExpiryDate(LocalDateTime.now().plusDays(30));
+		subscriptionRepository.save(subscription);
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < 60; i++) {
+			posts.add(post("Counted post " + i, author.getId()));
+		}
+		postService.createPosts(posts);
+		awaitEventsDelivered();
+		// Прогреваем кэш подписок, чтобы считать только чтение постов
+		postService.getUserPostsIfSubscribed(author.getId(), null, 1);
+
+		long small = statementsFor(() -> postService.getUserPostsIfSubscribed(author.getId(), null, 5));
+		PostPage[] large = new PostPage[1];
+		long largeCount = statementsFor(() -> large[0] = postService.getUserPostsIfSubscribed(author.getId(), null, 50));
+
+		assertThat(small).isEqualTo(1);
+		assertThat(largeCount).isEqualTo(small);
+		assertThat(large[0].getPosts()).hasSize(50)
+				.allSatisfy(view -> assertThat(view.getAuthor().getName()).isEqualTo("Batch Author"));
+	}
+
+	@Test
+	void searchPageLoadsPostsAndAuthorsInOneStatement() throws Exception {
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			User author = userRepository.save(user("search-count-" + i + "@example.com"));
+			posts.add(post("Kestrel sighting " + i, author.getId()));
+		}
+		postService.createPosts(posts);
+		awaitEventsDelivered();
+		postSearchIndex.refresh();
+
+		long small = statementsFor(() -> postService.searchPosts("kestrel", 0, 3));
+		PostSearchResult[] large = new PostSearchResult[1];
+		long largeCount = statementsFor(() -> large[0] = postService.searchPosts("kestrel", 0, 30));
+
+		assertThat(small).isEqualTo(1);
+		assertThat(largeCount).isEqualTo(small);
+		assertThat(large[0].getHits()).hasSize(30)
+				.allSatisfy(hit -> assertThat(hit.getPost().getAuthor().getId()).isNotNull());
+	}
+
+	@Test
+	void reportReadsOneStatementPerPageWithoutLoadingAuthors() {
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			User author = userRepository.save(user("report-count-" + i + "@example.com"));
+			posts.add(post("Report post " + i, author.getId()));
+		}
+		postService.createPosts(posts);
+		awaitEventsDelivered();
+		long pages = postRepository.count() / reportPageSize + 1;
+
+		long statements = statementsFor(() -> postService.generatePostsReport(OutputStream.nullOutputStream()));
+
+		assertThat(statements).isEqualTo(pages);
+	}
+
+	// Доставка событий о новых постах тоже читает базу (читателей авторов для домашних лент)
+	// и не должна попасть в подсчёт
+	private void awaitEventsDelivered() {
+		long last = outboxEventRepository.findMaxId();
+		await().until(() -> outboxRelay.getCursor() >= last);
+	}
+
+	private long statementsFor(Runnable action) {
+		statistics.clear();
+		action.run();
+		return statistics.getPrepareStatementCount();
+	}
+}
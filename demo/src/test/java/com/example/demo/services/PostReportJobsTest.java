@@ -0,0 +1,145 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostListVersion;
+import com.example.demo.dto.PostReportJob;
+import com.example.demo.dto.PostReportJob.State;
+import com.example.demo.repositories.PostRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostReportJobsTest {
+
+	@TempDir
+	Path directory;
+
+	private final PostService postService = mock(PostService.class);
+	private final PostRepository postRepository = mock(PostRepository.class);
+	private final AtomicInteger builds = new AtomicInteger();
+	private volatile CountDownLatch release = new CountDownLatch(0);
+	private PostReportJobs jobs;
+
+	@AfterEach
+	void tearDown() {
+		if (jobs != null) {
+			jobs.destroy();
+		}
+	}
+
+	@Test
+	void concurrentRequestsShareOneBuildAndRepeatedRequestsReuseTheFile() throws Exception {
+		startJobs();
+		version(10, 10, 10);
+		release = new CountDownLatch(1);
+
+		PostReportJob first = jobs.submit();
+		PostReportJob second = jobs.submit();
+		assertThat(second.getId()).isEqualTo(first.getId());
+		assertThat(second.getState()).isEqualTo(State.RUNNING);
+
+		release.countDown();
+		Path artifact = jobs.whenDone(first.getId()).orElseThrow().get(5, TimeUnit.SECONDS);
+		assertThat(Files.readString(artifact)).isEqualTo("report 1");
+
+		PostReportJob third = jobs.submit();
+		assertThat(third.getId()).isEqualTo(first.getId());
+		assertThat(third.getState()).isEqualTo(State.DONE);
+		assertThat(third.getRowsWritten()).isEqualTo(10);
+		assertThat(jobs.artifact(third.getId())).contains(artifact);
+		assertThat(builds).hasValue(1);
+	}
+
+	@Test
+	void changedPostsStartANewBuildAndOldFilesAreEvicted() throws Exception {
+		startJobs();
+		Path[] artifacts = new Path[3];
+		for (int i = 0; i < 3; i++) {
+			version(10 + i, 10 + i, 10 + i);
+			PostReportJob job = jobs.submit();
+			artifacts[i] = jobs.whenDone(job.getId()).orElseThrow().get(5, TimeUnit.SECONDS);
+			// Порядок вытеснения определяется временем изменения файлов
+			Files.setLastModifiedTime(artifacts[i], FileTime.fromMillis(1_000L * (i + 1)));
+		}
+		version(13, 13, 13);
+		jobs.whenDone(jobs.submit().getId()).orElseThrow().get(5, TimeUnit.SECONDS);
+
+		assertThat(builds).hasValue(4);
+		assertThat(artifacts[0]).doesNotExist();
+		assertThat(artifacts[1]).doesNotExist();
+		assertThat(artifacts[2]).exists();
+	}
+
+	@Test
+	void failedBuildIsRetriedByTheNextRequest() throws Exception {
+		startJobs();
+		version(5, 5, 5);
+		doAnswer(invocation -> {
+			throw new RuntimeException("database is gone");
+		}).when(postService).generatePostsReport(any(OutputStream.class), any(LongConsumer.class));
+
+		PostReportJob failed = jobs.submit();
+		await().atMost(5, TimeUnit.SECONDS).until(() -> jobs.find(failed.getId()).orElseThrow().getState() == State.FAILED);
+		assertThat(jobs.find(failed.getId()).orElseThrow().getError()).isEqualTo("database is gone");
+		assertThat(jobs.artifact(failed.getId())).isEmpty();
+		try (var files = Files.list(directory)) {
+			assertThat(files).isEmpty();
+		}
+
+		stubBuild();
+		PostReportJob retried = jobs.submit();
+		assertThat(retried.getId()).isNotEqualTo(failed.getId());
+		assertThat(jobs.whenDone(retried.getId()).orElseThrow().get(5, TimeUnit.SECONDS)).exists();
+	}
+
+	@Test
+	void reportsOfPreviousRunAreDeletedOnStartup() throws Exception {
+		startJobs();
+		version(7, 7, 7);
+		Path artifact = jobs.whenDone(jobs.submit().getId()).orElseThrow().get(5, TimeUnit.SECONDS);
+		jobs.destroy();
+
+		startJobs();
+
+		assertThat(artifact).doesNotExist();
+		assertThat(jobs.whenDone(jobs.submit().getId()).orElseThrow().get(5, TimeUnit.SECONDS)).exists();
+		assertThat(builds).hasValue(2);
+	}
+
+	private void startJobs() {
+		stubBuild();
+		jobs = new PostReportJobs(postService, postRepository, directory, 2, Duration.ofHours(1), 1, false);
+	}
+
+	private void stubBuild() {
+		doAnswer(invocation -> {
+			OutputStream out = invocation.getArgument(0);
+			LongConsumer progress = invocation.getArgument(1);
+			release.await(5, TimeUnit.SECONDS);
+			progress.accept(postRepository.findReportVersion().getCount());
+			out.write(("report " + builds.incrementAndGet()).getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(postService).generatePostsReport(any(OutputStream.class), any(LongConsumer.class));
+	}
+
+	private void version(long count, long maxId, long versionSum) {
+		when(postRepository.findReportVersion()).thenReturn(new PostListVersion(count, maxId, versionSum));
+	}
+}
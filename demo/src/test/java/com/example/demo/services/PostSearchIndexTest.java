@@ -0,0 +1,145 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.Post;
+import com.example.demo.repositories.PostRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostSearchIndexTest {
+
+	private final PostRepository postRepository = mock(PostRepository.class);
+	private final PostBodyStore postBodyStore = mock(PostBodyStore.class);
+	private PostSearchIndex index;
+
+	@AfterEach
+	void tearDown() throws IOException {
+		if (index != null) {
+			index.destroy();
+		}
+	}
+
+	@Test
+	void ranksTitleMatchesFirstAndPaginates() throws IOException {
+		index = inMemory();
+		index.index(List.of(
+				post(1L, "Weekly digest", "Notes about caching strategies"),
+				post(2L, "Caching in practice", "How we cache subscriptions"),
+				post(3L, "Unrelated", "Nothing to see here")));
+		index.refresh();
+
+		PostSearchIndex.Hits first = index.search("caching", 0, 1);
+		PostSearchIndex.Hits second = index.search("caching", 1, 1);
+
+		assertThat(first.getTotalHits()).isEqualTo(2);
+		assertThat(first.getIds()).containsExactly(2L);
+		assertThat(second.getIds()).containsExactly(1L);
+		assertThat(first.getScores().get(0)).isGreaterThan(second.getScores().get(0));
+		assertThat(index.search("\"cache subscriptions\"", 0, 10).getIds()).containsExactly(2L);
+		assertThat(index.search("caching -digest", 0, 10).getIds()).containsExactly(2L);
+	}
+
+	@Test
+	void editsAndDeletesReplaceEarlierDocuments() throws IOException {
+		index = inMemory();
+		index.index(post(1L, "Draft", "first version"));
+		index.index(post(1L, "Final", "second version"));
+		index.index(post(2L, "Other", "second opinion"));
+		index.remove(2L);
+		index.refresh();
+
+		assertThat(index.search("first", 0, 10).getIds()).isEmpty();
+		assertThat(index.search("second", 0, 10).getIds()).containsExactly(1L);
+		assertThat(index.documentCount()).isEqualTo(1);
+	}
+
+	@Test
+	void indexesOnlyAfterTransactionCommits() throws IOException {
+		index = inMemory();
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			index.index(post(1L, "Batch", "inserted in a transaction"));
+			index.refresh();
+			assertThat(index.search("batch", 0, 10).getIds()).isEmpty();
+
+			TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		index.refresh();
+
+		assertThat(index.search("batch", 0, 10).getIds()).containsExactly(1L);
+	}
+
+	@Test
+	void rebuildReplacesStaleDocumentsFromRepository() throws IOException {
+		index = inMemory();
+		index.index(post(99L, "Ghost", "deleted while the index was offline"));
+		when(postRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+			long after = invocation.getArgument(0);
+			return after == 0 ? List.of(post(1L, "Alpha", "first"), post(2L, "Beta", "second")) : List.of();
+		});
+
+		assertThat(index.rebuildAsync()).isTrue();
+		await().atMost(Duration.ofSeconds(5)).until(() -> !index.isRebuilding());
+		index.refresh();
+
+		assertThat(index.search("ghost", 0, 10).getIds()).isEmpty();
+		assertThat(index.search("alpha", 0, 10).getIds()).containsExactly(1L);
+		assertThat(index.documentCount()).isEqualTo(2);
+	}
+
+	@Test
+	void onDiskIndexSurvivesRestart(@TempDir Path dir) throws IOException {
+		index = new PostSearchIndex(postRepository, postBodyStore, dir, false, Duration.ofMinutes(1), 100, 100, false);
+		index.index(post(1L, "Persistent", "kept across restarts"));
+		index.destroy();
+
+		index = new PostSearchIndex(postRepository, postBodyStore, dir, false, Duration.ofMinutes(1), 100, 100, false);
+		when(postRepository.count()).thenReturn(1L);
+		when(postRepository.findMaxId()).thenReturn(1L);
+		index.verifyOnStartup();
+
+		assertThat(index.isRebuilding()).isFalse();
+		assertThat(index.search("persistent", 0, 10).getIds()).containsExactly(1L);
+	}
+
+	@Test
+	void rejectsPagesBeyondSearchWindow() {
+		index = inMemory();
+
+		assertThatThrownBy(() -> index.search("anything", 95, 10)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private PostSearchIndex inMemory() {
+		try {
+			return new PostSearchIndex(postRepository, postBodyStore, Path.of("unused"), true, Duration.ofMinutes(1), 100, 100, false);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Post post(Long id, String title, String content) {
+		Post post = new Post();
+		post.setId(id);
+		post.setTitle(title);
+		post.setContent(content);
+		return post;
+	}
+}
@@ -0,0 +1,129 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostBatchResult;
+import com.example.demo.dto.PostSearchResult;
+import com.example.demo.entities.Post;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.support.FakeWebSocketSession;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PostServiceBatchTest {
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PostSearchIndex postSearchIndex;
+
+	@Autowired
+	private WebSocketService webSocketService;
+
+	@Test
+	void insertsValidPostsInJdbcBatchesAndRejectsInvalidOnes() {
+		User author = userRepository.save(user("batch-author@example.com"));
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			posts.add(post("Post " + i, author.getId()));
+		}
+		posts.set(7, post(" ", author.getId()));
+		posts.set(42, post("Orphan", Long.MAX_VALUE));
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		PostBatchResult result = postService.createPosts(posts);
+
+		assertThat(result.getCreatedCount()).isEqualTo(118);
+		assertThat(result.getRejectedCount()).isEqualTo(2);
+		assertThat(result.getItems().get(7).getError()).isEqualTo("Title is required");
+		assertThat(result.getItems().get(42).getError()).isEqualTo("Author not found");
+		assertThat(result.getItems()).extracting(PostBatchResult.Item::getIndex)
+				.containsExactlyElementsOf(IntStream.range(0, 120).boxed().toList());
+		assertThat(postRepository.findAllById(result.getItems().stream()
+				.map(PostBatchResult.Item::getId).filter(Objects::nonNull).toList())).hasSize(118);
+		// 118 вставок постов и 118 вставок их текстов уходят тремя батчами по 50 строк каждые,
+		// плюс выборка последовательности и проверка авторов
+		assertThat(statistics.getPrepareStatementCount()).isLessThan(18);
+	}
+
+	@Test
+	void batchPostsBecomeSearchableAfterCommit() throws Exception {
+		User author = userRepository.save(user("search-author@example.com"));
+		postService.createPosts(List.of(post("Quarterly zeppelin review", author.getId()),
+				post("Unrelated", author.getId())));
+		postSearchIndex.refresh();
+
+		PostSearchResult result = postService.searchPosts("zeppelin", 0, 10);
+
+		assertThat(result.getTotalHits()).isEqualTo(1);
+		assertThat(result.getHits()).extracting(hit -> hit.getPost().getTitle())
+				.containsExactly("Quarterly zeppelin review");
+	}
+
+	@Test
+	void batchNotifiesSubscribersOfEachAuthorWithThePosts() {
+		User first = userRepository.save(user("notify-first@example.com"));
+		User second = userRepository.save(user("notify-second@example.com"));
+		FakeWebSocketSession subscriber = new FakeWebSocketSession("first-author-subscriber");
+		webSocketService.addSession(subscriber);
+		webSocketService.subscribe(subscriber, PostNotifications.authorTopic(first.getId()));
+		try {
+			postService.createPosts(List.of(post("First author post", first.getId()),
+					post("Second author post", second.getId())));
+
+			await().atMost(5, TimeUnit.SECONDS).until(() -> !subscriber.getReceived().isEmpty());
+			assertThat(subscriber.getReceived()).singleElement().asString()
+					.contains("\"type\":\"posts.created\"")
+					.contains("\"author\":{\"id\":" + first.getId())
+					.contains("\"title\":\"First author post\"")
+					.contains("\"name\":\"Batch Author\"")
+					.doesNotContain("Second author post");
+		} finally {
+			webSocketService.removeSession(subscriber);
+		}
+	}
+
+	static User user(String email) {
+		User user = new User();
+		user.setName("Batch Author");
+		user.setEmail(email);
+		user.setPassword("Secret#123");
+		user.setIsAdmin(false);
+		return user;
+	}
+
+	static Post post(String title, Long authorId) {
+		User author = new User();
+		author.setId(authorId);
+		Post post = new Post();
+		post.setTitle(title);
+		post.setContent("Imported content");
+		post.setAuthor(author);
+		return post;
+	}
+}
@@ -0,0 +1,99 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PostReportRow;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostServiceReportTest {
+
+	private static final int PAGE_SIZE = 500;
+
+	@Test
+	void reportContainsEveryPost() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serviceWithPosts(1_234, null).generatePostsReport(out);
+
+		try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+			assertThat(workbook.getSheet("Posts Report").getLastRowNum()).isEqualTo(1_234);
+			assertThat(workbook.getSheet("Posts Report").getRow(1_234).getCell(0).getNumericCellValue())
+					.isEqualTo(1_234d);
+		}
+	}
+
+	@Test
+	void peakRetainedHeapStaysFlatAsPostCountGrows() {
+		long small = peakRetainedHeap(10_000);
+		long large = peakRetainedHeap(60_000);
+
+		// Шесть раз больше постов не должны давать заметного роста удерживаемой памяти
+		assertThat(large - small).isLessThan(16L * 1024 * 1024);
+	}
+
+	private long peakRetainedHeap(int postCount) {
+		HeapSampler sampler = new HeapSampler();
+		serviceWithPosts(postCount, sampler).generatePostsReport(OutputStream.nullOutputStream());
+		return sampler.peak;
+	}
+
+	private PostService serviceWithPosts(int postCount, HeapSampler sampler) {
+		PostRepository postRepository = mock(PostRepository.class);
+		when(postRepository.findReportRowsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+			long lastId = invocation.getArgument(0);
+			Pageable pageable = invocation.getArgument(1);
+			if (sampler != null) {
+				sampler.sample();
+			}
+			List<PostReportRow> page = new ArrayList<>(pageable.getPageSize());
+			for (long id = lastId + 1; id <= postCount && page.size() < pageable.getPageSize(); id++) {
+				page.add(post(id));
+			}
+			return page;
+		});
+		return new PostService(postRepository, mock(UserRepository.class), mock(PostOutbox.class),
+				mock(SubscriptionCache.class), mock(PostSearchIndex.class), mock(PostBodyStore.class),
+				mock(EntityManager.class),
+				PAGE_SIZE, 100, 20, 100, 50);
+	}
+
+	private static PostReportRow post(long id) {
+		return new PostReportRow(id, "Post #" + id,
+				"Lorem ipsum dolor sit amet, consectetur adipiscing elit ".repeat(4) + id,
+				LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(id));
+	}
+
+	/**
+	 * Раз в несколько страниц запускает сборку мусора и запоминает максимум занятой кучи после неё,
+	 * то есть пик реально удерживаемых данных, а не накопившегося мусора.
+	 */
+	private static final class HeapSampler {
+
+		private int calls;
+		private long peak;
+
+		void sample() {
+			if (calls++ % 10 != 0) {
+				return;
+			}
+			Runtime runtime = Runtime.getRuntime();
+			System.gc();
+			peak = Math.max(peak, runtime.totalMemory() - runtime.freeMemory());
+		}
+	}
+}
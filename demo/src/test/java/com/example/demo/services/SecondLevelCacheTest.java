@@ -0,0 +1,126 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.Post;
+import com.example.demo.entities.Subscription;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.SubscriptionRepository;
+import com.example.demo.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.demo.services.PostServiceBatchTest.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SecondLevelCacheTest {
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private PostRepository postRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private SubscriptionRepository subscriptionRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void repeatedAuthorPostReadsAreServedFromCache() {
+		User author = userRepository.save(user("cached-author@example.com"));
+		createPosts(author, 3);
+		postRepository.findAllByAuthorId(author.getId());
+
+		statistics.clear();
+		List<Post> posts = postRepository.findAllByAuthorId(author.getId());
+		Post byId = postRepository.findById(posts.get(0).getId()).orElseThrow();
+
+		assertThat(posts).hasSize(3).allSatisfy(post -> assertThat(post.getAuthor().getEmail())
+				.isEqualTo("cached-author@example.com"));
+		assertThat(byId.getTitle()).isEqualTo(posts.get(0).getTitle());
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+		// Посты с авторами из entity graph лежат в самом кэше запросов, регион сущностей читает только findById
+		assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+	}
+
+	@Test
+	void editRefreshesCachedPostAndAuthorQuery() {
+		User author = userRepository.save(user("edit-author@example.com"));
+		Post post = createPosts(author, 1).get(0);
+		postRepository.findAllByAuthorId(author.getId());
+
+		Post update = new Post();
+		update.setTitle("Edited title");
+		update.setContent("Edited content");
+		postService.editPost(post.getId(), update);
+
+		statistics.clear();
+		assertThat(postRepository.findById(post.getId()).orElseThrow().getTitle()).isEqualTo("Edited title");
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(postRepository.findAllByAuthorId(author.getId()))
+				.extracting(Post::getTitle).containsExactly("Edited title");
+	}
+
+	@Test
+	void deleteEvictsPostAndAuthorQuery() {
+		User author = userRepository.save(user("delete-author@example.com"));
+		List<Post> posts = createPosts(author, 2);
+		postRepository.findAllByAuthorId(author.getId());
+		postRepository.findById(posts.get(0).getId());
+
+		postService.deletePost(posts.get(0).getId());
+
+		assertThat(postRepository.findById(posts.get(0).getId())).isEmpty();
+		assertThat(postRepository.findAllByAuthorId(author.getId()))
+				.extracting(Post::getId).containsExactly(posts.get(1).getId());
+	}
+
+	@Test
+	void subscriptionLookupByUserIsServedFromQueryCache() {
+		User user = userRepository.save(user("cached-subscriber@example.com"));
+		Subscription subscription = new Subscription();
+		subscription.setUser(user);
+		subscription.setExpiryDate(LocalDateTime.now().plusDays(30));
+		subscriptionRepository.save(subscription);
+		subscriptionRepository.findFirstByUser_IdOrderByExpiryDateDesc(user.getId());
+
+		statistics.clear();
+		assertThat(subscriptionRepository.findFirstByUser_IdOrderByExpiryDateDesc(user.getId())).isPresent();
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	private List<Post> createPosts(User author, int count) {
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Post post = new Post();
+			post.setTitle("Cached post " + i);
+			post.setContent("Content " + i);
+			post.setCreatedAt(LocalDateTime.now());
+			post.setAuthor(author);
+			posts.add(post);
+		}
+		return postRepository.saveAll(posts);
+	}
+}
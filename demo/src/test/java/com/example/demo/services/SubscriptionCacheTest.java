@@ -0,0 +1,152 @@
+package com.example.demo.services;
+
+import com.example.demo.repositories.SubscriptionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubscriptionCacheTest {
+
+	private static final Instant START = Instant.parse("2024-06-01T00:00:00Z");
+
+	private final SubscriptionRepository repository = mock(SubscriptionRepository.class);
+	private final AtomicLong nanos = new AtomicLong();
+	private final MutableClock clock = new MutableClock();
+	private final SubscriptionCache cache =
+			new SubscriptionCache(repository, 1_000, Duration.ofSeconds(30), nanos::get, clock);
+
+	@Test
+	void activeSubscriptionIsCachedUntilItsExpiryDate() {
+		when(repository.findLatestExpiryDateByUserId(1L)).thenReturn(Optional.of(now().plusHours(2)));
+
+		assertThat(cache.hasActiveSubscription(1L)).isTrue();
+		advance(Duration.ofMinutes(119));
+		assertThat(cache.hasActiveSubscription(1L)).isTrue();
+		verify(repository, times(1)).findLatestExpiryDateByUserId(1L);
+
+		advance(Duration.ofMinutes(2));
+		assertThat(cache.hasActiveSubscription(1L)).isFalse();
+		verify(repository, times(2)).findLatestExpiryDateByUserId(1L);
+	}
+
+	@Test
+	void missingSubscriptionIsCachedForNegativeTtl() {
+		when(repository.findLatestExpiryDateByUserId(2L)).thenReturn(Optional.empty());
+
+		assertThat(cache.hasActiveSubscription(2L)).isFalse();
+		advance(Duration.ofSeconds(29));
+		assertThat(cache.hasActiveSubscription(2L)).isFalse();
+		verify(repository, times(1)).findLatestExpiryDateByUserId(2L);
+
+		advance(Duration.ofSeconds(2));
+		cache.hasActiveSubscription(2L);
+		verify(repository, times(2)).findLatestExpiryDateByUserId(2L);
+	}
+
+	@Test
+	void invalidateForcesReload() {
+		when(repository.findLatestExpiryDateByUserId(3L)).thenReturn(Optional.empty());
+		assertThat(cache.hasActiveSubscription(3L)).isFalse();
+
+		when(repository.findLatestExpiryDateByUserId(3L)).thenReturn(Optional.of(now().plusDays(30)));
+		cache.invalidate(3L);
+
+		assertThat(cache.hasActiveSubscription(3L)).isTrue();
+		assertThat(cache.stats().loadCount()).isEqualTo(2);
+	}
+
+	@Test
+	void statusLoadedBeforeInvalidationIsNotCached() {
+		long generation = cache.generation();
+		cache.invalidate(5L);
+		cache.putLoaded(5L, Optional.empty(), generation);
+
+		assertThat(cache.getIfPresent(5L)).isNull();
+
+		cache.putLoaded(5L, Optional.of(now().plusDays(1)), cache.generation());
+
+		assertThat(cache.getIfPresent(5L)).isPresent();
+		assertThat(cache.hasActiveSubscription(5L)).isTrue();
+		verify(repository, times(0)).findLatestExpiryDateByUserId(5L);
+	}
+
+	@Test
+	void concurrentMissesShareSingleLoad() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		when(repository.findLatestExpiryDateByUserId(4L)).thenAnswer(invocation -> {
+			loading.await(1, TimeUnit.SECONDS);
+			return Optional.of(now().plusDays(1));
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> cache.hasActiveSubscription(4L)));
+			}
+			Thread.sleep(100);
+			loading.countDown();
+			for (Future<Boolean> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isTrue();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		verify(repository, times(1)).findLatestExpiryDateByUserId(4L);
+		assertThat(cache.stats().hitCount() + cache.stats().missCount()).isEqualTo(8);
+	}
+
+	private LocalDateTime now() {
+		return LocalDateTime.now(clock);
+	}
+
+	private void advance(Duration duration) {
+		nanos.addAndGet(duration.toNanos());
+		clock.advance(duration);
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant instant = START;
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.Subscription;
+import com.example.demo.entities.User;
+import com.example.demo.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static com.example.demo.services.PostServiceBatchTest.post;
+import static com.example.demo.services.PostServiceBatchTest.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SubscriptionServiceTest {
+
+	@Autowired
+	private SubscriptionService subscriptionService;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private SubscriptionCache subscriptionCache;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void renewalAddsRowAndLatestExpiryDateWins() {
+		User user = userRepository.save(user("renewing-subscriber@example.com"));
+		postService.createPost(post("Renewed post", user.getId()));
+		LocalDateTime expired = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+		LocalDateTime renewed = LocalDateTime.now().plusDays(30).truncatedTo(ChronoUnit.SECONDS);
+
+		subscriptionService.createSubscription(subscription(user, expired));
+		assertThat(subscriptionCache.hasActiveSubscription(user.getId())).isFalse();
+		subscriptionService.createSubscription(subscription(user, renewed));
+		// Более ранняя подписка, добавленная после продления, не отменяет его
+		subscriptionService.createSubscription(subscription(user, expired));
+
+		assertThat(subscriptionCache.hasActiveSubscription(user.getId())).isTrue();
+		assertThat(subscriptionService.getSubscription(user.getId()).getExpiryDate()).isEqualTo(renewed);
+		assertThat(postService.getUserPostsIfSubscribed(user.getId(), null, null).getPosts()).hasSize(1);
+		assertThat(postService.getUserPostsETag(user.getId())).isNotNull();
+	}
+
+	private static Subscription subscription(User user, LocalDateTime expiryDate) {
+		Subscription subscription = new Subscription();
+		subscription.setUser(user);
+		subscription.setExpiryDate(expiryDate);
+		return subscription;
+	}
+}
@@ -0,0 +1,275 @@
+package com.example.demo.services;
+
+import com.example.demo.services.WebSocketService.SlowConsumerPolicy;
+import com.example.demo.support.FakeWebSocketSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebSocketServiceTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(WebSocketServiceTest.class);
+
+	private static final int FAST_SESSIONS = 5_000;
+	private static final int SLOW_SESSIONS = 3;
+	private static final int BROADCASTS = 20;
+
+	private WebSocketService webSocketService;
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		webSocketService.destroy();
+	}
+
+	@Test
+	void slowSessionsDoNotDelayBroadcastToThousandsOfOthers() throws Exception {
+		webSocketService = newService(256, 5_000, SlowConsumerPolicy.DROP_OLDEST);
+		CountDownLatch[] delivered = new CountDownLatch[BROADCASTS];
+		Arrays.setAll(delivered, i -> new CountDownLatch(FAST_SESSIONS));
+		for (int i = 0; i < FAST_SESSIONS; i++) {
+			FakeWebSocketSession session = new FakeWebSocketSession("fast-" + i);
+			session.onMessage(payload -> delivered[Integer.parseInt(payload)].countDown());
+			webSocketService.addSession(session);
+		}
+		for (int i = 0; i < SLOW_SESSIONS; i++) {
+			webSocketService.addSession(new FakeWebSocketSession("slow-" + i, 300));
+		}
+
+		long[] latencies = new long[BROADCASTS];
+		long slowestCall = 0;
+		for (int i = 0; i < BROADCASTS; i++) {
+			long start = System.nanoTime();
+			webSocketService.sendMessageToAll(String.valueOf(i));
+			slowestCall = Math.max(slowestCall, System.nanoTime() - start);
+			assertThat(delivered[i].await(10, TimeUnit.SECONDS)).isTrue();
+			latencies[i] = System.nanoTime() - start;
+		}
+
+		Arrays.sort(latencies);
+		logger.info("Broadcast to {} sessions: p50={} ms, max={} ms, slowest sendMessageToAll call={} us",
+				FAST_SESSIONS + SLOW_SESSIONS, TimeUnit.NANOSECONDS.toMillis(latencies[BROADCASTS / 2]),
+				TimeUnit.NANOSECONDS.toMillis(latencies[BROADCASTS - 1]), TimeUnit.NANOSECONDS.toMicros(slowestCall));
+		// Вызывающий поток только ставит рассылку в очередь и не ждёт медленных клиентов
+		assertThat(slowestCall).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+	}
+
+	@Test
+	void dropOldestPolicyKeepsSlowSessionOpenAndDiscardsOldestMessages() throws InterruptedException {
+		webSocketService = newService(3, 60_000, SlowConsumerPolicy.DROP_OLDEST);
+		FakeWebSocketSession slow = new FakeWebSocketSession("slow", 200);
+		webSocketService.addSession(slow);
+
+		for (int i = 0; i < 10; i++) {
+			webSocketService.sendMessageToAll("message-" + i);
+			pause();
+		}
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> slow.getReceived().contains("message-9"));
+		assertThat(slow.isOpen()).isTrue();
+		assertThat(slow.getReceived()).hasSizeLessThan(10).isSorted();
+	}
+
+	@Test
+	void disconnectPolicyClosesSlowSession() throws InterruptedException {
+		webSocketService = newService(3, 60_000, SlowConsumerPolicy.DISCONNECT);
+		FakeWebSocketSession slow = new FakeWebSocketSession("slow", 200);
+		FakeWebSocketSession fast = new FakeWebSocketSession("fast");
+		webSocketService.addSession(slow);
+		webSocketService.addSession(fast);
+
+		List<String> sent = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			sent.add("message-" + i);
+			webSocketService.sendMessageToAll("message-" + i);
+			pause();
+		}
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> !slow.isOpen());
+		assertThat(slow.getCloseStatus()).isEqualTo(CloseStatus.SESSION_NOT_RELIABLE);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> fast.getReceived().size() == sent.size());
+		assertThat(webSocketService.getSessionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void publishReachesOnlySubscribersOfTheTopic() {
+		webSocketService = newService(256, 5_000, SlowConsumerPolicy.DROP_OLDEST);
+		FakeWebSocketSession author = new FakeWebSocketSession("author");
+		FakeWebSocketSession other = new FakeWebSocketSession("other");
+		FakeWebSocketSession idle = new FakeWebSocketSession("idle");
+		webSocketService.addSession(author);
+		webSocketService.addSession(other);
+		webSocketService.addSession(idle);
+		webSocketService.subscribe(author, "author:1");
+		webSocketService.subscribe(other, "author:2");
+
+		webSocketService.publish(List.of("author:1"), "for-1");
+		webSocketService.publish(List.of("author:2"), "for-2");
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> other.getReceived().contains("for-2"));
+		assertThat(author.getReceived()).containsExactly("for-1");
+		assertThat(other.getReceived()).containsExactly("for-2");
+		assertThat(idle.getReceived()).isEmpty();
+	}
+
+	@Test
+	void sessionSubscribedToSeveralTargetTopicsGetsMessageOnce() {
+		webSocketService = newService(256, 5_000, SlowConsumerPolicy.DROP_OLDEST);
+		FakeWebSocketSession session = new FakeWebSocketSession("both");
+		webSocketService.addSession(session);
+		webSocketService.subscribe(session, "author:1");
+		webSocketService.subscribe(session, "posts");
+
+		webSocketService.publish(List.of("author:1", "posts"), "once");
+		webSocketService.publish(List.of("posts"), "marker");
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> session.getReceived().contains("marker"));
+		assertThat(session.getReceived()).containsExactly("once", "marker");
+	}
+
+	@Test
+	void batchPublishSendsEachSessionOneFrameWithItemsOfItsTopics() {
+		webSocketService = newService(256, 5_000, SlowConsumerPolicy.DROP_OLDEST);
+		FakeWebSocketSession feed = new FakeWebSocketSession("feed");
+		FakeWebSocketSession both = new FakeWebSocketSession("both");
+		FakeWebSocketSession authors = new FakeWebSocketSession("authors");
+		for (FakeWebSocketSession session : List.of(feed, both, authors)) {
+			webSocketService.addSession(session);
+		}
+		webSocketService.subscribe(feed, "posts");
+		webSocketService.subscribe(both, "posts");
+		webSocketService.subscribe(both, "author:1");
+		webSocketService.subscribe(authors, "author:1");
+		webSocketService.subscribe(authors, "author:2");
+		Map<String, List<String>> batch = new LinkedHashMap<>();
+		batch.put("posts", List.of("a", "b", "c"));
+		batch.put("author:1", List.of("a", "c"));
+		batch.put("author:2", List.of("b"));
+
+		webSocketService.publish(batch, items -> String.join(",", items));
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> !authors.getReceived().isEmpty()
+				&& !feed.getReceived().isEmpty() && !both.getReceived().isEmpty());
+		assertThat(feed.getReceived()).containsExactly("a,b,c");
+		assertThat(both.getReceived()).containsExactly("a,b,c");
+		assertThat(authors.getReceived()).singleElement().asString().contains("a").contains("b").contains("c");
+	}
+
+	@Test
+	void unsubscribeAndCloseRemoveSessionFromTopicIndex() {
+		webSocketService = newService(256, 5_000, SlowConsumerPolicy.DROP_OLDEST);
+		FakeWebSocketSession first = new FakeWebSocketSession("first");
+		FakeWebSocketSession second = new FakeWebSocketSession("second");
+		webSocketService.addSession(first);
+		webSocketService.addSession(second);
+		webSocketService.subscribe(first, "author:1");
+		webSocketService.subscribe(first, "posts");
+		webSocketService.subscribe(second, "posts");
+		assertThat(webSocketService.getTopicCount()).isEqualTo(2);
+
+		webSocketService.unsubscribe(first, "author:1");
+		webSocketService.removeSession(first);
+
+		assertThat(webSocketService.getTopicCount()).isEqualTo(1);
+		webSocketService.removeSession(second);
+		assertThat(webSocketService.getTopicCount()).isZero();
+	}
+
+	@Test
+	void subscriptionsPerSessionAreLimited() {
+		webSocketService = newService(256, 5_000, SlowConsumerPolicy.DROP_OLDEST);
+		FakeWebSocketSession session = new FakeWebSocketSession("greedy");
+		webSocketService.addSession(session);
+
+		for (int i = 1; i <= 3; i++) {
+			assertThat(webSocketService.subscribe(session, "author:" + i)).isTrue();
+		}
+
+		assertThat(webSocketService.subscribe(session, "author:4")).isFalse();
+		assertThat(webSocketService.subscribe(session, "author:1")).isTrue();
+		assertThat(webSocketService.subscribe(new FakeWebSocketSession("unknown"), "posts")).isFalse();
+	}
+
+	@Test
+	void containerSendIsLimitedBySendTimeLimit() {
+		webSocketService = newService(256, 1_500, SlowConsumerPolicy.DROP_OLDEST);
+		Session container = mock(Session.class);
+		Map<String, Object> userProperties = new HashMap<>();
+		when(container.getId()).thenReturn("native");
+		when(container.getUserProperties()).thenReturn(userProperties);
+		StandardWebSocketSession session = new StandardWebSocketSession(null, null, null, null);
+		session.initializeNativeSession(container);
+
+		webSocketService.addSession(new WebSocketSessionDecorator(session));
+
+		assertThat(userProperties).containsEntry(WebSocketService.BLOCKING_SEND_TIMEOUT, 1_500L);
+	}
+
+	@Test
+	void fullFanOutQueueDropsOldestPendingBroadcast() throws InterruptedException {
+		webSocketService = new WebSocketService(Executors.newFixedThreadPool(2), 256, 512 * 1024, 5_000,
+				SlowConsumerPolicy.DROP_OLDEST, 3, 2);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		webSocketService.bindTo(registry);
+		FakeWebSocketSession session = new FakeWebSocketSession("reader");
+		webSocketService.addSession(session);
+		webSocketService.subscribe(session, "posts");
+		CountDownLatch rendering = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// Поток рассылки занят, пока не отпущен release
+		webSocketService.publish(Map.of("posts", List.of("blocked")), items -> {
+			rendering.countDown();
+			awaitQuietly(release);
+			return String.join(",", items);
+		});
+		assertThat(rendering.await(5, TimeUnit.SECONDS)).isTrue();
+
+		webSocketService.sendMessageToAll("1");
+		webSocketService.sendMessageToAll("2");
+		webSocketService.sendMessageToAll("3");
+
+		assertThat(registry.get("websocket.fan-out.queue").gauge().value()).isEqualTo(2);
+		assertThat(registry.get("websocket.fan-out.dropped").functionCounter().count()).isEqualTo(1);
+		release.countDown();
+		await().atMost(5, TimeUnit.SECONDS).until(() -> session.getReceived().contains("3"));
+		assertThat(session.getReceived()).containsExactly("blocked", "2", "3");
+		assertThat(registry.get("websocket.fan-out.queue").gauge().value()).isZero();
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Быстрая сессия успевает разобрать очередь между сообщениями, медленная (200 мс на отправку) нет
+	private static void pause() throws InterruptedException {
+		Thread.sleep(20);
+	}
+
+	private static WebSocketService newService(int queueCapacity, int sendTimeLimitMs, SlowConsumerPolicy policy) {
+		return new WebSocketService(Executors.newFixedThreadPool(8), queueCapacity, 512 * 1024, sendTimeLimitMs, policy, 3);
+	}
+}
@@ -0,0 +1,146 @@
+package com.example.demo.support;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * WebSocket-сессия без сети для тестов: запоминает полученные текстовые сообщения
+ * и может имитировать медленного клиента задержкой отправки.
+ */
+public class FakeWebSocketSession implements WebSocketSession {
+
+	private final String id;
+	private final long sendDelayMillis;
+	private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+	private final List<String> received = new CopyOnWriteArrayList<>();
+	private volatile Consumer<String> onMessage = payload -> { };
+	private volatile boolean open = true;
+	private volatile CloseStatus closeStatus;
+
+	public FakeWebSocketSession(String id) {
+		this(id, 0);
+	}
+
+	public FakeWebSocketSession(String id, long sendDelayMillis) {
+		this.id = id;
+		this.sendDelayMillis = sendDelayMillis;
+	}
+
+	public List<String> getReceived() {
+		return received;
+	}
+
+	public void onMessage(Consumer<String> onMessage) {
+		this.onMessage = onMessage;
+	}
+
+	public CloseStatus getCloseStatus() {
+		return closeStatus;
+	}
+
+	@Override
+	public void sendMessage(WebSocketMessage<?> message) {
+		if (sendDelayMillis > 0) {
+			try {
+				Thread.sleep(sendDelayMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		String payload = ((TextMessage) message).getPayload();
+		received.add(payload);
+		onMessage.accept(payload);
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public URI getUri() {
+		return URI.create("ws://localhost/ws");
+	}
+
+	@Override
+	public HttpHeaders getHandshakeHeaders() {
+		return new HttpHeaders();
+	}
+
+	@Override
+	public Map<String, Object> getAttributes() {
+		return attributes;
+	}
+
+	@Override
+	public Principal getPrincipal() {
+		return null;
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return null;
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return null;
+	}
+
+	@Override
+	public String getAcceptedProtocol() {
+		return null;
+	}
+
+	@Override
+	public void setTextMessageSizeLimit(int messageSizeLimit) {
+	}
+
+	@Override
+	public int getTextMessageSizeLimit() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+	}
+
+	@Override
+	public int getBinaryMessageSizeLimit() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public List<WebSocketExtension> getExtensions() {
+		return List.of();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public void close() {
+		close(CloseStatus.NORMAL);
+	}
+
+	@Override
+	public void close(CloseStatus status) {
+		this.closeStatus = status;
+		this.open = false;
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class AdaptiveBatcherTest {
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+	private final AtomicLong clock = new AtomicLong();
+	private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	void firstItemAfterIdleIsSentWithoutWaiting() {
+		AdaptiveBatcher<Integer> batcher = newBatcher(20, 100, 100);
+
+		batcher.add(1);
+
+		assertThat(batches).containsExactly(List.of(1));
+	}
+
+	@Test
+	void itemsArrivingWithinTheWindowAreCoalesced() {
+		AdaptiveBatcher<Integer> batcher = newBatcher(20, 100, 100);
+
+		batcher.add(1);
+		batcher.add(2);
+		batcher.add(3);
+		assertThat(batches).hasSize(1);
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> batches.size() == 2);
+		assertThat(batches).containsExactly(List.of(1), List.of(2, 3));
+	}
+
+	@Test
+	void largeAdditionIsSplitIntoBatchesOfMaxSize() {
+		AdaptiveBatcher<Integer> batcher = newBatcher(20, 100, 100);
+
+		batcher.addAll(IntStream.range(0, 250).boxed().toList());
+		batcher.flush();
+
+		assertThat(batches).extracting(List::size).containsExactly(100, 100, 50);
+	}
+
+	@Test
+	void windowGrowsUnderLoadAndResetsAfterIdle() {
+		AdaptiveBatcher<Integer> batcher = newBatcher(1, 50, 2);
+
+		for (int i = 0; i < 10; i++) {
+			batcher.addAll(List.of(i, i));
+		}
+		assertThat(batcher.getWindow(TimeUnit.MILLISECONDS)).isEqualTo(50);
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(60));
+		batcher.add(42);
+
+		assertThat(batches).last().isEqualTo(List.of(42));
+		assertThat(batcher.getWindow(TimeUnit.MILLISECONDS)).isEqualTo(1);
+	}
+
+	private AdaptiveBatcher<Integer> newBatcher(long minWindowMillis, long maxWindowMillis, int maxBatch) {
+		return new AdaptiveBatcher<>(batches::add, scheduler, clock::get, minWindowMillis, maxWindowMillis,
+				TimeUnit.MILLISECONDS, maxBatch);
+	}
+}
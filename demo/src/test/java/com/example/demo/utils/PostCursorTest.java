@@ -0,0 +1,27 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PostCursorTest {
+
+	@Test
+	void roundTripsThroughOpaqueToken() {
+		PostCursor cursor = new PostCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000), 42L);
+
+		PostCursor decoded = PostCursor.decode(cursor.encode());
+
+		assertThat(decoded.getCreatedAt()).isEqualTo(cursor.getCreatedAt());
+		assertThat(decoded.getId()).isEqualTo(42L);
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		assertThatThrownBy(() -> PostCursor.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PostCursor.decode("MjAyNC0wNS0wMQ")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
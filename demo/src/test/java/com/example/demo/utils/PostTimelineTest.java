@@ -0,0 +1,51 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostTimelineTest {
+
+	@Test
+	void keepsNewestIdsUpToCapacity() {
+		PostTimeline timeline = new PostTimeline(3);
+		for (long id = 1; id <= 5; id++) {
+			assertThat(timeline.add(id)).isTrue();
+		}
+
+		assertThat(timeline.size()).isEqualTo(3);
+		assertThat(timeline.before(Long.MAX_VALUE, 10)).containsExactly(5, 4, 3);
+	}
+
+	@Test
+	void lateIdsAreInsertedInOrderAndDuplicatesIgnored() {
+		PostTimeline timeline = PostTimeline.of(4, List.of(50L, 30L, 10L));
+
+		assertThat(timeline.add(40)).isTrue();
+		assertThat(timeline.add(30)).isFalse();
+		assertThat(timeline.before(Long.MAX_VALUE, 10)).containsExactly(50, 40, 30, 10);
+
+		// Полная лента: запоздавший пост вытесняет самый старый, а пост старше всех не попадает
+		assertThat(timeline.add(20)).isTrue();
+		assertThat(timeline.add(5)).isFalse();
+		assertThat(timeline.before(Long.MAX_VALUE, 10)).containsExactly(50, 40, 30, 20);
+	}
+
+	@Test
+	void pagesByCursorAndRemovesIds() {
+		PostTimeline timeline = PostTimeline.of(10, List.of(9L, 7L, 5L, 3L, 1L));
+
+		assertThat(timeline.before(Long.MAX_VALUE, 2)).containsExactly(9, 7);
+		assertThat(timeline.before(7, 2)).containsExactly(5, 3);
+		assertThat(timeline.before(6, 10)).containsExactly(5, 3, 1);
+		assertThat(timeline.before(1, 10)).isEmpty();
+
+		assertThat(timeline.remove(5)).isTrue();
+		assertThat(timeline.remove(4)).isFalse();
+		assertThat(timeline.before(Long.MAX_VALUE, 10)).containsExactly(9, 7, 3, 1);
+		assertThat(timeline.add(11)).isTrue();
+		assertThat(timeline.before(Long.MAX_VALUE, 10)).containsExactly(11, 9, 7, 3, 1);
+	}
+}
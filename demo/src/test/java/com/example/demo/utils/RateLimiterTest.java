@@ -0,0 +1,94 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+	private final AtomicLong nanos = new AtomicLong();
+	private final RateLimiter<String> limiter = new RateLimiter<>(10, Duration.ofSeconds(1), 1_000, nanos::get);
+
+	@Test
+	void allowsBurstThenRefillsOneTokenPerInterval() {
+		for (int i = 0; i < 10; i++) {
+			assertThat(limiter.tryAcquire("alice")).isZero();
+		}
+		assertThat(limiter.tryAcquire("alice")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+		advance(Duration.ofMillis(60));
+		assertThat(limiter.tryAcquire("alice")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+		advance(Duration.ofMillis(40));
+		assertThat(limiter.tryAcquire("alice")).isZero();
+		assertThat(limiter.tryAcquire("alice")).isPositive();
+	}
+
+	@Test
+	void keysHaveSeparateBuckets() {
+		for (int i = 0; i < 10; i++) {
+			limiter.tryAcquire("alice");
+		}
+
+		assertThat(limiter.tryAcquire("alice")).isPositive();
+		assertThat(limiter.tryAcquire("bob")).isZero();
+	}
+
+	@Test
+	void idleKeysAreEvictedOnceTheirBucketIsFull() {
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire("client" + i);
+		}
+		assertThat(limiter.size()).isEqualTo(100);
+
+		advance(Duration.ofMillis(900));
+		limiter.tryAcquire("client0");
+		advance(Duration.ofMillis(600));
+		limiter.cleanUp();
+		assertThat(limiter.size()).isEqualTo(1);
+		// Вытесненный ключ начинает с полного ведра, как и до вытеснения
+		assertThat(limiter.tryAcquire("client1")).isZero();
+	}
+
+	@Test
+	void concurrentCallersNeverExceedTheBurst() throws Exception {
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> granted = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			granted.add(executor.submit(() -> {
+				start.await();
+				int count = 0;
+				for (int i = 0; i < 1_000; i++) {
+					if (limiter.tryAcquire("shared") == 0) {
+						count++;
+					}
+				}
+				return count;
+			}));
+		}
+
+		start.countDown();
+		int total = 0;
+		for (Future<Integer> future : granted) {
+			total += future.get(10, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertThat(total).isEqualTo(10);
+	}
+
+	private void advance(Duration duration) {
+		nanos.addAndGet(duration.toNanos());
+	}
+}
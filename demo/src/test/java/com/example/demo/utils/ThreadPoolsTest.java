@@ -0,0 +1,57 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ThreadPoolsTest {
+
+	@Test
+	void platformPoolUsesNamedPlatformThreads() throws Exception {
+		Thread thread = runOn(ThreadPools.newPool("test-platform-", 2, false));
+
+		assertThat(thread.getName()).startsWith("test-platform-");
+		assertThat(isVirtual(thread)).isFalse();
+	}
+
+	@Test
+	void virtualPoolRunsEachTaskOnVirtualThreadOnJava21() throws Exception {
+		assumeTrue(ThreadPools.virtualThreadsSupported(), "virtual threads need Java 21+");
+
+		Thread thread = runOn(ThreadPools.newPool("test-virtual-", 2, true));
+
+		assertThat(thread.getName()).startsWith("test-virtual-");
+		assertThat(isVirtual(thread)).isTrue();
+	}
+
+	@Test
+	void virtualFlagFallsBackToPlatformThreadsBeforeJava21() throws Exception {
+		assumeTrue(!ThreadPools.virtualThreadsSupported(), "only relevant before Java 21");
+
+		Thread thread = runOn(ThreadPools.newPool("test-fallback-", 2, true));
+
+		assertThat(isVirtual(thread)).isFalse();
+	}
+
+	private static Thread runOn(ExecutorService pool) throws Exception {
+		try {
+			return pool.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// Thread.isVirtual() появился в Java 21, а тесты компилируются под Java 17
+	private static boolean isVirtual(Thread thread) throws Exception {
+		if (!ThreadPools.virtualThreadsSupported()) {
+			return false;
+		}
+		Method isVirtual = Thread.class.getMethod("isVirtual");
+		return (boolean) isVirtual.invoke(thread);
+	}
+}
@@ -0,0 +1,355 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сравнение чтения постов автора через сервлетный стек (/api/posts/user) и реактивный (/api/reactive/posts/user)
+ * при loadtest.readers.concurrency одновременных читателях. Параметры — loadtest.readers.* в loadtest.properties.
+ *
+ * Читатели работают по замкнутой модели: каждый повторяет запрос сразу после ответа, поэтому одновременно
+ * в приложении всегда concurrency запросов. Каждый стек проверяется в своём процессе приложения
+ * ({@link ReaderServer}): прогрев, память без нагрузки, затем замер задержек и память под нагрузкой.
+ * Память снимается трижды: до читателей, после прогрева без нагрузки (соединения читателей открыты)
+ * и под нагрузкой. Память на читателя — прирост живой кучи (и RSS) под нагрузкой от исходной, делённый
+ * на число читателей; она делится на то, что остаётся за простаивающим соединением (в Tomcat соединение,
+ * обслужившее асинхронный запрос, держит свой процессор с буферами), и на состояние самих запросов
+ * в обработке (потоки, буферы, ожидающие задачи).
+ *
+ * Результат — readers.json и распределения задержек readers-&lt;стек&gt;.hgrm в loadtest.result-dir.
+ * Порогов нет: это сравнение двух стеков на одной машине, а не проверка регрессии.
+ */
+public final class ConcurrentReaders {
+
+    private static final String ACCEPT_NDJSON = "application/x-ndjson";
+    private static final String ACCEPT_JSON = "application/json";
+    // Читателей, подключаемых за один шаг разгона, чтобы тысячи соединений не переполнили backlog сервера
+    private static final int RAMP_STEP = 200;
+    private static final long RAMP_PAUSE_MS = 20;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+
+    private final LoadTestConfig config;
+    private final List<String> args;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ConcurrentReaders(LoadTestConfig config, List<String> args) {
+        this.config = config;
+        this.args = args;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        new ConcurrentReaders(config, Arrays.asList(args)).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("startedAt", Instant.now().toString());
+        ObjectNode configNode = result.putObject("config");
+        configNode.put("concurrency", config.readers);
+        configNode.put("warmupSeconds", config.readersWarmup.toMillis() / 1_000.0);
+        configNode.put("durationSeconds", config.readersDuration.toMillis() / 1_000.0);
+        configNode.put("limit", config.readersLimit);
+        configNode.put("authors", config.authors);
+        configNode.put("posts", config.posts);
+        configNode.put("serverJvmArgs", config.readersServerJvmArgs);
+        configNode.put("cpus", Runtime.getRuntime().availableProcessors());
+        ObjectNode stacks = result.putObject("stacks");
+        for (String key : config.readersStacks) {
+            ReadStack stack = ReadStack.byKey(key);
+            System.out.printf("Measuring %s reads with %d concurrent readers%n", stack.key, config.readers);
+            measure(stack, stacks.putObject(stack.key));
+        }
+        Files.createDirectories(config.resultDir);
+        Path file = config.resultDir.resolve("readers.json");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), result);
+        System.out.printf("%-10s %10s %10s %10s %10s %12s %12s %12s %8s%n", "stack", "req/s", "p50 ms", "p99 ms",
+                "p999 ms", "heap B/rdr", "idle B/conn", "rss B/rdr", "workers");
+        stacks.fields().forEachRemaining(entry -> {
+            ObjectNode node = (ObjectNode) entry.getValue();
+            System.out.printf("%-10s %10.0f %10.1f %10.1f %10.1f %12.0f %12.0f %12.0f %8d%n", entry.getKey(),
+                    node.path("throughput").asDouble(), node.path("latencyMs").path("p50").asDouble(),
+                    node.path("latencyMs").path("p99").asDouble(), node.path("latencyMs").path("p999").asDouble(),
+                    node.path("heapPerReader").asDouble(), node.path("heapPerIdleConnection").asDouble(),
+                    node.path("rssPerReader").asDouble(), node.path("loaded").path("tomcatWorkers").asInt());
+        });
+        System.out.printf("Results in %s%n", file.toAbsolutePath());
+    }
+
+    private void measure(ReadStack stack, ObjectNode node) throws Exception {
+        ExecutorService responses = Executors.newFixedThreadPool(4);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(responses)
+                .build();
+        try (ServerProcess server = ServerProcess.start(serverCommand(stack))) {
+            URI base = URI.create("http://localhost:" + server.port);
+            check(client, base, stack);
+            ReaderServer.Sample baseline = server.sample();
+            Readers readers = new Readers(client, base, stack);
+
+            readers.start(config.readers);
+            Thread.sleep(config.readersWarmup.toMillis());
+            readers.stop();
+            ReaderServer.Sample idle = server.sample();
+
+            readers.start(config.readers);
+            Thread.sleep(config.readersSettle.toMillis());
+            LatencyStats stats = new LatencyStats();
+            readers.stats = stats;
+            Thread.sleep(config.readersDuration.toMillis());
+            readers.stats = null;
+            int inFlight = readers.inFlight.get();
+            ReaderServer.Sample loaded = server.sample();
+            readers.stop();
+
+            stats.writeTo(node, config.readersDuration.toNanos() / 1e9);
+            writeSample(node.putObject("baseline"), baseline);
+            writeSample(node.putObject("idle"), idle);
+            writeSample(node.putObject("loaded"), loaded);
+            node.put("inFlight", inFlight);
+            node.put("heapPerReader", (double) (loaded.heapBytes() - baseline.heapBytes()) / config.readers);
+            node.put("heapPerIdleConnection", (double) (idle.heapBytes() - baseline.heapBytes()) / config.readers);
+            node.put("heapPerInFlightRequest", (double) (loaded.heapBytes() - idle.heapBytes()) / inFlight);
+            if (baseline.rssBytes() >= 0) {
+                node.put("rssPerReader", (double) (loaded.rssBytes() - baseline.rssBytes()) / config.readers);
+            }
+            Files.createDirectories(config.resultDir);
+            stats.writeDistribution(config.resultDir.resolve("readers-" + stack.key + ".hgrm"));
+        } finally {
+            responses.shutdownNow();
+        }
+    }
+
+    private List<String> serverCommand(ReadStack stack) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(config.readersServerJvmArgs.trim().split("\\s+")));
+        command.add("-classpath");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ReaderServer.class.getName());
+        command.addAll(args);
+        command.add("--loadtest.result-dir=" + config.resultDir.resolve("readers-" + stack.key));
+        command.add("--app.reactive.enabled=true");
+        // Под насыщением очередь к пулу R2DBC ждёт столько же, сколько очередь Tomcat в сервлетном стеке,
+        // у которой нет таймаута; иначе реактивный стек отвечал бы ошибками вместо задержек
+        command.add("--app.reactive.max-acquire-time=" + REQUEST_TIMEOUT.toSeconds() + "s");
+        // Все читатели должны быть приняты Tomcat, а не ждать в очереди ядра
+        command.add("--server.tomcat.max-connections=" + (config.readers + 1_000));
+        command.add("--server.tomcat.accept-count=" + RAMP_STEP * 5);
+        // Соединения не переоткрываются, и память без нагрузки снимается при тех же открытых соединениях
+        command.add("--server.tomcat.max-keep-alive-requests=-1");
+        return command;
+    }
+
+    /**
+     * Оба стека должны отдавать одну и ту же страницу, иначе сравнение бессмысленно.
+     */
+    private void check(HttpClient client, URI base, ReadStack stack) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(stack.request(base, 1, config.readersLimit),
+                HttpResponse.BodyHandlers.ofString());
+        int posts = stack == ReadStack.SERVLET ? objectMapper.readTree(response.body()).size()
+                : (int) response.body().lines().filter(line -> !line.isBlank()).count();
+        int expected = Math.min(config.readersLimit, config.posts / config.authors);
+        if (response.statusCode() != 200 || posts != expected) {
+            throw new IllegalStateException(stack.key + " returned " + response.statusCode() + " with " + posts
+                    + " posts, expected " + expected);
+        }
+    }
+
+    private static void writeSample(ObjectNode node, ReaderServer.Sample sample) {
+        node.put("heapBytes", sample.heapBytes());
+        node.put("rssBytes", sample.rssBytes());
+        node.put("threads", sample.threads());
+        node.put("tomcatWorkers", sample.tomcatWorkers());
+    }
+
+    private enum ReadStack {
+
+        SERVLET("servlet", "/api/posts/user/", ACCEPT_JSON),
+        REACTIVE("reactive", "/api/reactive/posts/user/", ACCEPT_NDJSON);
+
+        private final String key;
+        private final String path;
+        private final String accept;
+
+        ReadStack(String key, String path, String accept) {
+            this.key = key;
+            this.path = path;
+            this.accept = accept;
+        }
+
+        HttpRequest request(URI base, long authorId, int limit) {
+            return HttpRequest.newBuilder(base.resolve(path + authorId + "?limit=" + limit))
+                    .header("Accept", accept)
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET()
+                    .build();
+        }
+
+        static ReadStack byKey(String key) {
+            for (ReadStack stack : values()) {
+                if (stack.key.equals(key)) {
+                    return stack;
+                }
+            }
+            throw new IllegalArgumentException("Unknown read stack: " + key);
+        }
+    }
+
+    /**
+     * Читатели по замкнутой модели: каждый отправляет следующий запрос из обработчика ответа на предыдущий.
+     */
+    private final class Readers {
+
+        private final HttpClient client;
+        private final URI base;
+        private final ReadStack stack;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean running;
+        private volatile LatencyStats stats;
+
+        Readers(HttpClient client, URI base, ReadStack stack) {
+            this.client = client;
+            this.base = base;
+            this.stack = stack;
+        }
+
+        void start(int readers) throws InterruptedException {
+            running = true;
+            for (int i = 0; i < readers; i++) {
+                inFlight.incrementAndGet();
+                read();
+                if ((i + 1) % RAMP_STEP == 0) {
+                    TimeUnit.MILLISECONDS.sleep(RAMP_PAUSE_MS);
+                }
+            }
+        }
+
+        /**
+         * Останавливает читателей и ждёт последних ответов.
+         */
+        void stop() throws InterruptedException {
+            running = false;
+            while (inFlight.get() > 0) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        }
+
+        private void read() {
+            long authorId = ThreadLocalRandom.current().nextLong(config.authors) + 1;
+            long start = System.nanoTime();
+            client.sendAsync(stack.request(base, authorId, config.readersLimit),
+                            HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        LatencyStats measuring = stats;
+                        if (measuring != null) {
+                            boolean ok = error == null && response.statusCode() == 200;
+                            measuring.record(System.nanoTime() - start,
+                                    error == null ? Integer.toString(response.statusCode()) : LatencyStats.FAILED,
+                                    !ok);
+                        }
+                        if (running) {
+                            read();
+                        } else {
+                            inFlight.decrementAndGet();
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Процесс {@link ReaderServer}: его stdout читается отдельным потоком, строки ответов на команды
+     * передаются в очередь, остальной вывод — в stdout этого процесса.
+     */
+    private static final class ServerProcess implements AutoCloseable {
+
+        private final Process process;
+        private final Writer commands;
+        private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        private int port;
+
+        private ServerProcess(Process process) {
+            this.process = process;
+            this.commands = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+            Thread output = new Thread(this::pumpOutput, "reader-server-output");
+            output.setDaemon(true);
+            output.start();
+        }
+
+        static ServerProcess start(List<String> command) throws IOException, InterruptedException {
+            ServerProcess server = new ServerProcess(new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+            String ready = server.reply(ReaderServer.READY, Duration.ofMinutes(5));
+            server.port = Integer.parseInt(ready.substring(ReaderServer.READY.length()).trim());
+            return server;
+        }
+
+        ReaderServer.Sample sample() throws IOException, InterruptedException {
+            commands.write(ReaderServer.SAMPLE_COMMAND + "\n");
+            commands.flush();
+            return ReaderServer.Sample.parse(reply(ReaderServer.SAMPLE, Duration.ofMinutes(1)));
+        }
+
+        @Override
+        public void close() throws Exception {
+            commands.close();
+            if (!process.waitFor(1, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+            }
+        }
+
+        private String reply(String prefix, Duration timeout) throws InterruptedException {
+            String line = replies.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (line == null || !line.startsWith(prefix)) {
+                process.destroyForcibly();
+                throw new IllegalStateException("Reader server did not reply " + prefix.trim() + ": " + line);
+            }
+            return line;
+        }
+
+        private void pumpOutput() {
+            try (BufferedReader output = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                for (String line = output.readLine(); line != null; line = output.readLine()) {
+                    if (line.startsWith(ReaderServer.READY) || line.startsWith(ReaderServer.SAMPLE)) {
+                        replies.add(line);
+                    } else {
+                        System.out.println(line);
+                    }
+                }
+            } catch (IOException e) {
+                // Процесс завершён
+            }
+            replies.add("exited with " + process.onExit().join().exitValue());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки в микросекундах и исходы одного сценария (или доставки по WebSocket) за измеряемую часть прогона.
+ * Запись потокобезопасна и не блокирует: гистограмма — {@link Recorder} HdrHistogram.
+ */
+final class LatencyStats {
+
+    /** Исход запроса, на который не пришёл ответ: генератор не отправил его из-за max-in-flight. */
+    static final String DROPPED = "dropped";
+    /** Исход запроса, упавшего без ответа: таймаут, обрыв соединения. */
+    static final String FAILED = "failed";
+
+    private final Recorder recorder = new Recorder(3);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private Histogram histogram;
+
+    void record(long latencyNanos, String outcome, boolean error) {
+        recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        count(outcome, error);
+    }
+
+    void count(String outcome, boolean error) {
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Снимает итоговую гистограмму; вызывается один раз, когда запись закончена.
+     */
+    Histogram histogram() {
+        if (histogram == null) {
+            histogram = recorder.getIntervalHistogram();
+        }
+        return histogram;
+    }
+
+    long total() {
+        return outcomes.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    double errorRate() {
+        long total = total();
+        return total == 0 ? 0 : (double) errors.sum() / total;
+    }
+
+    /**
+     * Задержка в миллисекундах для метрики p50, p99, p999 или max; null, если записей нет.
+     */
+    Double latencyMillis(String metric) {
+        Histogram histogram = histogram();
+        if (histogram.getTotalCount() == 0) {
+            return null;
+        }
+        long micros = switch (metric) {
+            case "p50" -> histogram.getValueAtPercentile(50);
+            case "p99" -> histogram.getValueAtPercentile(99);
+            case "p999" -> histogram.getValueAtPercentile(99.9);
+            case "max" -> histogram.getMaxValue();
+            default -> throw new IllegalArgumentException("Unknown latency metric: " + metric);
+        };
+        return micros / 1_000.0;
+    }
+
+    void writeTo(ObjectNode node, double seconds) {
+        long total = total();
+        node.put("requests", total);
+        node.put("errors", errors.sum());
+        node.put("errorRate", errorRate());
+        node.put("throughput", total / seconds);
+        ObjectNode latency = node.putObject("latencyMs");
+        for (String metric : new String[] {"p50", "p99", "p999", "max"}) {
+            latency.put(metric, latencyMillis(metric));
+        }
+        latency.put("mean", histogram().getTotalCount() == 0 ? null : histogram().getMean() / 1_000.0);
+        ObjectNode byOutcome = node.putObject("outcomes");
+        new TreeMap<>(outcomes).forEach((outcome, count) -> byOutcome.put(outcome, count.sum()));
+    }
+
+    /**
+     * Распределение задержек в формате HdrHistogram (.hgrm), в миллисекундах; без записей файл не пишется.
+     */
+    void writeDistribution(Path file) throws IOException {
+        if (histogram().getTotalCount() == 0) {
+            return;
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram().outputPercentileDistribution(out, 1_000.0);
+        }
+    }
+}
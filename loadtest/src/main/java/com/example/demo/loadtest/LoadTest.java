@@ -0,0 +1,274 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный тест приложения целиком: поднимает его в этом процессе на H2 в памяти, заполняет базу
+ * и подаёт смесь запросов REST по открытой модели, пока тысячи WebSocket-клиентов получают рассылки
+ * о новых постах. Параметры — в loadtest.properties.
+ *
+ * Результаты пишутся в loadtest.result-dir: result.json с пропускной способностью, p50/p99/p999
+ * и долей ошибок по сценариям, доставкой по WebSocket и итогом по порогам, и распределения задержек
+ * в формате HdrHistogram (*.hgrm). Если порог превышен, процесс завершается с кодом 1 и сборка падает.
+ *
+ * Генератор нагрузки и приложение делят процессор, поэтому абсолютные числа зависят от машины:
+ * пороги задают регрессию для одной и той же машины CI, а не обещание для продакшена.
+ */
+public final class LoadTest {
+
+    static final String PASSWORD = "Secret#123";
+
+    private static final int SEQUENCE_BLOCK = 50;
+
+    private final LoadTestConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Scenario, LatencyStats> stats = new EnumMap<>(Scenario.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final WebSocketClients webSockets;
+    private final Scenario[] scenarios;
+    private final double[] cumulativeWeights;
+    private long maxLagNanos;
+
+    private LoadTest(LoadTestConfig config) {
+        this.config = config;
+        this.webSockets = new WebSocketClients(objectMapper, config.authors);
+        List<Scenario> scenarios = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        double total = 0;
+        for (Map.Entry<Scenario, Double> entry : config.mix.entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                scenarios.add(entry.getKey());
+                weights.add(total);
+                stats.put(entry.getKey(), new LatencyStats());
+            }
+        }
+        this.scenarios = scenarios.toArray(Scenario[]::new);
+        this.cumulativeWeights = weights.stream().mapToDouble(weight -> weight).toArray();
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            cumulativeWeights[i] /= total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        // Пороги разбираются до запуска, чтобы опечатка в них не стоила целого прогона
+        Thresholds thresholds = new Thresholds(config.thresholds);
+        boolean passed;
+        try (ConfigurableApplicationContext context = startApplication(config)) {
+            passed = new LoadTest(config).run(context, thresholds);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Запускает приложение в этом процессе на свободном порту и пустой H2 в памяти.
+     */
+    static ConfigurableApplicationContext startApplication(LoadTestConfig config) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.profiles.active=prod",
+                "--logging.threshold.console=WARN",
+                "--logging.file.path=" + config.resultDir.resolve("logs"),
+                "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                "--spring.h2.console.enabled=false",
+                "--app.search.in-memory=true",
+                "--app.report.dir=" + config.resultDir.resolve("reports"),
+                // Измеряется само приложение; ограничители частоты отклонили бы почти всю нагрузку с одного адреса
+                "--app.rate-limit.enabled=false"));
+        args.addAll(config.appArgs);
+        return SpringApplication.run(DemoApplication.class, args.toArray(String[]::new));
+    }
+
+    private boolean run(ConfigurableApplicationContext context, Thresholds thresholds) throws Exception {
+        seed(context.getBean(JdbcTemplate.class), config);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        URI base = URI.create("http://localhost:" + port);
+        ExecutorService responses = Executors.newFixedThreadPool(4);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(responses)
+                .build();
+        try {
+            int subscribed = webSockets.connect(client, URI.create("ws://localhost:" + port + "/ws"),
+                    config.wsClients, config.requestTimeout);
+            System.out.printf("%d of %d WebSocket clients subscribed%n", subscribed, config.wsClients);
+
+            Instant startedAt = Instant.now();
+            generate(client, base);
+            awaitInFlight();
+            // Последние посты ещё в окне рассылки
+            Thread.sleep(config.wsDrain.toMillis());
+
+            double seconds = config.duration.toNanos() / 1e9;
+            ObjectNode result = objectMapper.createObjectNode();
+            result.put("startedAt", startedAt.toString());
+            writeConfig(result.putObject("config"));
+            ObjectNode generator = result.putObject("generator");
+            generator.put("maxSchedulingLagMs", maxLagNanos / 1e6);
+            ObjectNode scenarioResults = result.putObject("scenarios");
+            stats.forEach((scenario, scenarioStats) -> scenarioStats.writeTo(scenarioResults.putObject(scenario.key()),
+                    seconds));
+            webSockets.writeTo(result.putObject("websocket"), seconds);
+            boolean passed = thresholds.check(stats, webSockets, result.putArray("thresholds"));
+            result.put("passed", passed);
+            writeResults(result);
+            return passed;
+        } finally {
+            webSockets.close();
+            responses.shutdownNow();
+        }
+    }
+
+    /**
+     * Открытая модель: i-й запрос планируется на start + i / rate и отправляется без ожидания предыдущих.
+     * Задержка считается от запланированного момента, поэтому отставание генератора её не занижает.
+     */
+    private void generate(HttpClient client, URI base) {
+        double intervalNanos = 1e9 / config.rate;
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup.toNanos();
+        long end = measureFrom + config.duration.toNanos();
+        boolean measuring = false;
+        for (long sequence = 0; ; sequence++) {
+            long intended = start + (long) (sequence * intervalNanos);
+            if (intended >= end) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (intended > now) {
+                LockSupport.parkNanos(intended - now);
+            }
+            boolean measured = intended >= measureFrom;
+            if (measured && !measuring) {
+                measuring = true;
+                webSockets.startMeasuring();
+            }
+            if (measured) {
+                maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - intended);
+            }
+            send(client, base, sequence, intended, measured);
+        }
+    }
+
+    private void send(HttpClient client, URI base, long sequence, long intended, boolean measured) {
+        Scenario scenario = pick();
+        LatencyStats scenarioStats = stats.get(scenario);
+        if (inFlight.incrementAndGet() > config.maxInFlight) {
+            inFlight.decrementAndGet();
+            if (measured) {
+                scenarioStats.count(LatencyStats.DROPPED, true);
+            }
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = random.nextLong(config.users) + 1;
+        long authorId = random.nextLong(config.authors) + 1;
+        client.sendAsync(scenario.build(base, userId, authorId, sequence, config.requestTimeout),
+                        HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    inFlight.decrementAndGet();
+                    long latency = System.nanoTime() - intended;
+                    boolean ok = error == null && response.statusCode() / 100 == 2;
+                    if (ok && scenario == Scenario.CREATE_POST) {
+                        webSockets.postCreated(authorId);
+                    }
+                    if (measured) {
+                        String outcome = error == null ? Integer.toString(response.statusCode())
+                                : LatencyStats.FAILED;
+                        scenarioStats.record(latency, outcome, !ok);
+                    }
+                });
+    }
+
+    private Scenario pick() {
+        double point = ThreadLocalRandom.current().nextDouble();
+        for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+            if (point < cumulativeWeights[i]) {
+                return scenarios[i];
+            }
+        }
+        return scenarios[scenarios.length - 1];
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + config.requestTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    /**
+     * Заполняет пустую схему SQL-запросами H2, минуя JPA: у каждого пользователя действующая подписка,
+     * посты распределены по первым authors пользователям поровну.
+     */
+    static void seed(JdbcTemplate jdbc, LoadTestConfig config) {
+        jdbc.update("INSERT INTO users (id, name, email, password, is_admin) "
+                + "SELECT X, 'User ' || X, 'user' || X || '@example.com', ?, FALSE FROM SYSTEM_RANGE(1, ?)",
+                PASSWORD, config.users);
+        jdbc.update("INSERT INTO subscriptions (id, user_id, expiry_date) "
+                + "SELECT X, X, TIMESTAMP '2099-01-01 00:00:00' FROM SYSTEM_RANGE(1, ?)", config.users);
+        jdbc.update("INSERT INTO posts (id, title, created_at, author_id, version) "
+                + "SELECT X, 'Post #' || X, TIMESTAMP '2024-01-01 00:00:00' + X * INTERVAL '1' SECOND, "
+                + "MOD(X, ?) + 1, 0 FROM SYSTEM_RANGE(1, ?)", config.authors, config.posts);
+        // Короткие тексты хранятся без сжатия, как их записал бы PostBodyStore
+        jdbc.update("INSERT INTO post_bodies (post_id, codec, original_length, data) "
+                + "SELECT X, 'NONE', OCTET_LENGTH(CAST(T AS VARBINARY)), CAST(T AS VARBINARY) "
+                + "FROM (SELECT X, 'Lorem ipsum dolor sit amet #' || X AS T FROM SYSTEM_RANGE(1, ?))", config.posts);
+        // Оптимизатор pooled Hibernate считает значение последовательности верхней границей блока из 50 ID
+        jdbc.execute("ALTER SEQUENCE users_seq RESTART WITH " + (config.users + SEQUENCE_BLOCK + 1));
+        jdbc.execute("ALTER SEQUENCE subscriptions_seq RESTART WITH " + (config.users + SEQUENCE_BLOCK + 1));
+        jdbc.execute("ALTER SEQUENCE posts_seq RESTART WITH " + (config.posts + SEQUENCE_BLOCK + 1));
+        jdbc.execute("ANALYZE");
+    }
+
+    private void writeConfig(ObjectNode node) {
+        node.put("rate", config.rate);
+        node.put("warmupSeconds", config.warmup.toMillis() / 1_000.0);
+        node.put("durationSeconds", config.duration.toMillis() / 1_000.0);
+        ObjectNode mix = node.putObject("mix");
+        config.mix.forEach((scenario, weight) -> mix.put(scenario.key(), weight));
+        node.put("users", config.users);
+        node.put("authors", config.authors);
+        node.put("posts", config.posts);
+        node.put("wsClients", config.wsClients);
+        node.put("cpus", Runtime.getRuntime().availableProcessors());
+    }
+
+    private void writeResults(ObjectNode result) throws IOException {
+        Files.createDirectories(config.resultDir);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(config.resultDir.resolve("result.json").toFile(),
+                result);
+        for (Map.Entry<Scenario, LatencyStats> entry : stats.entrySet()) {
+            entry.getValue().writeDistribution(config.resultDir.resolve(entry.getKey().key() + ".hgrm"));
+        }
+        webSockets.delivery().writeDistribution(config.resultDir.resolve("ws-delivery.hgrm"));
+        System.out.printf("Load test %s, results in %s%n", result.path("passed").asBoolean() ? "passed" : "FAILED",
+                config.resultDir.toAbsolutePath());
+    }
+}
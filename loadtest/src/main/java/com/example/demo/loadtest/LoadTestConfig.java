@@ -0,0 +1,125 @@
+package com.example.demo.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Параметры прогона: loadtest.properties с переопределениями из аргументов {@code --loadtest.*}.
+ * Прочие аргументы {@code --ключ=значение} передаются приложению.
+ */
+final class LoadTestConfig {
+
+    private static final String PREFIX = "loadtest.";
+    private static final String MIX_PREFIX = PREFIX + "mix.";
+    private static final String THRESHOLD_PREFIX = PREFIX + "threshold.";
+
+    final double rate;
+    final Duration warmup;
+    final Duration duration;
+    final int maxInFlight;
+    final Duration requestTimeout;
+    final Map<Scenario, Double> mix;
+    final int users;
+    final int authors;
+    final int posts;
+    final int wsClients;
+    final Duration wsDrain;
+    final int readers;
+    final Duration readersWarmup;
+    final Duration readersSettle;
+    final Duration readersDuration;
+    final int readersLimit;
+    final List<String> readersStacks;
+    final String readersServerJvmArgs;
+    final Path resultDir;
+    final Map<String, String> thresholds;
+    final List<String> appArgs;
+
+    private LoadTestConfig(Properties properties, List<String> appArgs) {
+        this.rate = Double.parseDouble(required(properties, "rate"));
+        this.warmup = duration(properties, "warmup");
+        this.duration = duration(properties, "duration");
+        this.maxInFlight = Integer.parseInt(required(properties, "max-in-flight"));
+        this.requestTimeout = duration(properties, "request-timeout");
+        this.users = Integer.parseInt(required(properties, "users"));
+        this.authors = Integer.parseInt(required(properties, "authors"));
+        this.posts = Integer.parseInt(required(properties, "posts"));
+        this.wsClients = Integer.parseInt(required(properties, "ws.clients"));
+        this.wsDrain = duration(properties, "ws.drain");
+        this.readers = Integer.parseInt(required(properties, "readers.concurrency"));
+        this.readersWarmup = duration(properties, "readers.warmup");
+        this.readersSettle = duration(properties, "readers.settle");
+        this.readersDuration = duration(properties, "readers.duration");
+        this.readersLimit = Integer.parseInt(required(properties, "readers.limit"));
+        this.readersStacks = List.of(required(properties, "readers.stacks").split("\\s*,\\s*"));
+        this.readersServerJvmArgs = required(properties, "readers.server-jvm-args");
+        this.resultDir = Path.of(required(properties, "result-dir"));
+        this.appArgs = List.copyOf(appArgs);
+
+        Map<Scenario, Double> mix = new EnumMap<>(Scenario.class);
+        Map<String, String> thresholds = new LinkedHashMap<>();
+        for (String name : properties.stringPropertyNames().stream().sorted().toList()) {
+            if (name.startsWith(MIX_PREFIX)) {
+                double weight = Double.parseDouble(properties.getProperty(name));
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Negative weight: " + name);
+                }
+                mix.put(Scenario.byKey(name.substring(MIX_PREFIX.length())), weight);
+            } else if (name.startsWith(THRESHOLD_PREFIX)) {
+                thresholds.put(name.substring(THRESHOLD_PREFIX.length()), properties.getProperty(name));
+            }
+        }
+        if (mix.values().stream().mapToDouble(Double::doubleValue).sum() <= 0) {
+            throw new IllegalArgumentException("At least one scenario must have a positive weight");
+        }
+        if (rate <= 0 || users < 1 || authors < 1 || authors > users || posts < authors) {
+            throw new IllegalArgumentException("Expected rate > 0 and 1 <= authors <= users, posts >= authors");
+        }
+        this.mix = mix;
+        this.thresholds = thresholds;
+    }
+
+    static LoadTestConfig fromArgs(String... args) {
+        Properties properties = new Properties();
+        try (InputStream defaults = LoadTestConfig.class.getResourceAsStream("/loadtest.properties")) {
+            if (defaults != null) {
+                properties.load(defaults);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--" + PREFIX) && separator > 0) {
+                properties.setProperty(arg.substring(2, separator), arg.substring(separator + 1));
+            } else {
+                appArgs.add(arg);
+            }
+        }
+        return new LoadTestConfig(properties, appArgs);
+    }
+
+    private static Duration duration(Properties properties, String name) {
+        return DurationStyle.detectAndParse(required(properties, name));
+    }
+
+    private static String required(Properties properties, String name) {
+        String value = properties.getProperty(PREFIX + name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing " + PREFIX + name);
+        }
+        return value.trim();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.loadtest;
+
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Приложение для {@link ConcurrentReaders} в отдельном процессе: так в замер памяти не попадают клиенты,
+ * а десять тысяч соединений клиента и сервера не делят один лимит открытых файлов.
+ *
+ * Заполняет базу, как {@link LoadTest}, печатает {@code READY <порт>} и выполняет команды из stdin:
+ * {@code sample} — полная сборка мусора и строка {@code SAMPLE <heap> <rss> <потоки> <потоки Tomcat>}.
+ * Конец stdin завершает процесс.
+ */
+final class ReaderServer {
+
+    static final String READY = "READY ";
+    static final String SAMPLE = "SAMPLE ";
+    static final String SAMPLE_COMMAND = "sample";
+
+    private ReaderServer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        try (ConfigurableApplicationContext context = LoadTest.startApplication(config)) {
+            LoadTest.seed(context.getBean(JdbcTemplate.class), config);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            System.out.println(READY + port);
+            BufferedReader commands = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            for (String command = commands.readLine(); command != null; command = commands.readLine()) {
+                if (SAMPLE_COMMAND.equals(command.trim())) {
+                    System.out.println(SAMPLE + Sample.take().toLine());
+                }
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Память и потоки процесса приложения.
+     * @param heapBytes занятая куча сразу после полной сборки: живые объекты, без мусора
+     * @param rssBytes резидентная память процесса, вместе со стеками потоков и буферами вне кучи; -1 не в Linux
+     * @param threads живые потоки
+     * @param tomcatWorkers созданные рабочие потоки Tomcat
+     */
+    record Sample(long heapBytes, long rssBytes, int threads, int tomcatWorkers) {
+
+        static Sample take() {
+            // Вторая сборка добирает объекты, освобождённые финализацией после первой
+            System.gc();
+            System.gc();
+            long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            int workers = (int) Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().contains("-exec-"))
+                    .count();
+            return new Sample(heap, rss(), ManagementFactory.getThreadMXBean().getThreadCount(), workers);
+        }
+
+        static Sample parse(String line) {
+            String[] fields = line.substring(SAMPLE.length()).trim().split(" ");
+            return new Sample(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Integer.parseInt(fields[2]),
+                    Integer.parseInt(fields[3]));
+        }
+
+        String toLine() {
+            return heapBytes + " " + rssBytes + " " + threads + " " + tomcatWorkers;
+        }
+
+        private static long rss() {
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Не Linux: RSS в результатах не будет
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+
+/**
+ * Запросы, из которых складывается нагрузка. Имя сценария — ключ в loadtest.mix и loadtest.threshold.
+ */
+enum Scenario {
+
+    CREATE_POST("create-post") {
+        @Override
+        HttpRequest.Builder request(URI base, long userId, long authorId, long sequence) {
+            return json(base.resolve("/api/posts"), "{\"title\":\"Load test post " + sequence
+                    + "\",\"content\":\"Lorem ipsum dolor sit amet #" + sequence
+                    + "\",\"author\":{\"id\":" + authorId + "}}");
+        }
+    },
+    USER_POSTS("user-posts") {
+        @Override
+        HttpRequest.Builder request(URI base, long userId, long authorId, long sequence) {
+            return HttpRequest.newBuilder(base.resolve("/api/posts/user/" + authorId + "?limit=20")).GET();
+        }
+    },
+    LOGIN("login") {
+        @Override
+        HttpRequest.Builder request(URI base, long userId, long authorId, long sequence) {
+            return json(base.resolve("/api/users/login"),
+                    "{\"email\":\"user" + userId + "@example.com\",\"password\":\"" + LoadTest.PASSWORD + "\"}");
+        }
+    },
+    REPORT("report") {
+        @Override
+        HttpRequest.Builder request(URI base, long userId, long authorId, long sequence) {
+            return HttpRequest.newBuilder(base.resolve("/api/posts/report")).GET();
+        }
+    };
+
+    private final String key;
+
+    Scenario(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    /**
+     * @param userId случайный пользователь, от имени которого идёт запрос
+     * @param authorId случайный автор с постами
+     * @param sequence номер запроса в прогоне
+     */
+    abstract HttpRequest.Builder request(URI base, long userId, long authorId, long sequence);
+
+    HttpRequest build(URI base, long userId, long authorId, long sequence, Duration timeout) {
+        return request(base, userId, authorId, sequence).timeout(timeout).build();
+    }
+
+    static Scenario byKey(String key) {
+        for (Scenario scenario : values()) {
+            if (scenario.key.equals(key)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + key);
+    }
+
+    private static HttpRequest.Builder json(URI uri, String body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+}
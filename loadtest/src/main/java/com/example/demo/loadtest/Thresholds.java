@@ -0,0 +1,92 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Пороги прогона из loadtest.threshold.*: {@code <сценарий|ws>.<метрика>=<предел>}.
+ * Задержки (p50, p99, p999, max) и error-rate — верхние пределы, ws.delivered — нижний.
+ * Порог по сценарию без единого запроса пропускается.
+ */
+final class Thresholds {
+
+    static final String WEBSOCKET = "ws";
+
+    private static final Set<String> LATENCY_METRICS = Set.of("p50", "p99", "p999", "max");
+
+    private final List<Threshold> thresholds = new ArrayList<>();
+
+    /**
+     * @throws IllegalArgumentException если порог ссылается на неизвестный сценарий или метрику
+     */
+    Thresholds(Map<String, String> limits) {
+        limits.forEach((name, value) -> {
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) {
+                throw new IllegalArgumentException("Threshold must be <scenario>.<metric>: " + name);
+            }
+            String target = name.substring(0, dot);
+            String metric = name.substring(dot + 1);
+            if (!WEBSOCKET.equals(target)) {
+                Scenario.byKey(target);
+            }
+            double limit;
+            if (LATENCY_METRICS.contains(metric)) {
+                limit = DurationStyle.detectAndParse(value.trim()).toNanos() / 1_000_000.0;
+            } else if ("error-rate".equals(metric) && !WEBSOCKET.equals(target)
+                    || "delivered".equals(metric) && WEBSOCKET.equals(target)) {
+                limit = Double.parseDouble(value.trim());
+            } else {
+                throw new IllegalArgumentException("Unknown threshold metric: " + name);
+            }
+            thresholds.add(new Threshold(name, target, metric, limit));
+        });
+    }
+
+    /**
+     * Сверяет результаты с порогами и дописывает итог по каждому порогу в results.
+     * @return true, если ни один порог не превышен
+     */
+    boolean check(Map<Scenario, LatencyStats> scenarios, WebSocketClients webSockets, ArrayNode results) {
+        boolean passed = true;
+        for (Threshold threshold : thresholds) {
+            Double actual = threshold.actual(scenarios, webSockets);
+            boolean ok = actual == null || (threshold.isLowerBound() ? actual >= threshold.limit
+                    : actual <= threshold.limit);
+            passed &= ok;
+            ObjectNode result = results.addObject();
+            result.put("name", threshold.name);
+            result.put("limit", threshold.limit);
+            result.put("actual", actual);
+            result.put("passed", ok);
+            System.out.printf("%-28s %-8s limit %10.3f actual %s%n", threshold.name, ok ? "PASS" : "FAIL",
+                    threshold.limit, actual == null ? "no data" : String.format("%10.3f", actual));
+        }
+        return passed;
+    }
+
+    private record Threshold(String name, String target, String metric, double limit) {
+
+        boolean isLowerBound() {
+            return "delivered".equals(metric);
+        }
+
+        Double actual(Map<Scenario, LatencyStats> scenarios, WebSocketClients webSockets) {
+            if (WEBSOCKET.equals(target)) {
+                return "delivered".equals(metric) ? webSockets.deliveredRatio()
+                        : webSockets.delivery().latencyMillis(metric);
+            }
+            LatencyStats stats = scenarios.get(Scenario.byKey(target));
+            if (stats == null || stats.total() == 0) {
+                return null;
+            }
+            return "error-rate".equals(metric) ? stats.errorRate() : stats.latencyMillis(metric);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket-клиенты на /ws, каждый подписан на посты одного случайного автора.
+ *
+ * Ожидаемое число доставок — сумма по созданным постам числа подписчиков их авторов. Задержка доставки
+ * считается от createdAt поста до получения: приложение запущено в том же процессе, часы общие.
+ */
+final class WebSocketClients {
+
+    private static final String POSTS_CREATED = "posts.created";
+    // Одновременных рукопожатий, чтобы подключение тысяч клиентов не упиралось в backlog сервера
+    private static final int CONCURRENT_HANDSHAKES = 50;
+
+    private final ObjectMapper objectMapper;
+    private final int[] subscribersByAuthor;
+    private final List<WebSocket> sockets = new ArrayList<>();
+    private final AtomicLongArray createdByAuthor;
+    private final LatencyStats delivery = new LatencyStats();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private volatile boolean measuring;
+    private CountDownLatch subscribed;
+
+    WebSocketClients(ObjectMapper objectMapper, int authors) {
+        this.objectMapper = objectMapper;
+        this.subscribersByAuthor = new int[authors + 1];
+        this.createdByAuthor = new AtomicLongArray(authors + 1);
+    }
+
+    /**
+     * Подключает клиентов и ждёт подтверждения подписок.
+     * @return число подписанных клиентов
+     */
+    int connect(HttpClient client, URI uri, int clients, Duration timeout) throws InterruptedException {
+        subscribed = new CountDownLatch(clients);
+        Semaphore handshakes = new Semaphore(CONCURRENT_HANDSHAKES);
+        List<CompletableFuture<WebSocket>> connecting = new ArrayList<>(clients);
+        int authors = subscribersByAuthor.length - 1;
+        for (int i = 0; i < clients; i++) {
+            long authorId = ThreadLocalRandom.current().nextLong(authors) + 1;
+            handshakes.acquire();
+            connecting.add(client.newWebSocketBuilder()
+                    .buildAsync(uri, new Listener())
+                    .whenComplete((socket, error) -> handshakes.release())
+                    .thenCompose(socket -> socket.sendText(
+                            "{\"action\":\"subscribe\",\"topic\":\"author:" + authorId + "\"}", true))
+                    .whenComplete((socket, error) -> {
+                        if (error == null) {
+                            synchronized (subscribersByAuthor) {
+                                subscribersByAuthor[(int) authorId]++;
+                            }
+                        }
+                    }));
+        }
+        for (CompletableFuture<WebSocket> future : connecting) {
+            try {
+                sockets.add(future.join());
+            } catch (RuntimeException e) {
+                errors.increment();
+            }
+        }
+        subscribed.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return clients - (int) subscribed.getCount();
+    }
+
+    /**
+     * Доставки, записанные с этого момента, попадают в задержки; прогрев не учитывается.
+     */
+    void startMeasuring() {
+        measuring = true;
+    }
+
+    void postCreated(long authorId) {
+        createdByAuthor.incrementAndGet((int) authorId);
+    }
+
+    long expected() {
+        long expected = 0;
+        synchronized (subscribersByAuthor) {
+            for (int authorId = 1; authorId < subscribersByAuthor.length; authorId++) {
+                expected += createdByAuthor.get(authorId) * subscribersByAuthor[authorId];
+            }
+        }
+        return expected;
+    }
+
+    long received() {
+        return received.sum();
+    }
+
+    /**
+     * Доля доставленных постов от ожидаемых; 1, если постов не создавалось.
+     */
+    double deliveredRatio() {
+        long expected = expected();
+        return expected == 0 ? 1 : (double) received() / expected;
+    }
+
+    LatencyStats delivery() {
+        return delivery;
+    }
+
+    void writeTo(ObjectNode node, double seconds) {
+        node.put("clients", sockets.size());
+        node.put("subscribed", subscribed == null ? 0 : sockets.size() - subscribed.getCount());
+        node.put("expected", expected());
+        node.put("received", received());
+        node.put("deliveredRatio", deliveredRatio());
+        node.put("errors", errors.sum());
+        node.put("closedByServer", closed.sum());
+        ObjectNode latency = node.putObject("deliveryLatency");
+        delivery.writeTo(latency, seconds);
+    }
+
+    void close() {
+        for (WebSocket socket : sockets) {
+            socket.abort();
+        }
+    }
+
+    private void handle(String message) {
+        JsonNode json;
+        try {
+            json = objectMapper.readTree(message);
+        } catch (JsonProcessingException e) {
+            errors.increment();
+            return;
+        }
+        String type = json.path("type").asText();
+        switch (type) {
+            case "subscribed" -> subscribed.countDown();
+            case POSTS_CREATED -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (JsonNode post : json.path("posts")) {
+                    received.increment();
+                    if (measuring) {
+                        LocalDateTime createdAt = LocalDateTime.parse(post.path("createdAt").asText());
+                        delivery.record(Duration.between(createdAt, now).toNanos(), "delivered", false);
+                    }
+                }
+            }
+            case "error" -> errors.increment();
+            default -> {
+                // Прочие события (изменение и удаление постов) в нагрузке не участвуют
+            }
+        }
+    }
+
+    private final class Listener implements WebSocket.Listener {
+
+        private final StringBuilder partial = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                handle(partial.toString());
+                partial.setLength(0);
+            }
+            socket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+            closed.increment();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket socket, Throwable error) {
+            errors.increment();
+        }
+    }
+}